@@ -0,0 +1,314 @@
+package com.escueladeequitacion.hrs.rendimiento;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Reproduce un escenario HTTP contra una instancia levantada con el perfil
+ * loadtest y reporta throughput y percentiles de latencia por endpoint.
+ *
+ * El escenario (src/benchmark/resources/escenario-carga.txt) es una lista
+ * ponderada de requests. Cada hilo elige con su propia semilla, así la misma
+ * semilla repite exactamente la misma secuencia de requests.
+ *
+ * SPRING_PROFILE=loadtest mvn spring-boot:run
+ * mvn -Pbenchmark test-compile exec:exec@escenario -Descenario.args="--hilos 16 --duracion 120"
+ *
+ * Opciones: --url, --usuario, --password, --hilos, --duracion y
+ * --calentamiento (segundos), --semilla, --escenario (archivo).
+ */
+public class EscenarioCarga {
+
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final String url;
+    private final List<Operacion> operaciones;
+    private final int pesoTotal;
+    private final HttpClient cliente = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+
+    private String token;
+    private final Map<String, List<Long>> ids = new HashMap<>();
+
+    EscenarioCarga(String url, List<Operacion> operaciones) {
+        this.url = url;
+        this.operaciones = operaciones;
+        this.pesoTotal = operaciones.stream().mapToInt(Operacion::peso).sum();
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opciones = new HashMap<>(Map.of(
+                "url", "http://localhost:8080",
+                "usuario", "carga",
+                "password", "carga",
+                "hilos", "8",
+                "duracion", "60",
+                "calentamiento", "10",
+                "semilla", "42"));
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            opciones.put(args[i].replaceFirst("^--", ""), args[i + 1]);
+        }
+
+        EscenarioCarga escenario = new EscenarioCarga(opciones.get("url"), leerEscenario(opciones.get("escenario")));
+        escenario.iniciarSesion(opciones.get("usuario"), opciones.get("password"));
+        escenario.cargarIds();
+        Map<String, Estadistica> resultado = escenario.ejecutar(Integer.parseInt(opciones.get("hilos")),
+                Integer.parseInt(opciones.get("calentamiento")), Integer.parseInt(opciones.get("duracion")),
+                Long.parseLong(opciones.get("semilla")));
+        imprimir(resultado, Integer.parseInt(opciones.get("duracion")));
+    }
+
+    // ── Preparación ──────────────────────────────────────────────────────────
+
+    static List<Operacion> leerEscenario(String archivo) throws IOException {
+        List<String> lineas;
+        if (archivo != null) {
+            lineas = Files.readAllLines(Path.of(archivo), StandardCharsets.UTF_8);
+        } else {
+            try (InputStream in = EscenarioCarga.class.getResourceAsStream("/escenario-carga.txt")) {
+                lineas = new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+            }
+        }
+
+        List<Operacion> operaciones = new ArrayList<>();
+        for (String linea : lineas) {
+            linea = linea.strip();
+            if (linea.isEmpty() || linea.startsWith("#")) {
+                continue;
+            }
+            String[] partes = linea.split("\\s+", 4);
+            operaciones.add(new Operacion(Integer.parseInt(partes[0]), partes[1], partes[2],
+                    partes.length > 3 ? partes[3] : null));
+        }
+        return operaciones;
+    }
+
+    private void iniciarSesion(String usuario, String password) throws Exception {
+        String basic = Base64.getEncoder().encodeToString((usuario + ":" + password).getBytes(StandardCharsets.UTF_8));
+        HttpResponse<String> respuesta = cliente.send(HttpRequest.newBuilder(URI.create(url + "/api/v1/auth/login"))
+                .header("Authorization", "Basic " + basic)
+                .POST(HttpRequest.BodyPublishers.noBody())
+                .build(), HttpResponse.BodyHandlers.ofString());
+        if (respuesta.statusCode() != 200) {
+            throw new IllegalStateException("Login fallido (" + respuesta.statusCode() + "): " + respuesta.body());
+        }
+        token = JSON.readTree(respuesta.body()).path("tokenAcceso").asText();
+    }
+
+    private void cargarIds() throws Exception {
+        for (String recurso : List.of("alumnos", "instructores", "caballos")) {
+            HttpResponse<String> respuesta = cliente.send(solicitud("GET", "/api/v1/" + recurso + "?size=2000", null),
+                    HttpResponse.BodyHandlers.ofString());
+            // Los listados paginados (alumnos) vienen dentro de "content"
+            JsonNode cuerpo = JSON.readTree(respuesta.body());
+            List<Long> lista = new ArrayList<>();
+            for (JsonNode nodo : cuerpo.has("content") ? cuerpo.get("content") : cuerpo) {
+                lista.add(nodo.path("id").asLong());
+            }
+            if (lista.isEmpty()) {
+                throw new IllegalStateException("Sin " + recurso + ": ¿la instancia corre con el perfil loadtest?");
+            }
+            ids.put(recurso, lista);
+        }
+    }
+
+    // ── Ejecución ────────────────────────────────────────────────────────────
+
+    private Map<String, Estadistica> ejecutar(int hilos, int calentamiento, int duracion, long semilla)
+            throws Exception {
+        long inicioMedicion = System.nanoTime() + Duration.ofSeconds(calentamiento).toNanos();
+        long fin = inicioMedicion + Duration.ofSeconds(duracion).toNanos();
+        System.out.printf("%d hilos, %d s de calentamiento y %d s de medición contra %s%n", hilos, calentamiento,
+                duracion, url);
+
+        ExecutorService ejecutor = Executors.newFixedThreadPool(hilos);
+        List<Future<Map<String, Estadistica>>> tareas = new ArrayList<>();
+        for (int h = 0; h < hilos; h++) {
+            Random azar = new Random(semilla + h);
+            tareas.add(ejecutor.submit(() -> recorrer(azar, inicioMedicion, fin)));
+        }
+
+        Map<String, Estadistica> total = new LinkedHashMap<>();
+        operaciones.forEach(op -> total.put(op.nombre(), new Estadistica()));
+        for (Future<Map<String, Estadistica>> tarea : tareas) {
+            tarea.get().forEach((nombre, e) -> total.get(nombre).sumar(e));
+        }
+        ejecutor.shutdown();
+        return total;
+    }
+
+    private Map<String, Estadistica> recorrer(Random azar, long inicioMedicion, long fin) {
+        Map<String, Estadistica> propias = new HashMap<>();
+        while (System.nanoTime() < fin) {
+            Operacion op = elegir(azar);
+            HttpRequest solicitud = solicitud(op.metodo(), resolver(op.ruta(), azar),
+                    op.cuerpo() != null ? resolver(op.cuerpo(), azar) : null);
+
+            long inicio = System.nanoTime();
+            boolean ok;
+            try {
+                int estado = cliente.send(solicitud, HttpResponse.BodyHandlers.discarding()).statusCode();
+                ok = estado < 400;
+            } catch (IOException e) {
+                ok = false;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            long latencia = System.nanoTime() - inicio;
+
+            if (inicio >= inicioMedicion) {
+                propias.computeIfAbsent(op.nombre(), k -> new Estadistica()).registrar(latencia, ok);
+            }
+        }
+        return propias;
+    }
+
+    private Operacion elegir(Random azar) {
+        int valor = azar.nextInt(pesoTotal);
+        for (Operacion op : operaciones) {
+            valor -= op.peso();
+            if (valor < 0) {
+                return op;
+            }
+        }
+        return operaciones.get(operaciones.size() - 1);
+    }
+
+    private HttpRequest solicitud(String metodo, String ruta, String cuerpo) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url + ruta))
+                .timeout(Duration.ofSeconds(30))
+                .header("Authorization", "Bearer " + token);
+        if (cuerpo != null) {
+            builder.header("Content-Type", "application/json");
+        }
+        return builder.method(metodo, cuerpo != null ? HttpRequest.BodyPublishers.ofString(cuerpo)
+                : HttpRequest.BodyPublishers.noBody()).build();
+    }
+
+    private String resolver(String texto, Random azar) {
+        if (texto.indexOf('{') < 0) {
+            return texto;
+        }
+        LocalDate hoy = LocalDate.now();
+        LocalDate lunes = hoy.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+        LocalDate inicioMes = hoy.withDayOfMonth(1).minusMonths(1);
+        return texto
+                .replace("{alumnoId}", String.valueOf(alAzar("alumnos", azar)))
+                .replace("{instructorId}", String.valueOf(alAzar("instructores", azar)))
+                .replace("{caballoId}", String.valueOf(alAzar("caballos", azar)))
+                .replace("{dia}", hoy.minusDays(1 + azar.nextInt(365)).toString())
+                .replace("{hoy}", hoy.toString())
+                .replace("{semana}", lunes.toString())
+                .replace("{finSemana}", lunes.plusDays(6).toString())
+                .replace("{inicioMes}", inicioMes.toString())
+                .replace("{finMes}", inicioMes.plusMonths(1).minusDays(1).toString())
+                .replace("{inicioTrimestre}", inicioMes.minusMonths(2).toString());
+    }
+
+    private long alAzar(String recurso, Random azar) {
+        List<Long> lista = ids.get(recurso);
+        return lista.get(azar.nextInt(lista.size()));
+    }
+
+    // ── Reporte ──────────────────────────────────────────────────────────────
+
+    private static void imprimir(Map<String, Estadistica> resultado, int duracion) {
+        String formato = "%-72s %8s %7s %9s %8s %8s %8s %8s%n";
+        System.out.printf(formato, "Endpoint", "Requests", "Errores", "Req/s", "p50 ms", "p90 ms", "p99 ms",
+                "Máx ms");
+        Estadistica total = new Estadistica();
+        resultado.forEach((nombre, e) -> {
+            imprimirFila(formato, nombre, e, duracion);
+            total.sumar(e);
+        });
+        imprimirFila(formato, "TOTAL", total, duracion);
+    }
+
+    private static void imprimirFila(String formato, String nombre, Estadistica e, int duracion) {
+        long[] ordenadas = e.ordenadas();
+        System.out.printf(formato, nombre.length() > 72 ? nombre.substring(0, 69) + "..." : nombre,
+                ordenadas.length, e.errores, String.format("%.1f", (double) ordenadas.length / duracion),
+                ms(percentil(ordenadas, 50)), ms(percentil(ordenadas, 90)), ms(percentil(ordenadas, 99)),
+                ms(ordenadas.length > 0 ? ordenadas[ordenadas.length - 1] : 0));
+    }
+
+    private static long percentil(long[] ordenadas, int p) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int indice = (int) Math.ceil(p / 100.0 * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, indice)];
+    }
+
+    private static String ms(long nanos) {
+        return String.format("%.1f", nanos / 1_000_000.0);
+    }
+
+    // ── Estructuras internas ─────────────────────────────────────────────────
+
+    record Operacion(int peso, String metodo, String ruta, String cuerpo) {
+
+        String nombre() {
+            return metodo + " " + ruta;
+        }
+    }
+
+    /**
+     * Latencias (ns) y errores de una operación; cada hilo tiene las suyas.
+     */
+    static class Estadistica {
+        private long[] latencias = new long[1024];
+        private int cantidad;
+        private long errores;
+
+        void registrar(long latencia, boolean ok) {
+            if (cantidad == latencias.length) {
+                latencias = Arrays.copyOf(latencias, cantidad * 2);
+            }
+            latencias[cantidad++] = latencia;
+            if (!ok) {
+                errores++;
+            }
+        }
+
+        void sumar(Estadistica otra) {
+            if (cantidad + otra.cantidad > latencias.length) {
+                latencias = Arrays.copyOf(latencias, cantidad + otra.cantidad);
+            }
+            System.arraycopy(otra.latencias, 0, latencias, cantidad, otra.cantidad);
+            cantidad += otra.cantidad;
+            errores += otra.errores;
+        }
+
+        long[] ordenadas() {
+            long[] copia = Arrays.copyOf(latencias, cantidad);
+            Arrays.sort(copia);
+            return copia;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.escueladeequitacion.hrs.rendimiento;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.escueladeequitacion.hrs.HrsApplication;
+import com.escueladeequitacion.hrs.config.GeneradorDatosCarga;
+import com.escueladeequitacion.hrs.dto.ClaseResponseDto;
+import com.escueladeequitacion.hrs.dto.CuotasAlumnosDto;
+import com.escueladeequitacion.hrs.dto.HonorariosDto;
+import com.escueladeequitacion.hrs.dto.InscripcionRequestDto;
+import com.escueladeequitacion.hrs.dto.PrecioCalculadoDto;
+import com.escueladeequitacion.hrs.dto.ResumenFinancieroDto;
+import com.escueladeequitacion.hrs.enums.FormaPago;
+import com.escueladeequitacion.hrs.enums.ModalidadClase;
+import com.escueladeequitacion.hrs.enums.TipoClase;
+import com.escueladeequitacion.hrs.enums.TipoPension;
+import com.escueladeequitacion.hrs.model.Clase;
+import com.escueladeequitacion.hrs.model.PlanAbono;
+import com.escueladeequitacion.hrs.model.PlanPension;
+import com.escueladeequitacion.hrs.repository.PlanAbonoRepository;
+import com.escueladeequitacion.hrs.repository.PlanPensionRepository;
+import com.escueladeequitacion.hrs.service.ClaseService;
+import com.escueladeequitacion.hrs.service.FinanzasService;
+import com.escueladeequitacion.hrs.service.OcupacionHorariaIndex;
+import com.escueladeequitacion.hrs.service.PrecioService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Benchmarks de los caminos calientes de agenda, precios y finanzas contra H2
+ * en memoria, con 1k / 10k / 100k clases generadas por GeneradorDatosCarga.
+ *
+ * Cada valor de "clases" levanta su propio contexto de Spring (sin servidor
+ * web) y carga los datos una vez; se mide la llamada al servicio, no HTTP.
+ * Con -prof gc (lo agrega el perfil) el JSON incluye la tasa de asignación
+ * (gc.alloc.rate.norm = bytes por operación).
+ *
+ * mvn -Pbenchmark test-compile exec:exec
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class ServiciosBenchmark {
+
+    private static final int CLASES_POR_DIA = 40;
+    private static final int DIAS_FUTUROS = 14;
+
+    @Param({ "1000", "10000", "100000" })
+    public int clases;
+
+    private ConfigurableApplicationContext contexto;
+    private ClaseService claseService;
+    private OcupacionHorariaIndex ocupacionHorariaIndex;
+    private PrecioService precioService;
+    private FinanzasService finanzasService;
+    private EntityManager entityManager;
+    private TransactionTemplate soloLectura;
+
+    private GeneradorDatosCarga.Resultado datos;
+    private InscripcionRequestDto inscripcion;
+    private LocalDate inicioTrimestre;
+    private LocalDate inicioMes;
+    private LocalDate finMes;
+
+    @Setup(Level.Trial)
+    public void levantar() {
+        TimeZone.setDefault(TimeZone.getTimeZone("America/Argentina/Buenos_Aires"));
+        contexto = new SpringApplicationBuilder(HrsApplication.class, GeneradorDatosCarga.class)
+                .web(WebApplicationType.NONE)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:benchmark;DB_CLOSE_DELAY=-1",
+                        "app.whitelist.emails=benchmark@hrs.local",
+                        "app.token.secreto=clave-de-benchmark-no-usar-en-produccion",
+                        "app.precios.verificacion-ms=3600000",
+                        "app.precios.planes-recarga-ms=3600000",
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN")
+                .run();
+
+        claseService = contexto.getBean(ClaseService.class);
+        ocupacionHorariaIndex = contexto.getBean(OcupacionHorariaIndex.class);
+        precioService = contexto.getBean(PrecioService.class);
+        finanzasService = contexto.getBean(FinanzasService.class);
+        entityManager = SharedEntityManagerCreator
+                .createSharedEntityManager(contexto.getBean(EntityManagerFactory.class));
+        soloLectura = new TransactionTemplate(contexto.getBean(PlatformTransactionManager.class));
+        soloLectura.setReadOnly(true);
+
+        int diasPasados = Math.max(1, clases / CLASES_POR_DIA - DIAS_FUTUROS);
+        datos = contexto.getBean(GeneradorDatosCarga.class)
+                .generar(10, 30, 200, diasPasados, DIAS_FUTUROS, CLASES_POR_DIA);
+        cargarPlanes();
+
+        LocalDate hoy = LocalDate.now();
+        inicioTrimestre = hoy.withDayOfMonth(1).minusMonths(3);
+        inicioMes = hoy.withDayOfMonth(1).minusMonths(1);
+        finMes = hoy.withDayOfMonth(1).minusDays(1);
+    }
+
+    @TearDown(Level.Trial)
+    public void bajar() {
+        contexto.close();
+    }
+
+    private void cargarPlanes() {
+        LocalDate hoy = LocalDate.now();
+        PlanAbono abono = new PlanAbono();
+        abono.setTipoClase(TipoClase.ESCUELA_MAYOR_6);
+        abono.setModalidad(ModalidadClase.SEMANA);
+        abono.setCantidadClases(8);
+        abono.setDescripcion("8 CLASES");
+        abono.setPrecioEfectivo1al15(new BigDecimal("80000"));
+        abono.setPrecioTransferencia1al15(new BigDecimal("84000"));
+        abono.setPrecioEfectivoDespues15(new BigDecimal("88000"));
+        abono.setPrecioTransferenciaDespues15(new BigDecimal("92000"));
+        abono.setCuotaSocio(new BigDecimal("10000"));
+        abono.setFechaVigenciaDesde(hoy.minusMonths(1));
+        abono.setFechaVigenciaHasta(hoy.plusMonths(1));
+        contexto.getBean(PlanAbonoRepository.class).save(abono);
+
+        PlanPension pension = new PlanPension();
+        pension.setCantidadClases(8);
+        pension.setDescripcion("PENSIÓN 8 CLASES");
+        pension.setPrecioEfectivo1al15(new BigDecimal("150000"));
+        pension.setPrecioTransferencia1al15(new BigDecimal("155000"));
+        pension.setPrecioEfectivoDespues15(new BigDecimal("160000"));
+        pension.setPrecioTransferenciaDespues15(new BigDecimal("165000"));
+        pension.setFechaVigenciaDesde(hoy.minusMonths(1));
+        pension.setFechaVigenciaHasta(hoy.plusMonths(1));
+        contexto.getBean(PlanPensionRepository.class).save(pension);
+
+        inscripcion = new InscripcionRequestDto();
+        inscripcion.setEsSocio(false);
+        inscripcion.setTipoClase(TipoClase.ESCUELA_MAYOR_6);
+        inscripcion.setModalidad(ModalidadClase.SEMANA);
+        inscripcion.setCantidadClases(8);
+        inscripcion.setTipoPension(TipoPension.CABALLO_PROPIO);
+        inscripcion.setCaballoId(datos.caballoId());
+        inscripcion.setFormaPago(FormaPago.EFECTIVO);
+        inscripcion.setFechaPago(hoy);
+    }
+
+    // ── Agenda ───────────────────────────────────────────────────────────────
+
+    @Benchmark
+    public Page<ClaseResponseDto> listarClasesPaginado() {
+        return claseService.listarClasesPaginado(PageRequest.of(0, 50, Sort.by(Sort.Direction.DESC, "dia")),
+                null, null, null, null);
+    }
+
+    @Benchmark
+    public Object clasesDelDiaConDetalles() {
+        return claseService.buscarClasePorDiaConDetalles(datos.dia());
+    }
+
+    /**
+     * Todas las clases proyectadas a ClaseResponseDto (SELECT new ...), sin
+     * entidades administradas. Comparar gc.alloc.rate.norm con
+     * clasesConDetallesPorEntidades.
+     */
+    @Benchmark
+    public List<ClaseResponseDto> clasesConDetallesPorProyeccion() {
+        return claseService.listarClasesConDetalles();
+    }
+
+    /**
+     * El camino anterior a la proyección: JOIN FETCH de las entidades y un
+     * new ClaseResponseDto(clase) por cada una.
+     */
+    @Benchmark
+    public List<ClaseResponseDto> clasesConDetallesPorEntidades() {
+        return soloLectura.execute(status -> entityManager.createQuery("""
+                SELECT c FROM Clase c
+                JOIN FETCH c.instructor
+                LEFT JOIN FETCH c.alumno
+                LEFT JOIN FETCH c.personaPrueba
+                JOIN FETCH c.caballo
+                ORDER BY c.dia ASC, c.hora ASC
+                """, Clase.class)
+                .getResultStream()
+                .map(ClaseResponseDto::new)
+                .toList());
+    }
+
+    /**
+     * Lo que hace validarConflictoDeHorario al crear o modificar una clase.
+     */
+    @Benchmark
+    public boolean verificarConflictoDeHorario() {
+        return ocupacionHorariaIndex.hayConflictoAlumno(datos.dia(), LocalTime.of(10, 0), 60, datos.alumnoId(),
+                null)
+                || ocupacionHorariaIndex.hayConflictoCaballo(datos.dia(), LocalTime.of(10, 0), 60,
+                        datos.caballoId(), null);
+    }
+
+    // ── Precios ──────────────────────────────────────────────────────────────
+
+    @Benchmark
+    public PrecioCalculadoDto calcularPrecioInscripcion() {
+        return precioService.calcularPrecioInscripcion(inscripcion);
+    }
+
+    // ── Finanzas ─────────────────────────────────────────────────────────────
+
+    @Benchmark
+    public ResumenFinancieroDto resumenFinanciero() {
+        return finanzasService.calcularResumen(inicioTrimestre, finMes, null);
+    }
+
+    @Benchmark
+    public CuotasAlumnosDto cuotasAlumnos() {
+        return finanzasService.calcularCuotasAlumnos(inicioMes, finMes, null);
+    }
+
+    @Benchmark
+    public HonorariosDto honorarios() {
+        return finanzasService.calcularHonorarios(inicioTrimestre, finMes, null);
+    }
+}
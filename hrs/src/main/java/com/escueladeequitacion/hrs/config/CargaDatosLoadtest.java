@@ -0,0 +1,87 @@
+package com.escueladeequitacion.hrs.config;
+
+import com.escueladeequitacion.hrs.config.GeneradorDatosCarga.Parametros;
+import com.escueladeequitacion.hrs.config.GeneradorDatosCarga.Resultado;
+import com.escueladeequitacion.hrs.repository.AlumnoRepository;
+import com.escueladeequitacion.hrs.security.RolSeguridad;
+import com.escueladeequitacion.hrs.security.User;
+import com.escueladeequitacion.hrs.security.UserRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Profile;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.ZoneId;
+
+/**
+ * Carga un padrón sintético (GeneradorDatosCarga) al arrancar con el perfil
+ * loadtest: app.carga.anios de historia con abonos y facturas, el día de hoy
+ * y dos semanas programadas, más un usuario ADMIN para el escenario HTTP.
+ *
+ * Si la base ya tiene alumnos (por ej. H2 en archivo) no hace nada.
+ */
+@Component
+@Profile("loadtest")
+@Import(GeneradorDatosCarga.class)
+public class CargaDatosLoadtest implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(CargaDatosLoadtest.class);
+
+    private static final ZoneId ZONA = ZoneId.of("America/Argentina/Buenos_Aires");
+
+    @Autowired
+    private GeneradorDatosCarga generador;
+    @Autowired
+    private AlumnoRepository alumnoRepository;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private PasswordEncoder passwordEncoder;
+
+    @Value("${app.carga.instructores:8}")
+    private int instructores;
+    @Value("${app.carga.caballos:35}")
+    private int caballos;
+    @Value("${app.carga.alumnos:400}")
+    private int alumnos;
+    @Value("${app.carga.anios:2}")
+    private int anios;
+    @Value("${app.carga.clases-por-dia:30}")
+    private int clasesPorDia;
+    @Value("${app.carga.semilla:42}")
+    private long semilla;
+    @Value("${app.carga.usuario:carga}")
+    private String usuario;
+    @Value("${app.carga.password:carga}")
+    private String password;
+    @Value("${app.whitelist.emails:carga@hrs.local}")
+    private String emails;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        if (alumnoRepository.count() > 0) {
+            logger.info("La base ya tiene datos: no se generan datos de carga");
+            return;
+        }
+        long inicio = System.currentTimeMillis();
+        LocalDate hoy = LocalDate.now(ZONA);
+
+        String email = emails.split(",")[0].trim();
+        userRepository.save(new User(usuario, email, passwordEncoder.encode(password), RolSeguridad.ADMIN));
+        Resultado datos = generador.generar(new Parametros(instructores, caballos, alumnos,
+                hoy.minusYears(anios).withDayOfMonth(1), hoy.plusWeeks(2), clasesPorDia, semilla, true, true));
+
+        logger.info("Datos de carga generados en {} ms: {} instructores, {} caballos, {} alumnos, {} clases, "
+                + "{} abonos/facturas, {} pagos (usuario '{}')", System.currentTimeMillis() - inicio,
+                datos.instructores(), datos.caballos(), datos.alumnos(), datos.clases(), datos.abonos(),
+                datos.pagos(), usuario);
+    }
+}
@@ -0,0 +1,507 @@
+package com.escueladeequitacion.hrs.config;
+
+import com.escueladeequitacion.hrs.enums.CuotaPension;
+import com.escueladeequitacion.hrs.enums.Especialidad;
+import com.escueladeequitacion.hrs.enums.Estado;
+import com.escueladeequitacion.hrs.enums.EstadoAbono;
+import com.escueladeequitacion.hrs.enums.EstadoFactura;
+import com.escueladeequitacion.hrs.enums.FormaPago;
+import com.escueladeequitacion.hrs.enums.ModalidadClase;
+import com.escueladeequitacion.hrs.enums.Tipo;
+import com.escueladeequitacion.hrs.enums.TipoClase;
+import com.escueladeequitacion.hrs.enums.TipoItem;
+import com.escueladeequitacion.hrs.enums.TipoPension;
+import com.escueladeequitacion.hrs.model.Abono;
+import com.escueladeequitacion.hrs.model.Alumno;
+import com.escueladeequitacion.hrs.model.Caballo;
+import com.escueladeequitacion.hrs.model.Clase;
+import com.escueladeequitacion.hrs.model.Factura;
+import com.escueladeequitacion.hrs.model.Instructor;
+import com.escueladeequitacion.hrs.model.ItemFactura;
+import com.escueladeequitacion.hrs.model.Pago;
+import com.escueladeequitacion.hrs.model.PlanAbono;
+import com.escueladeequitacion.hrs.model.PlanPension;
+import com.escueladeequitacion.hrs.repository.AbonoRepository;
+import com.escueladeequitacion.hrs.repository.AlumnoRepository;
+import com.escueladeequitacion.hrs.repository.CaballoRepository;
+import com.escueladeequitacion.hrs.repository.ClaseRepository;
+import com.escueladeequitacion.hrs.repository.FacturaRepository;
+import com.escueladeequitacion.hrs.repository.InstructorRepository;
+import com.escueladeequitacion.hrs.repository.PlanAbonoRepository;
+import com.escueladeequitacion.hrs.repository.PlanPensionRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Genera un padrón sintético. Es el único generador de datos: lo usan
+ * CargaDatosLoadtest (perfil loadtest, para reproducir localmente el volumen
+ * de producción), el presupuesto de consultas por endpoint y los benchmarks.
+ * No es un @Component: lo registran ellos (@Import o como clase fuente).
+ *
+ * Genera con una semilla fija (los mismos datos en cada corrida):
+ * - Instructores, caballos de escuela y alumnos; un tercio con caballo
+ * propio y pensión, un 10% dado de baja, planes de 4 a 16 clases.
+ * - Planes de abono y pensión con una vigencia por año y aumento anual.
+ * - Clases entre dos fechas: más los sábados y por la tarde, con
+ * cancelaciones y ausencias en el pasado y programadas desde hoy.
+ * - Opcionalmente, un abono y una factura por alumno y mes, con sus pagos:
+ * la mayoría pagas a término, algunas en dos pagos, vencidas o canceladas.
+ */
+public class GeneradorDatosCarga {
+
+    private static final ZoneId ZONA = ZoneId.of("America/Argentina/Buenos_Aires");
+    private static final int BLOQUE = 1000;
+
+    private static final int[] PLANES = { 4, 8, 8, 8, 12, 12, 16 };
+    private static final int[] PESO_HORA = { 2, 3, 3, 2, 1, 1, 1, 2, 3, 4, 5, 5, 5, 4, 3, 2, 1, 1 }; // 09:00 a 17:30
+    private static final BigDecimal PRECIO_CLASE_BASE = new BigDecimal("9000");
+    private static final BigDecimal PRECIO_PENSION_BASE = new BigDecimal("120000");
+    private static final BigDecimal CUOTA_SOCIO_BASE = new BigDecimal("8000");
+    private static final double AUMENTO_ANUAL = 1.8;
+
+    @Autowired
+    private InstructorRepository instructorRepository;
+    @Autowired
+    private CaballoRepository caballoRepository;
+    @Autowired
+    private AlumnoRepository alumnoRepository;
+    @Autowired
+    private ClaseRepository claseRepository;
+    @Autowired
+    private PlanAbonoRepository planAbonoRepository;
+    @Autowired
+    private PlanPensionRepository planPensionRepository;
+    @Autowired
+    private AbonoRepository abonoRepository;
+    @Autowired
+    private FacturaRepository facturaRepository;
+
+    /**
+     * Padrón y clases de [hoy - diasPasados, hoy + diasFuturos] sin el día de
+     * hoy (para no interferir con PlanificadorEstadosClase) y sin abonos ni
+     * facturas, con la semilla 42. Es lo que usan los tests y los benchmarks.
+     */
+    public Resultado generar(int instructores, int caballos, int alumnos, int diasPasados, int diasFuturos,
+            int clasesPorDia) {
+        LocalDate hoy = LocalDate.now(ZONA);
+        return generar(new Parametros(instructores, caballos, alumnos, hoy.minusDays(diasPasados),
+                hoy.plusDays(diasFuturos), clasesPorDia, 42L, false, false));
+    }
+
+    public Resultado generar(Parametros parametros) {
+        Random azar = new Random(parametros.semilla());
+        LocalDate hoy = LocalDate.now(ZONA);
+
+        List<Instructor> listaInstructores = crearInstructores(parametros.instructores());
+        List<Caballo> escuela = crearCaballosEscuela(parametros.caballos());
+        List<Alumno> listaAlumnos = crearAlumnos(azar, parametros.alumnos(), parametros.desde(), hoy);
+
+        Clase[] primera = new Clase[1];
+        int clases = crearClases(azar, parametros, hoy, listaInstructores, escuela, listaAlumnos, primera);
+        int[] facturacion = { 0, 0 };
+        if (parametros.conFacturacion()) {
+            Planes planes = crearPlanes(parametros.desde().getYear(), hoy.getYear());
+            facturacion = crearAbonosYFacturas(azar, parametros.desde(), hoy, listaAlumnos, planes);
+        }
+
+        return new Resultado(listaInstructores.get(0).getId(), listaAlumnos.get(0).getId(), escuela.get(0).getId(),
+                primera[0] != null ? primera[0].getId() : null, primera[0] != null ? primera[0].getDia() : hoy,
+                listaInstructores.size(), escuela.size(), listaAlumnos.size(), clases, facturacion[0],
+                facturacion[1]);
+    }
+
+    // ── Padrón ───────────────────────────────────────────────────────────────
+
+    private List<Instructor> crearInstructores(int instructores) {
+        List<Instructor> lista = new ArrayList<>();
+        for (int i = 0; i < instructores; i++) {
+            lista.add(new Instructor(String.valueOf(20000000 + i), "Instructor", "Carga " + i,
+                    LocalDate.of(1980, 1, 1).plusDays(i * 211L), "11", "4000" + i,
+                    "instructor" + i + "@carga.hrs.local", true, String.format("#%06x", (i * 0x2a3f17) & 0xffffff)));
+        }
+        return instructorRepository.saveAll(lista);
+    }
+
+    private List<Caballo> crearCaballosEscuela(int caballos) {
+        List<Caballo> lista = new ArrayList<>();
+        for (int i = 0; i < caballos; i++) {
+            // Uno de cada diez en descanso
+            lista.add(new Caballo("Escuela " + i, i % 10 != 9, Tipo.ESCUELA));
+        }
+        return caballoRepository.saveAll(lista);
+    }
+
+    private List<Alumno> crearAlumnos(Random azar, int alumnos, LocalDate desde, LocalDate hoy) {
+        long diasHistoria = hoy.toEpochDay() - desde.toEpochDay();
+        CuotaPension[] cuotas = CuotaPension.values();
+        List<Alumno> lista = new ArrayList<>();
+        for (int i = 0; i < alumnos; i++) {
+            Caballo propio = null;
+            TipoPension pension = TipoPension.SIN_CABALLO;
+            if (i % 3 == 0) {
+                propio = caballoRepository.save(new Caballo("Propio " + i, true, Tipo.PRIVADO));
+                pension = TipoPension.CABALLO_PROPIO;
+            } else if (i % 7 == 0) {
+                pension = TipoPension.RESERVA_ESCUELA;
+            }
+            // Edades entre 4 y 60 años, concentradas en chicos y adolescentes
+            int edad = 4 + (int) Math.min(56, Math.abs(azar.nextGaussian() * 14));
+            LocalDate nacimiento = hoy.minusYears(edad).minusDays(azar.nextInt(365));
+            LocalDate inscripcion = desde.plusDays((long) (diasHistoria * Math.pow(azar.nextDouble(), 2)));
+            lista.add(new Alumno(String.valueOf(30000000 + i), "Alumno", "Carga " + i, nacimiento, "11",
+                    "5000" + i, "alumno" + i + "@carga.hrs.local", inscripcion,
+                    PLANES[azar.nextInt(PLANES.length)], i % 10 != 9, propio != null, propio, pension,
+                    propio != null ? cuotas[azar.nextInt(cuotas.length)] : null));
+        }
+        return alumnoRepository.saveAll(lista);
+    }
+
+    // ── Planes de precios ────────────────────────────────────────────────────
+
+    private Planes crearPlanes(int primerAnio, int ultimoAnio) {
+        Planes planes = new Planes();
+        List<PlanAbono> abonos = new ArrayList<>();
+        List<PlanPension> pensiones = new ArrayList<>();
+        for (int anio = primerAnio; anio <= ultimoAnio; anio++) {
+            double ajuste = Math.pow(AUMENTO_ANUAL, anio - primerAnio);
+            LocalDate vigenteDesde = LocalDate.of(anio, 1, 1);
+            LocalDate vigenteHasta = LocalDate.of(anio, 12, 31);
+            for (int cantidad : new int[] { 4, 8, 12, 16 }) {
+                for (TipoClase tipo : new TipoClase[] { TipoClase.ESCUELA_MENOR_6, TipoClase.ESCUELA_MAYOR_6 }) {
+                    PlanAbono plan = new PlanAbono();
+                    plan.setTipoClase(tipo);
+                    plan.setModalidad(ModalidadClase.SEMANA);
+                    plan.setCantidadClases(cantidad);
+                    plan.setDescripcion(cantidad + " CLASES");
+                    BigDecimal base = ajustar(PRECIO_CLASE_BASE.multiply(BigDecimal.valueOf(cantidad)), ajuste);
+                    asignarPrecios(plan, base);
+                    plan.setCuotaSocio(ajustar(CUOTA_SOCIO_BASE, ajuste));
+                    plan.setFechaVigenciaDesde(vigenteDesde);
+                    plan.setFechaVigenciaHasta(vigenteHasta);
+                    abonos.add(plan);
+                    planes.abonos.put(anio + "-" + tipo + "-" + cantidad, plan);
+                }
+                PlanPension pension = new PlanPension();
+                pension.setCantidadClases(cantidad);
+                pension.setDescripcion("PENSIÓN " + cantidad + " CLASES");
+                BigDecimal base = ajustar(PRECIO_PENSION_BASE.add(BigDecimal.valueOf(4000L * cantidad)), ajuste);
+                pension.setPrecioEfectivo1al15(base);
+                pension.setPrecioTransferencia1al15(recargo(base, "1.05"));
+                pension.setPrecioEfectivoDespues15(recargo(base, "1.10"));
+                pension.setPrecioTransferenciaDespues15(recargo(base, "1.15"));
+                pension.setFechaVigenciaDesde(vigenteDesde);
+                pension.setFechaVigenciaHasta(vigenteHasta);
+                pensiones.add(pension);
+                planes.pensiones.put(anio + "-" + cantidad, pension);
+            }
+        }
+        planAbonoRepository.saveAll(abonos);
+        planPensionRepository.saveAll(pensiones);
+        return planes;
+    }
+
+    private static void asignarPrecios(PlanAbono plan, BigDecimal base) {
+        plan.setPrecioEfectivo1al15(base);
+        plan.setPrecioTransferencia1al15(recargo(base, "1.05"));
+        plan.setPrecioEfectivoDespues15(recargo(base, "1.10"));
+        plan.setPrecioTransferenciaDespues15(recargo(base, "1.15"));
+    }
+
+    private static BigDecimal ajustar(BigDecimal precio, double ajuste) {
+        // Redondeado a centenas, como las listas de precios reales
+        return precio.multiply(BigDecimal.valueOf(ajuste)).setScale(-2, RoundingMode.HALF_UP).setScale(2);
+    }
+
+    private static BigDecimal recargo(BigDecimal precio, String factor) {
+        return precio.multiply(new BigDecimal(factor)).setScale(-2, RoundingMode.HALF_UP).setScale(2);
+    }
+
+    // ── Clases ───────────────────────────────────────────────────────────────
+
+    /**
+     * Clases día por día, guardadas de a bloques. Cada alumno activo aparece
+     * en la bolsa tantas veces como clases tiene su plan, así los planes
+     * grandes toman más clases. Deja en primera[0] la primera clase guardada.
+     */
+    private int crearClases(Random azar, Parametros parametros, LocalDate hoy, List<Instructor> listaInstructores,
+            List<Caballo> escuela, List<Alumno> listaAlumnos, Clase[] primera) {
+        Especialidad[] especialidades = Especialidad.values();
+        int pesoHoras = 0;
+        for (int peso : PESO_HORA) {
+            pesoHoras += peso;
+        }
+
+        int total = 0;
+        List<Clase> pendientes = new ArrayList<>();
+        for (LocalDate dia = parametros.desde(); !dia.isAfter(parametros.hasta()); dia = dia.plusDays(1)) {
+            if (dia.equals(hoy) && !parametros.conHoy()) {
+                continue;
+            }
+            List<Alumno> bolsa = new ArrayList<>();
+            for (Alumno alumno : listaAlumnos) {
+                boolean vigente = alumno.isActivo() || dia.isBefore(hoy.minusMonths(3));
+                if (vigente && !alumno.getFechaInscripcion().isAfter(dia)) {
+                    for (int i = 0; i < alumno.getCantidadClases(); i++) {
+                        bolsa.add(alumno);
+                    }
+                }
+            }
+            if (bolsa.isEmpty()) {
+                continue;
+            }
+
+            int cantidad = (int) Math.round(
+                    parametros.clasesPorDia() * factorDia(dia.getDayOfWeek()) * (0.8 + 0.4 * azar.nextDouble()));
+            for (int i = 0; i < cantidad; i++) {
+                Alumno alumno = bolsa.get(azar.nextInt(bolsa.size()));
+                Caballo caballo = alumno.getCaballoPropio() != null ? alumno.getCaballoPropio()
+                        : escuela.get(azar.nextInt(escuela.size()));
+                LocalTime hora = horaAlAzar(azar, pesoHoras);
+                pendientes.add(new Clase(listaInstructores.get(azar.nextInt(listaInstructores.size())), alumno, caballo,
+                        especialidades[azar.nextInt(especialidades.length)], dia, hora,
+                        hora.isBefore(LocalTime.of(17, 30)) ? 60 : 30, estadoAlAzar(azar, dia, hoy), false));
+            }
+            if (pendientes.size() >= BLOQUE) {
+                total += guardar(pendientes, primera);
+            }
+        }
+        return total + guardar(pendientes, primera);
+    }
+
+    private int guardar(List<Clase> pendientes, Clase[] primera) {
+        List<Clase> guardadas = claseRepository.saveAll(pendientes);
+        if (primera[0] == null && !guardadas.isEmpty()) {
+            primera[0] = guardadas.get(0);
+        }
+        pendientes.clear();
+        return guardadas.size();
+    }
+
+    private static double factorDia(DayOfWeek dia) {
+        return switch (dia) {
+            case MONDAY -> 0.6;
+            case SATURDAY -> 1.5;
+            case SUNDAY -> 0.4;
+            default -> 1.0;
+        };
+    }
+
+    private static LocalTime horaAlAzar(Random azar, int pesoTotal) {
+        int valor = azar.nextInt(pesoTotal);
+        int franja = 0;
+        while (valor >= PESO_HORA[franja]) {
+            valor -= PESO_HORA[franja++];
+        }
+        return LocalTime.of(9, 0).plusMinutes(30L * franja);
+    }
+
+    private static Estado estadoAlAzar(Random azar, LocalDate dia, LocalDate hoy) {
+        if (!dia.isBefore(hoy)) {
+            return Estado.PROGRAMADA;
+        }
+        int valor = azar.nextInt(100);
+        if (valor < 82) {
+            return Estado.COMPLETADA;
+        }
+        if (valor < 90) {
+            return Estado.CANCELADA;
+        }
+        return valor < 96 ? Estado.ACA : Estado.ASA;
+    }
+
+    // ── Abonos, facturas y pagos ─────────────────────────────────────────────
+
+    /**
+     * Un abono por alumno y mes desde su inscripción, con su factura
+     * (ítems y pagos se guardan en cascada). Los números de factura siguen
+     * el formato FC-AAAA-NNNNN en orden de emisión.
+     *
+     * @return {abonos, pagos}
+     */
+    private int[] crearAbonosYFacturas(Random azar, LocalDate desde, LocalDate hoy, List<Alumno> listaAlumnos,
+            Planes planes) {
+        YearMonth actual = YearMonth.from(hoy);
+        Map<Integer, Integer> numeroPorAnio = new HashMap<>();
+        int abonos = 0;
+        int pagos = 0;
+
+        for (YearMonth mes = YearMonth.from(desde); !mes.isAfter(actual); mes = mes.plusMonths(1)) {
+            boolean enCurso = mes.equals(actual);
+            List<Abono> abonosMes = new ArrayList<>();
+            for (Alumno alumno : listaAlumnos) {
+                if (YearMonth.from(alumno.getFechaInscripcion()).isAfter(mes)
+                        || (!alumno.isActivo() && mes.isAfter(actual.minusMonths(3)))) {
+                    continue;
+                }
+                int diaContratacion = 1 + (int) Math.min(27, Math.abs(azar.nextGaussian() * 8));
+                LocalDate contratacion = mes.atDay(diaContratacion);
+                if (contratacion.isAfter(hoy)) {
+                    contratacion = hoy;
+                }
+                abonosMes.add(crearAbono(azar, alumno, contratacion, mes, enCurso, planes));
+            }
+            abonosMes = abonoRepository.saveAll(abonosMes);
+
+            List<Factura> facturas = new ArrayList<>();
+            for (Abono abono : abonosMes) {
+                int anio = abono.getFechaContratacion().getYear();
+                int numero = numeroPorAnio.merge(anio, 1, Integer::sum);
+                Factura factura = crearFactura(azar, abono, String.format("FC-%d-%05d", anio, numero), hoy);
+                pagos += factura.getPagos().size();
+                facturas.add(factura);
+            }
+            for (int i = 0; i < facturas.size(); i += BLOQUE) {
+                facturaRepository.saveAll(facturas.subList(i, Math.min(i + BLOQUE, facturas.size())));
+            }
+            abonos += abonosMes.size();
+        }
+        return new int[] { abonos, pagos };
+    }
+
+    private Abono crearAbono(Random azar, Alumno alumno, LocalDate contratacion, YearMonth mes, boolean enCurso,
+            Planes planes) {
+        int anio = contratacion.getYear();
+        int cantidad = alumno.getCantidadClases();
+        boolean menor = alumno.getFechaNacimiento().plusYears(6).isAfter(contratacion);
+        TipoClase tipo = menor ? TipoClase.ESCUELA_MENOR_6 : TipoClase.ESCUELA_MAYOR_6;
+        PlanAbono plan = planes.abonos.get(anio + "-" + tipo + "-" + cantidad);
+        PlanPension pension = alumno.getTipoPension() == TipoPension.CABALLO_PROPIO
+                ? planes.pensiones.get(anio + "-" + cantidad)
+                : null;
+        boolean antesDel15 = contratacion.getDayOfMonth() <= 15;
+        boolean socio = azar.nextInt(10) < 3;
+
+        Abono abono = new Abono(alumno, plan, pension, alumno.getCaballoPropio(), contratacion, mes.atEndOfMonth(),
+                cantidad, antesDel15 ? plan.getPrecioEfectivo1al15() : plan.getPrecioEfectivoDespues15(),
+                pension == null ? null
+                        : antesDel15 ? pension.getPrecioEfectivo1al15() : pension.getPrecioEfectivoDespues15(),
+                socio ? plan.getCuotaSocio() : null);
+
+        if (enCurso) {
+            abono.setClasesRestantes(1 + azar.nextInt(cantidad));
+        } else if (azar.nextInt(10) < 7) {
+            abono.setClasesRestantes(0);
+            abono.setEstado(EstadoAbono.FINALIZADO);
+        } else {
+            abono.setClasesRestantes(1 + azar.nextInt(Math.min(3, cantidad)));
+            abono.setEstado(EstadoAbono.VENCIDO);
+        }
+        return abono;
+    }
+
+    private Factura crearFactura(Random azar, Abono abono, String numero, LocalDate hoy) {
+        Factura factura = new Factura();
+        factura.setNumeroFactura(numero);
+        factura.setAlumno(abono.getAlumno());
+        factura.setAbono(abono);
+        factura.setFechaEmision(abono.getFechaContratacion());
+        factura.setFechaVencimiento(abono.getFechaContratacion().plusDays(10));
+        factura.setFechaCreacion(abono.getFechaContratacion().atTime(9, 0).plusMinutes(azar.nextInt(600)));
+
+        factura.agregarItem(new ItemFactura(TipoItem.ABONO_CLASES, abono.getPlanAbono().getDescripcion(), 1,
+                abono.getPrecioContratadoClases()));
+        if (abono.getPrecioContratadoPension() != null) {
+            factura.agregarItem(new ItemFactura(TipoItem.PENSION, abono.getPlanPension().getDescripcion(), 1,
+                    abono.getPrecioContratadoPension()));
+        }
+        if (abono.getCuotaSocioContratada() != null) {
+            factura.agregarItem(new ItemFactura(TipoItem.CUOTA_SOCIO, "CUOTA SOCIO", 1,
+                    abono.getCuotaSocioContratada()));
+        }
+        factura.recalcularSubtotal();
+
+        boolean enCurso = !factura.getFechaVencimiento().isBefore(hoy);
+        int valor = azar.nextInt(100);
+        if (valor < (enCurso ? 60 : 92)) {
+            // Pagada: una de cada diez en dos pagos
+            FormaPago forma = formaPagoAlAzar(azar);
+            LocalDate fechaPago = minimo(factura.getFechaEmision().plusDays(azar.nextInt(8)), hoy);
+            if (azar.nextInt(10) == 0) {
+                BigDecimal primero = factura.getTotal().divide(BigDecimal.valueOf(2), 2, RoundingMode.HALF_UP);
+                agregarPago(factura, fechaPago, primero, forma);
+                agregarPago(factura, minimo(fechaPago.plusDays(7), hoy), factura.getTotal().subtract(primero), forma);
+            } else {
+                agregarPago(factura, fechaPago, factura.getTotal(), forma);
+            }
+            factura.setFormaPago(forma);
+            factura.setFechaPago(factura.getPagos().get(factura.getPagos().size() - 1).getFechaPago());
+            factura.setSaldoPendiente(BigDecimal.ZERO);
+            factura.setEstado(EstadoFactura.PAGADA);
+        } else if (valor < (enCurso ? 80 : 95)) {
+            BigDecimal parcial = factura.getTotal().divide(BigDecimal.valueOf(2), 2, RoundingMode.HALF_UP);
+            FormaPago forma = formaPagoAlAzar(azar);
+            agregarPago(factura, minimo(factura.getFechaEmision().plusDays(azar.nextInt(8)), hoy), parcial, forma);
+            factura.setFormaPago(forma);
+            factura.setSaldoPendiente(factura.getTotal().subtract(parcial));
+            factura.setEstado(enCurso ? EstadoFactura.PARCIALMENTE_PAGADA : EstadoFactura.VENCIDA);
+        } else if (valor < 97 || enCurso) {
+            factura.setEstado(enCurso ? EstadoFactura.PENDIENTE : EstadoFactura.VENCIDA);
+        } else {
+            factura.setEstado(EstadoFactura.CANCELADA);
+            factura.setObservaciones("Baja del abono");
+        }
+        return factura;
+    }
+
+    private void agregarPago(Factura factura, LocalDate fecha, BigDecimal monto, FormaPago forma) {
+        Pago pago = new Pago(factura, factura.getAlumno(), fecha, monto, forma,
+                forma == FormaPago.EFECTIVO ? null
+                        : "OP-" + factura.getNumeroFactura() + "-" + factura.getPagos().size());
+        pago.setFechaRegistro(fecha.atTime(18, 0));
+        pago.setRegistradoPor("carga");
+        factura.getPagos().add(pago);
+    }
+
+    private static FormaPago formaPagoAlAzar(Random azar) {
+        int valor = azar.nextInt(100);
+        if (valor < 45) {
+            return FormaPago.EFECTIVO;
+        }
+        if (valor < 80) {
+            return FormaPago.TRANSFERENCIA;
+        }
+        return valor < 92 ? FormaPago.MERCADO_PAGO : FormaPago.TARJETA_DEBITO;
+    }
+
+    private static LocalDate minimo(LocalDate a, LocalDate b) {
+        return a.isAfter(b) ? b : a;
+    }
+
+    // ── Estructuras internas ─────────────────────────────────────────────────
+
+    /**
+     * Qué generar. Las clases van de desde a hasta (inclusive); conHoy = false
+     * deja vacío el día de hoy. Los alumnos se inscriben a partir de desde.
+     */
+    public record Parametros(int instructores, int caballos, int alumnos, LocalDate desde, LocalDate hasta,
+            int clasesPorDia, long semilla, boolean conHoy, boolean conFacturacion) {
+    }
+
+    /**
+     * Cantidades generadas e IDs de ejemplo para completar rutas de endpoints.
+     */
+    public record Resultado(Long instructorId, Long alumnoId, Long caballoId, Long claseId, LocalDate dia,
+            int instructores, int caballos, int alumnos, int clases, int abonos, int pagos) {
+    }
+
+    /**
+     * Planes generados por año ("2025-ESCUELA_MAYOR_6-8" y "2025-8").
+     */
+    private static class Planes {
+        private final Map<String, PlanAbono> abonos = new HashMap<>();
+        private final Map<String, PlanPension> pensiones = new HashMap<>();
+    }
+}
@@ -0,0 +1,20 @@
+package com.escueladeequitacion.hrs.config;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marca un método de servicio para que MetricasAspect registre su duración en
+ * el timer "hrs.operacion", con la operación, el resultado y la excepción.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Medido {
+
+    /**
+     * Nombre de la operación (tag "operacion"), por ej. "clases.crear".
+     */
+    String value();
+}
@@ -0,0 +1,70 @@
+package com.escueladeequitacion.hrs.config;
+
+import com.escueladeequitacion.hrs.exception.BusinessException;
+import com.escueladeequitacion.hrs.exception.ConflictException;
+import com.escueladeequitacion.hrs.exception.ResourceNotFoundException;
+import com.escueladeequitacion.hrs.exception.UnauthorizedException;
+import com.escueladeequitacion.hrs.exception.ValidationException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.springframework.stereotype.Component;
+
+/**
+ * Mide los métodos anotados con @Medido. Cada llamada suma al timer
+ * "hrs.operacion" (expuesto en /actuator/prometheus como
+ * hrs_operacion_seconds, con histograma para p50/p99) con los tags:
+ *
+ * - operacion: el valor de @Medido.
+ * - resultado: ok, rechazada (excepciones de negocio: validación, conflicto,
+ * recurso inexistente) o error (cualquier otra).
+ * - excepcion: nombre simple de la excepción, o "none".
+ *
+ * Los @Scheduled ya los mide Spring en tasks_scheduled_execution_seconds.
+ * Las transiciones de PlanificadorEstadosClase corren en un hilo propio, no
+ * en un @Scheduled: las registra el planificador en este mismo timer.
+ */
+@Aspect
+@Component
+public class MetricasAspect {
+
+    private final MeterRegistry registry;
+
+    public MetricasAspect(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Around("@annotation(medido)")
+    public Object medir(ProceedingJoinPoint joinPoint, Medido medido) throws Throwable {
+        Timer.Sample muestra = Timer.start(registry);
+        String resultado = "ok";
+        String excepcion = "none";
+        try {
+            return joinPoint.proceed();
+        } catch (Throwable t) {
+            resultado = esRechazo(t) ? "rechazada" : "error";
+            excepcion = t.getClass().getSimpleName();
+            throw t;
+        } finally {
+            muestra.stop(Timer.builder("hrs.operacion")
+                    .description("Duración de las operaciones de servicio")
+                    .tag("operacion", medido.value())
+                    .tag("resultado", resultado)
+                    .tag("excepcion", excepcion)
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+    }
+
+    private static boolean esRechazo(Throwable t) {
+        return t instanceof BusinessException
+                || t instanceof ValidationException
+                || t instanceof ConflictException
+                || t instanceof ResourceNotFoundException
+                || t instanceof UnauthorizedException;
+    }
+}
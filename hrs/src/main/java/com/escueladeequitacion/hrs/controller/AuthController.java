@@ -1,10 +1,13 @@
 package com.escueladeequitacion.hrs.controller;
 
+import com.escueladeequitacion.hrs.dto.TokenDto;
 import com.escueladeequitacion.hrs.exception.ConflictException;
 import com.escueladeequitacion.hrs.exception.ResourceNotFoundException;
 import com.escueladeequitacion.hrs.exception.UnauthorizedException;
+import com.escueladeequitacion.hrs.security.IdentidadUsuarioCache;
 import com.escueladeequitacion.hrs.security.RolSeguridad;
 import com.escueladeequitacion.hrs.security.StorageService;
+import com.escueladeequitacion.hrs.security.TokenService;
 import com.escueladeequitacion.hrs.security.User;
 import com.escueladeequitacion.hrs.security.UserRepository;
 import com.escueladeequitacion.hrs.security.WhitelistService;
@@ -46,6 +49,12 @@ public class AuthController {
     @Autowired
     private PasswordEncoder passwordEncoder;
 
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private IdentidadUsuarioCache identidadUsuarioCache;
+
     @Value("${app.whitelist.emails:claumarnavarro@gmail.com,luckidetrenque@gmail.com,santiagomatheu@gmail.com}")
     private String whitelistEmails;
 
@@ -161,9 +170,27 @@ public class AuthController {
         }
     }
 
+    /**
+     * DTO para renovar el token de acceso.
+     */
+    public static class RefreshRequest {
+        @NotBlank(message = "El token de refresco no puede estar vacío")
+        private String tokenRefresco;
+
+        public String getTokenRefresco() {
+            return tokenRefresco;
+        }
+
+        public void setTokenRefresco(String tokenRefresco) {
+            this.tokenRefresco = tokenRefresco;
+        }
+    }
+
     /**
      * POST /api/v1/auth/login
-     * Endpoint de login que retorna los datos del usuario autenticado.
+     * Endpoint de login (Basic Auth): retorna los datos del usuario
+     * autenticado y los tokens de acceso y de refresco para los próximos
+     * requests.
      */
     @PostMapping("/login")
     public ResponseEntity<?> login(java.security.Principal principal) {
@@ -175,7 +202,32 @@ public class AuthController {
         User user = userRepository.findByUsername(principal.getName())
                 .orElseThrow(() -> new ResourceNotFoundException("Usuario", "username", principal.getName()));
 
-        return ResponseEntity.ok(user);
+        return ResponseEntity.ok(emitirTokens(user));
+    }
+
+    /**
+     * POST /api/v1/auth/refresh
+     * Canjea un token de refresco vigente por un par de tokens nuevo, si el
+     * usuario sigue existiendo y activo.
+     */
+    @PostMapping("/refresh")
+    public ResponseEntity<?> refresh(@Valid @RequestBody RefreshRequest request) {
+        TokenService.TokenValido token = tokenService.validar(request.getTokenRefresco(),
+                TokenService.TIPO_REFRESCO);
+        if (token == null) {
+            throw new UnauthorizedException("Token de refresco inválido o vencido");
+        }
+
+        User user = userRepository.findById(token.userId())
+                .filter(u -> u.getActivo() && u.getUsername().equals(token.username()))
+                .orElseThrow(() -> new UnauthorizedException("Token de refresco inválido o vencido"));
+
+        return ResponseEntity.ok(emitirTokens(user));
+    }
+
+    private TokenDto emitirTokens(User user) {
+        return new TokenDto(tokenService.emitirAcceso(user), tokenService.emitirRefresco(user),
+                tokenService.getAccesoSegundos(), user);
     }
 
     /**
@@ -218,11 +270,16 @@ public class AuthController {
 
     /**
      * POST /api/v1/auth/logout
-     * Endpoint de logout (en Basic Auth no hay sesión real).
+     * Endpoint de logout (los tokens no tienen sesión en el servidor).
+     *
+     * No invalida nada: el token de refresco no se guarda en el servidor, así
+     * que sigue sirviendo en /refresh hasta que vence (app.token.refresco-dias)
+     * aunque el frontend lo descarte. Para cortar el acceso de un usuario hay
+     * que desactivarlo.
      */
     @PostMapping("/logout")
     public ResponseEntity<?> logout() {
-        // No hay sesión que cerrar en el servidor (Basic Auth),
+        // No hay sesión que cerrar en el servidor: el frontend descarta los tokens,
         // pero respondemos 200 OK para que el frontend confirme la acción.
         return ResponseEntity.ok().build();
     }
@@ -265,11 +322,11 @@ public class AuthController {
     @DeleteMapping("/users/{id}")
     public ResponseEntity<?> eliminarUsuario(@PathVariable("id") Long id) {
         // Validar que existe antes de eliminar
-        if (!userRepository.existsById(id)) {
-            throw new ResourceNotFoundException("Usuario", "ID", id);
-        }
+        User user = userRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Usuario", "ID", id));
 
         userRepository.deleteById(id);
+        identidadUsuarioCache.invalidar(user.getUsername());
         return ResponseEntity.ok(new Mensaje("Usuario eliminado correctamente"));
     }
 
@@ -300,6 +357,7 @@ public class AuthController {
         }
 
         // 4. Actualizar campos
+        identidadUsuarioCache.invalidar(user.getUsername());
         user.setUsername(request.getUsername());
         user.setEmail(request.getEmail());
         // user.setPassword(passwordEncoder.encode(request.getPassword()));
@@ -307,6 +365,7 @@ public class AuthController {
         user.setPersonaDni(request.getPersonaDni());
 
         userRepository.save(user);
+        identidadUsuarioCache.invalidar(user.getUsername());
 
         return ResponseEntity.status(HttpStatus.OK)
                 .body(new Mensaje("Usuario actualizado correctamente: " + user.getUsername()));
@@ -342,6 +401,7 @@ public class AuthController {
         }
 
         userRepository.save(user);
+        identidadUsuarioCache.invalidar(user.getUsername());
         return ResponseEntity
                 .ok(new Mensaje("Roles o estado actualizados correctamente para el usuario " + user.getUsername()));
     }
@@ -2,18 +2,28 @@ package com.escueladeequitacion.hrs.controller;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import com.escueladeequitacion.hrs.dto.CalendarioDto;
+import com.escueladeequitacion.hrs.dto.ClaseResponseDto;
+import com.escueladeequitacion.hrs.dto.DisponibilidadDto;
+import com.escueladeequitacion.hrs.enums.Especialidad;
 import com.escueladeequitacion.hrs.service.CalendarioService;
 import com.escueladeequitacion.hrs.utility.Mensaje;
 
 import jakarta.validation.Valid;
 
+import java.time.LocalDate;
+import java.util.List;
+
 @RestController
 @RequestMapping("/api/v1/calendario")
 
@@ -32,6 +42,38 @@ public class CalendarioController {
                                                 + request.getDiaInicioDestino()));
         }
 
+        /**
+         * GET /api/v1/calendario?desde=2026-03-01&hasta=2026-03-31
+         * Clases del rango, incluidas las ocurrencias de clases recurrentes.
+         * Las ocurrencias sin fila propia vienen con id null y claseRecurrenteId;
+         * para modificarlas se materializan con
+         * POST /api/v1/clases-recurrentes/{id}/ocurrencias/{fecha}.
+         */
+        @PreAuthorize("hasAnyRole('ADMIN', 'INSTRUCTOR')")
+        @GetMapping
+        public ResponseEntity<List<ClaseResponseDto>> obtenerCalendario(
+                        @RequestParam("desde") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                        @RequestParam("hasta") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+                return ResponseEntity.ok(calendarioService.obtenerCalendario(desde, hasta));
+        }
+
+        /**
+         * GET /api/v1/calendario/disponibilidad?desde=2026-03-02&hasta=2026-03-08&duracion=60
+         * Horarios con caballo e instructor libres (máximo 31 días). Cada franja
+         * lista los caballos disponibles y los instructores activos libres
+         * durante toda la duración.
+         */
+        @PreAuthorize("hasAnyRole('ADMIN', 'INSTRUCTOR')")
+        @GetMapping("/disponibilidad")
+        public ResponseEntity<DisponibilidadDto> obtenerDisponibilidad(
+                        @RequestParam("desde") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+                        @RequestParam("hasta") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+                        @RequestParam(value = "especialidad", required = false) Especialidad especialidad,
+                        @RequestParam(value = "duracion", defaultValue = "30") Integer duracion) {
+                return ResponseEntity.ok(
+                                calendarioService.obtenerDisponibilidad(desde, hasta, especialidad, duracion));
+        }
+
         @DeleteMapping("/eliminar-clases")
         public ResponseEntity<Mensaje> eliminarPeriodo(@Valid @RequestBody CalendarioDto request) {
                 calendarioService.eliminarClases(
@@ -2,9 +2,12 @@ package com.escueladeequitacion.hrs.controller;
 
 import com.escueladeequitacion.hrs.dto.ClaseDto;
 import com.escueladeequitacion.hrs.dto.ClaseDto.AlActualizar;
+import com.escueladeequitacion.hrs.dto.ClaseCursorPaginaDto;
+import com.escueladeequitacion.hrs.dto.ClaseLoteResultadoDto;
 import com.escueladeequitacion.hrs.dto.ClaseResponseDto;
 import com.escueladeequitacion.hrs.enums.Especialidad;
 import com.escueladeequitacion.hrs.enums.Estado;
+import com.escueladeequitacion.hrs.exception.ValidationException;
 import com.escueladeequitacion.hrs.model.Clase;
 import com.escueladeequitacion.hrs.security.ClaseSecurityService;
 import com.escueladeequitacion.hrs.service.AlumnoService;
@@ -19,13 +22,17 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.util.LinkedHashMap;
 import java.util.List;
@@ -81,6 +88,34 @@ public class ClaseController {
         return ResponseEntity.ok(clases);
     }
 
+    /**
+     * GET /api/v1/clases/cursor?cursor=...&size=20
+     * Igual que GET /api/v1/clases pero paginado por cursor (dia, hora, id) en
+     * lugar de offset: no hace COUNT y las páginas profundas cuestan lo mismo
+     * que la primera. Pensado para scroll infinito en el calendario.
+     * Se pasa el siguienteCursor de la respuesta para pedir la página siguiente.
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'INSTRUCTOR', 'ALUMNO')")
+    @GetMapping("/cursor")
+    public ResponseEntity<ClaseCursorPaginaDto> listarClasesPorCursor(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "20") int size,
+            @RequestParam(name = "estado", required = false) Estado estado,
+            @RequestParam(name = "especialidad", required = false) Especialidad especialidad,
+            @RequestParam(name = "alumnoId", required = false) Long alumnoId,
+            Authentication authentication) {
+
+        // Si es INSTRUCTOR, filtrar automáticamente por su ID
+        Long instructorId = null;
+        if (authentication != null && authentication.getAuthorities().stream()
+                .noneMatch(a -> a.getAuthority().equals("ROLE_ADMIN"))) {
+            instructorId = claseSecurityService.getInstructorId(authentication);
+        }
+
+        return ResponseEntity.ok(claseService.listarClasesPorCursor(
+                cursor, size, estado, especialidad, instructorId, alumnoId));
+    }
+
     /**
      * GET /api/v1/clases/{id}
      * ADMIN e INSTRUCTOR pueden ver cualquier clase.
@@ -135,6 +170,19 @@ public class ClaseController {
                 .body(new Mensaje("Clase creada correctamente con ID: " + clase.getId()));
     }
 
+    /**
+     * POST /api/v1/clases/batch
+     * Solo ADMIN. Crea muchas clases (ej. una semana completa) en una sola
+     * transacción y devuelve el resultado de cada ítem.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping("/batch")
+    public ResponseEntity<ClaseLoteResultadoDto> crearClasesEnLote(@RequestBody List<ClaseDto> clasesDto) {
+        ClaseLoteResultadoDto resultado = claseService.crearClasesEnLote(clasesDto);
+        HttpStatus status = resultado.getCreadas() > 0 ? HttpStatus.CREATED : HttpStatus.BAD_REQUEST;
+        return ResponseEntity.status(status).body(resultado);
+    }
+
     /**
      * PUT /api/v1/clases/{id}
      * ADMIN puede editar cualquier clase.
@@ -194,6 +242,29 @@ public class ClaseController {
         return ResponseEntity.status(HttpStatus.OK).body(clases);
     }
 
+    /**
+     * GET /api/v1/clases/exportar?formato=ndjson|csv
+     * Solo ADMIN. Exporta todo el historial de clases escribiendo directo en la
+     * respuesta, sin armar la lista completa en memoria.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportarClases(
+            @RequestParam(name = "formato", defaultValue = "ndjson") String formato) {
+        boolean csv = "csv".equalsIgnoreCase(formato);
+        if (!csv && !"ndjson".equalsIgnoreCase(formato)) {
+            throw new ValidationException("formato", "Debe ser 'ndjson' o 'csv'");
+        }
+
+        StreamingResponseBody cuerpo = salida -> claseService.exportarClases(formato, salida);
+        return ResponseEntity.ok()
+                .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8)
+                        : MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"clases." + (csv ? "csv" : "ndjson") + "\"")
+                .body(cuerpo);
+    }
+
     /**
      * GET /api/v1/clases/{id}/detalles
      * ADMIN e INSTRUCTOR (solo si es su clase).
@@ -0,0 +1,80 @@
+package com.escueladeequitacion.hrs.controller;
+
+import com.escueladeequitacion.hrs.dto.ClaseRecurrenteDto;
+import com.escueladeequitacion.hrs.dto.ClaseResponseDto;
+import com.escueladeequitacion.hrs.service.ClaseRecurrenteService;
+
+import jakarta.validation.Valid;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/v1/clases-recurrentes")
+public class ClaseRecurrenteController {
+
+    @Autowired
+    ClaseRecurrenteService claseRecurrenteService;
+
+    /**
+     * GET /api/v1/clases-recurrentes
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'INSTRUCTOR')")
+    @GetMapping
+    public ResponseEntity<List<ClaseRecurrenteDto>> listarClasesRecurrentes() {
+        return ResponseEntity.ok(claseRecurrenteService.listarClasesRecurrentes());
+    }
+
+    /**
+     * GET /api/v1/clases-recurrentes/{id}
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'INSTRUCTOR')")
+    @GetMapping("/{id}")
+    public ResponseEntity<ClaseRecurrenteDto> obtenerClaseRecurrente(@PathVariable("id") Long id) {
+        return ResponseEntity.ok(claseRecurrenteService.buscarClaseRecurrentePorId(id));
+    }
+
+    /**
+     * POST /api/v1/clases-recurrentes
+     * Crea una plantilla semanal. Sus ocurrencias aparecen en
+     * GET /api/v1/calendario sin crear filas en la tabla clases.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @PostMapping
+    public ResponseEntity<ClaseRecurrenteDto> crearClaseRecurrente(@Valid @RequestBody ClaseRecurrenteDto dto) {
+        return ResponseEntity.status(HttpStatus.CREATED).body(claseRecurrenteService.crearClaseRecurrente(dto));
+    }
+
+    /**
+     * DELETE /api/v1/clases-recurrentes/{id}?hasta=2026-06-30
+     * Termina la vigencia de la plantilla en la fecha indicada (por defecto hoy).
+     * No borra las ocurrencias ya materializadas.
+     */
+    @PreAuthorize("hasRole('ADMIN')")
+    @DeleteMapping("/{id}")
+    public ResponseEntity<ClaseRecurrenteDto> finalizarClaseRecurrente(
+            @PathVariable("id") Long id,
+            @RequestParam(name = "hasta", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta) {
+        return ResponseEntity.ok(claseRecurrenteService.finalizarClaseRecurrente(id, hasta));
+    }
+
+    /**
+     * POST /api/v1/clases-recurrentes/{id}/ocurrencias/{fecha}
+     * Crea la fila de la ocurrencia (si no existe) y la devuelve con su id, para
+     * modificarla, completarla o cancelarla con los endpoints de /api/v1/clases.
+     */
+    @PreAuthorize("hasAnyRole('ADMIN', 'INSTRUCTOR')")
+    @PostMapping("/{id}/ocurrencias/{fecha}")
+    public ResponseEntity<ClaseResponseDto> materializarOcurrencia(
+            @PathVariable("id") Long id,
+            @PathVariable("fecha") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fecha) {
+        return ResponseEntity.ok(claseRecurrenteService.materializarOcurrencia(id, fecha));
+    }
+}
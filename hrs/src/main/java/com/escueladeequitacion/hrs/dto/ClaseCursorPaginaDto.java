@@ -0,0 +1,56 @@
+package com.escueladeequitacion.hrs.dto;
+
+import java.util.List;
+
+// DTO para el listado de clases paginado por cursor (GET /api/v1/clases/cursor)
+public class ClaseCursorPaginaDto {
+
+    private List<ClaseResponseDto> contenido;
+    private int tamanio;
+    private boolean hayMas;
+    private String siguienteCursor; // null si no hay más páginas
+
+    public ClaseCursorPaginaDto() {
+    }
+
+    public ClaseCursorPaginaDto(List<ClaseResponseDto> contenido, int tamanio, boolean hayMas,
+            String siguienteCursor) {
+        this.contenido = contenido;
+        this.tamanio = tamanio;
+        this.hayMas = hayMas;
+        this.siguienteCursor = siguienteCursor;
+    }
+
+    // ── Getters & Setters ─────────────────────────────────────
+    public List<ClaseResponseDto> getContenido() {
+        return contenido;
+    }
+
+    public void setContenido(List<ClaseResponseDto> v) {
+        this.contenido = v;
+    }
+
+    public int getTamanio() {
+        return tamanio;
+    }
+
+    public void setTamanio(int v) {
+        this.tamanio = v;
+    }
+
+    public boolean isHayMas() {
+        return hayMas;
+    }
+
+    public void setHayMas(boolean v) {
+        this.hayMas = v;
+    }
+
+    public String getSiguienteCursor() {
+        return siguienteCursor;
+    }
+
+    public void setSiguienteCursor(String v) {
+        this.siguienteCursor = v;
+    }
+}
@@ -0,0 +1,101 @@
+package com.escueladeequitacion.hrs.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// DTO con el resultado de una creación masiva de clases (POST /api/v1/clases/batch)
+public class ClaseLoteResultadoDto {
+
+    private int total;
+    private int creadas;
+    private int rechazadas;
+    private List<ItemResultadoDto> items = new ArrayList<>();
+
+    public ClaseLoteResultadoDto() {
+    }
+
+    public void agregarCreada(int indice, Long claseId) {
+        items.add(new ItemResultadoDto(indice, claseId, null));
+        creadas++;
+        total++;
+    }
+
+    public void agregarRechazada(int indice, String error) {
+        items.add(new ItemResultadoDto(indice, null, error));
+        rechazadas++;
+        total++;
+    }
+
+    // ── Getters & Setters ─────────────────────────────────────
+    public int getTotal() {
+        return total;
+    }
+
+    public void setTotal(int v) {
+        this.total = v;
+    }
+
+    public int getCreadas() {
+        return creadas;
+    }
+
+    public void setCreadas(int v) {
+        this.creadas = v;
+    }
+
+    public int getRechazadas() {
+        return rechazadas;
+    }
+
+    public void setRechazadas(int v) {
+        this.rechazadas = v;
+    }
+
+    public List<ItemResultadoDto> getItems() {
+        return items;
+    }
+
+    public void setItems(List<ItemResultadoDto> v) {
+        this.items = v;
+    }
+
+    // ── Clases internas ───────────────────────────────────────
+    public static class ItemResultadoDto {
+        private int indice; // Posición en la lista enviada
+        private Long claseId; // null si fue rechazada
+        private String error; // null si fue creada
+
+        public ItemResultadoDto() {
+        }
+
+        public ItemResultadoDto(int indice, Long claseId, String error) {
+            this.indice = indice;
+            this.claseId = claseId;
+            this.error = error;
+        }
+
+        public int getIndice() {
+            return indice;
+        }
+
+        public Long getClaseId() {
+            return claseId;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        public void setIndice(int v) {
+            this.indice = v;
+        }
+
+        public void setClaseId(Long v) {
+            this.claseId = v;
+        }
+
+        public void setError(String v) {
+            this.error = v;
+        }
+    }
+}
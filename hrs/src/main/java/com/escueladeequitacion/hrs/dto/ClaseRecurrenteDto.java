@@ -0,0 +1,131 @@
+package com.escueladeequitacion.hrs.dto;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import com.escueladeequitacion.hrs.enums.Especialidad;
+import com.escueladeequitacion.hrs.model.ClaseRecurrente;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+
+// DTO para crear y devolver plantillas de clases recurrentes
+public class ClaseRecurrenteDto {
+
+    private Long id; // Solo en respuestas
+    @NotNull(message = "El día de la semana no puede estar vacío")
+    private DayOfWeek diaSemana;
+    @NotNull(message = "La hora no puede estar vacía")
+    private LocalTime hora;
+    @NotNull(message = "La duración no puede estar vacía")
+    @Min(value = 30, message = "La duración mínima es 30 minutos")
+    private Integer duracion = 30;
+    @NotNull(message = "La especialidad no puede estar vacía")
+    private Especialidad especialidad;
+    @NotNull(message = "El instructorId no puede estar vacío")
+    private Long instructorId;
+    private Long alumnoId;
+    @NotNull(message = "El caballoId no puede estar vacío")
+    private Long caballoId;
+    @NotNull(message = "La fecha de inicio de vigencia no puede estar vacía")
+    private LocalDate vigenteDesde;
+    private LocalDate vigenteHasta; // null = sin fecha de fin
+
+    public ClaseRecurrenteDto() {
+    }
+
+    public ClaseRecurrenteDto(ClaseRecurrente plantilla) {
+        this.id = plantilla.getId();
+        this.diaSemana = plantilla.getDiaSemana();
+        this.hora = plantilla.getHora();
+        this.duracion = plantilla.getDuracion();
+        this.especialidad = plantilla.getEspecialidad();
+        this.instructorId = plantilla.getInstructor().getId();
+        this.alumnoId = plantilla.getAlumno() != null ? plantilla.getAlumno().getId() : null;
+        this.caballoId = plantilla.getCaballo().getId();
+        this.vigenteDesde = plantilla.getVigenteDesde();
+        this.vigenteHasta = plantilla.getVigenteHasta();
+    }
+
+    // ── Getters & Setters ─────────────────────────────────────
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public DayOfWeek getDiaSemana() {
+        return diaSemana;
+    }
+
+    public void setDiaSemana(DayOfWeek diaSemana) {
+        this.diaSemana = diaSemana;
+    }
+
+    public LocalTime getHora() {
+        return hora;
+    }
+
+    public void setHora(LocalTime hora) {
+        this.hora = hora;
+    }
+
+    public Integer getDuracion() {
+        return duracion;
+    }
+
+    public void setDuracion(Integer duracion) {
+        this.duracion = duracion;
+    }
+
+    public Especialidad getEspecialidad() {
+        return especialidad;
+    }
+
+    public void setEspecialidad(Especialidad especialidad) {
+        this.especialidad = especialidad;
+    }
+
+    public Long getInstructorId() {
+        return instructorId;
+    }
+
+    public void setInstructorId(Long instructorId) {
+        this.instructorId = instructorId;
+    }
+
+    public Long getAlumnoId() {
+        return alumnoId;
+    }
+
+    public void setAlumnoId(Long alumnoId) {
+        this.alumnoId = alumnoId;
+    }
+
+    public Long getCaballoId() {
+        return caballoId;
+    }
+
+    public void setCaballoId(Long caballoId) {
+        this.caballoId = caballoId;
+    }
+
+    public LocalDate getVigenteDesde() {
+        return vigenteDesde;
+    }
+
+    public void setVigenteDesde(LocalDate vigenteDesde) {
+        this.vigenteDesde = vigenteDesde;
+    }
+
+    public LocalDate getVigenteHasta() {
+        return vigenteHasta;
+    }
+
+    public void setVigenteHasta(LocalDate vigenteHasta) {
+        this.vigenteHasta = vigenteHasta;
+    }
+}
@@ -2,7 +2,10 @@ package com.escueladeequitacion.hrs.dto;
 
 import com.escueladeequitacion.hrs.enums.Especialidad;
 import com.escueladeequitacion.hrs.enums.Estado;
+import com.escueladeequitacion.hrs.enums.Tipo;
+import com.escueladeequitacion.hrs.model.Alumno;
 import com.escueladeequitacion.hrs.model.Clase;
+import com.escueladeequitacion.hrs.model.ClaseRecurrente;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
@@ -44,6 +47,10 @@ public class ClaseResponseDto {
     private String caballoNombre;
     private String caballoTipo;
 
+    // Plantilla de origen (clases recurrentes). Si id es null, es una
+    // ocurrencia calculada que todavía no tiene fila propia.
+    private Long claseRecurrenteId;
+
     public ClaseResponseDto() {
     }
 
@@ -91,6 +98,78 @@ public class ClaseResponseDto {
             this.caballoNombre = clase.getCaballo().getNombre();
             this.caballoTipo = clase.getCaballo().getTipo().toString();
         }
+
+        if (clase.getClaseRecurrente() != null) {
+            this.claseRecurrenteId = clase.getClaseRecurrente().getId();
+        }
+    }
+
+    /**
+     * Ocurrencia calculada de una clase recurrente en una fecha (sin fila en la
+     * tabla clases, por eso id queda en null).
+     */
+    public static ClaseResponseDto deOcurrencia(ClaseRecurrente plantilla, LocalDate fecha) {
+        Alumno alumno = plantilla.getAlumno();
+        return new ClaseResponseDto(null, plantilla.getEspecialidad(), fecha, plantilla.getHora(),
+                plantilla.getDuracion(), Estado.PROGRAMADA, null, false,
+                plantilla.getInstructor().getId(), plantilla.getInstructor().getNombre(),
+                plantilla.getInstructor().getApellido(),
+                alumno != null ? alumno.getId() : null,
+                alumno != null ? alumno.getNombre() : null,
+                alumno != null ? alumno.getApellido() : null,
+                null, null, null,
+                plantilla.getCaballo().getId(), plantilla.getCaballo().getNombre(),
+                plantilla.getCaballo().getTipo(), plantilla.getId());
+    }
+
+    /**
+     * Constructor para proyecciones JPQL (SELECT new ...): recibe solo las
+     * columnas necesarias, sin pasar por las entidades.
+     * Ver ClaseRepository.SELECT_CLASE_RESPONSE.
+     */
+    public ClaseResponseDto(Long id, Especialidad especialidad, LocalDate dia, LocalTime hora, Integer duracion,
+            Estado estado, String observaciones, Boolean esPrueba,
+            Long instructorId, String instructorNombre, String instructorApellido,
+            Long alumnoId, String alumnoNombre, String alumnoApellido,
+            Long personaPruebaId, String personaPruebaNombre, String personaPruebaApellido,
+            Long caballoId, String caballoNombre, Tipo caballoTipo, Long claseRecurrenteId) {
+        this.id = id;
+        this.especialidad = especialidad;
+        this.dia = dia;
+        this.hora = hora;
+        this.duracion = duracion;
+        this.estado = estado;
+        this.observaciones = observaciones;
+        this.esPrueba = esPrueba;
+
+        if (instructorId != null) {
+            this.instructorId = instructorId;
+            this.instructorNombre = instructorNombre;
+            this.instructorApellido = instructorApellido;
+            this.instructorNombreCompleto = instructorNombre + " " + instructorApellido;
+        }
+
+        if (alumnoId != null) {
+            this.alumnoId = alumnoId;
+            this.alumnoNombre = alumnoNombre;
+            this.alumnoApellido = alumnoApellido;
+            this.alumnoNombreCompleto = alumnoNombre + " " + alumnoApellido;
+        }
+
+        if (personaPruebaId != null) {
+            this.personaPruebaId = personaPruebaId;
+            this.personaPruebaNombre = personaPruebaNombre;
+            this.personaPruebaApellido = personaPruebaApellido;
+            this.personaPruebaNombreCompleto = personaPruebaNombre + " " + personaPruebaApellido;
+        }
+
+        if (caballoId != null) {
+            this.caballoId = caballoId;
+            this.caballoNombre = caballoNombre;
+            this.caballoTipo = caballoTipo != null ? caballoTipo.toString() : null;
+        }
+
+        this.claseRecurrenteId = claseRecurrenteId;
     }
 
     // Getters y Setters
@@ -300,4 +379,12 @@ public class ClaseResponseDto {
         return LocalDateTime.of(dia, hora);
 
     }
-}
\ No newline at end of file
+
+    public Long getClaseRecurrenteId() {
+        return claseRecurrenteId;
+    }
+
+    public void setClaseRecurrenteId(Long claseRecurrenteId) {
+        this.claseRecurrenteId = claseRecurrenteId;
+    }
+}
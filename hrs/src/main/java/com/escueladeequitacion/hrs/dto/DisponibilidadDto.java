@@ -0,0 +1,165 @@
+package com.escueladeequitacion.hrs.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.escueladeequitacion.hrs.enums.Especialidad;
+
+// DTO con los horarios libres de un rango (GET /api/v1/calendario/disponibilidad).
+// Cada franja lista los caballos e instructores libres: cualquier combinación
+// (caballo, instructor) de una misma franja es válida para programar la clase.
+public class DisponibilidadDto {
+
+    private LocalDate desde;
+    private LocalDate hasta;
+    private Especialidad especialidad;
+    private Integer duracion;
+    private long combinaciones; // Total de (dia, hora, caballo, instructor) posibles
+    private List<FranjaDisponibleDto> franjas = new ArrayList<>();
+
+    public DisponibilidadDto() {
+    }
+
+    public DisponibilidadDto(LocalDate desde, LocalDate hasta, Especialidad especialidad, Integer duracion) {
+        this.desde = desde;
+        this.hasta = hasta;
+        this.especialidad = especialidad;
+        this.duracion = duracion;
+    }
+
+    public void agregarFranja(FranjaDisponibleDto franja) {
+        franjas.add(franja);
+        combinaciones += (long) franja.getCaballos().size() * franja.getInstructores().size();
+    }
+
+    // ── Getters & Setters ─────────────────────────────────────
+    public LocalDate getDesde() {
+        return desde;
+    }
+
+    public void setDesde(LocalDate v) {
+        this.desde = v;
+    }
+
+    public LocalDate getHasta() {
+        return hasta;
+    }
+
+    public void setHasta(LocalDate v) {
+        this.hasta = v;
+    }
+
+    public Especialidad getEspecialidad() {
+        return especialidad;
+    }
+
+    public void setEspecialidad(Especialidad v) {
+        this.especialidad = v;
+    }
+
+    public Integer getDuracion() {
+        return duracion;
+    }
+
+    public void setDuracion(Integer v) {
+        this.duracion = v;
+    }
+
+    public long getCombinaciones() {
+        return combinaciones;
+    }
+
+    public void setCombinaciones(long v) {
+        this.combinaciones = v;
+    }
+
+    public List<FranjaDisponibleDto> getFranjas() {
+        return franjas;
+    }
+
+    public void setFranjas(List<FranjaDisponibleDto> v) {
+        this.franjas = v;
+    }
+
+    // ── Clases internas ───────────────────────────────────────
+    public static class FranjaDisponibleDto {
+        private LocalDate dia;
+        private LocalTime hora;
+        private List<RecursoDisponibleDto> caballos;
+        private List<RecursoDisponibleDto> instructores;
+
+        public FranjaDisponibleDto() {
+        }
+
+        public FranjaDisponibleDto(LocalDate dia, LocalTime hora, List<RecursoDisponibleDto> caballos,
+                List<RecursoDisponibleDto> instructores) {
+            this.dia = dia;
+            this.hora = hora;
+            this.caballos = caballos;
+            this.instructores = instructores;
+        }
+
+        public LocalDate getDia() {
+            return dia;
+        }
+
+        public LocalTime getHora() {
+            return hora;
+        }
+
+        public List<RecursoDisponibleDto> getCaballos() {
+            return caballos;
+        }
+
+        public List<RecursoDisponibleDto> getInstructores() {
+            return instructores;
+        }
+
+        public void setDia(LocalDate v) {
+            this.dia = v;
+        }
+
+        public void setHora(LocalTime v) {
+            this.hora = v;
+        }
+
+        public void setCaballos(List<RecursoDisponibleDto> v) {
+            this.caballos = v;
+        }
+
+        public void setInstructores(List<RecursoDisponibleDto> v) {
+            this.instructores = v;
+        }
+    }
+
+    public static class RecursoDisponibleDto {
+        private Long id;
+        private String nombre;
+
+        public RecursoDisponibleDto() {
+        }
+
+        public RecursoDisponibleDto(Long id, String nombre) {
+            this.id = id;
+            this.nombre = nombre;
+        }
+
+        public Long getId() {
+            return id;
+        }
+
+        public String getNombre() {
+            return nombre;
+        }
+
+        public void setId(Long v) {
+            this.id = v;
+        }
+
+        public void setNombre(String v) {
+            this.nombre = v;
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.escueladeequitacion.hrs.dto;
+
+import com.escueladeequitacion.hrs.security.User;
+
+// DTO de respuesta de /api/v1/auth/login y /api/v1/auth/refresh
+public class TokenDto {
+
+    private String tokenAcceso;
+    private String tokenRefresco;
+    private String tipo = "Bearer";
+    private long expiraEn; // Segundos de validez del token de acceso
+    private User usuario;
+
+    public TokenDto() {
+    }
+
+    public TokenDto(String tokenAcceso, String tokenRefresco, long expiraEn, User usuario) {
+        this.tokenAcceso = tokenAcceso;
+        this.tokenRefresco = tokenRefresco;
+        this.expiraEn = expiraEn;
+        this.usuario = usuario;
+    }
+
+    // ── Getters & Setters ─────────────────────────────────────
+    public String getTokenAcceso() {
+        return tokenAcceso;
+    }
+
+    public void setTokenAcceso(String tokenAcceso) {
+        this.tokenAcceso = tokenAcceso;
+    }
+
+    public String getTokenRefresco() {
+        return tokenRefresco;
+    }
+
+    public void setTokenRefresco(String tokenRefresco) {
+        this.tokenRefresco = tokenRefresco;
+    }
+
+    public String getTipo() {
+        return tipo;
+    }
+
+    public void setTipo(String tipo) {
+        this.tipo = tipo;
+    }
+
+    public long getExpiraEn() {
+        return expiraEn;
+    }
+
+    public void setExpiraEn(long expiraEn) {
+        this.expiraEn = expiraEn;
+    }
+
+    public User getUsuario() {
+        return usuario;
+    }
+
+    public void setUsuario(User usuario) {
+        this.usuario = usuario;
+    }
+}
@@ -4,6 +4,7 @@ import com.escueladeequitacion.hrs.dto.ErrorResponseDto;
 import jakarta.servlet.http.HttpServletRequest;
 
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -114,6 +115,27 @@ public class GlobalExceptionHandler {
                 return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponseDto);
         }
 
+        /**
+         * Maneja OptimisticLockingFailureException (edición concurrente).
+         * Se lanza cuando otra operación modificó la misma entidad (@Version)
+         * entre la lectura y el guardado.
+         * Ejemplo: pausar y cancelar el mismo abono a la vez.
+         */
+        @ExceptionHandler(OptimisticLockingFailureException.class)
+        @ResponseStatus(HttpStatus.CONFLICT)
+        public ResponseEntity<ErrorResponseDto> handleOptimisticLockingFailureException(
+                        OptimisticLockingFailureException ex,
+                        HttpServletRequest request) {
+
+                ErrorResponseDto errorResponseDto = new ErrorResponseDto(
+                                HttpStatus.CONFLICT.value(),
+                                "Conflict",
+                                "El registro fue modificado por otra operación. Vuelva a cargarlo e intente de nuevo.",
+                                request.getRequestURI());
+
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(errorResponseDto);
+        }
+
         /**
          * Maneja UnauthorizedException (errores de autenticación).
          * Se lanza cuando un usuario no está autenticado o no tiene permisos.
@@ -1,13 +1,16 @@
 package com.escueladeequitacion.hrs.model;
 
 import com.escueladeequitacion.hrs.enums.EstadoAbono;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
+import org.hibernate.annotations.ColumnDefault;
+
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
 @Table(name = "abonos", indexes = {
-        @Index(name = "idx_abono_alumno", columnList = "alumno_id"),
+        @Index(name = "idx_abono_alumno_estado", columnList = "alumno_id, estado"),
         @Index(name = "idx_abono_estado", columnList = "estado"),
         @Index(name = "idx_abono_vigencia", columnList = "fecha_vencimiento")
 })
@@ -19,18 +22,22 @@ public class Abono {
 
     // Relaciones
     @ManyToOne(fetch = FetchType.LAZY)
+    @JsonIgnore
     @JoinColumn(name = "alumno_id", nullable = false)
     private Alumno alumno;
 
     @ManyToOne(fetch = FetchType.LAZY)
+    @JsonIgnore
     @JoinColumn(name = "plan_abono_id", nullable = false)
     private PlanAbono planAbono;
 
     @ManyToOne(fetch = FetchType.LAZY)
+    @JsonIgnore
     @JoinColumn(name = "plan_pension_id")
     private PlanPension planPension; // Solo si tiene caballo con pensión
 
     @ManyToOne(fetch = FetchType.LAZY)
+    @JsonIgnore
     @JoinColumn(name = "caballo_id")
     private Caballo caballo; // Si tiene caballo asignado (propio o reservado)
 
@@ -64,6 +71,13 @@ public class Abono {
     @Column(name = "observaciones", length = 500)
     private String observaciones;
 
+    // Bloqueo optimista para las escrituras que cargan la entidad (cancelar,
+    // pausar, vencer). Los UPDATE masivos de AbonoRepository lo incrementan a mano.
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private long version;
+
     // Constructor vacío
     public Abono() {
         this.estado = EstadoAbono.ACTIVO;
@@ -135,6 +149,10 @@ public class Abono {
         this.id = id;
     }
 
+    public long getVersion() {
+        return version;
+    }
+
     public Alumno getAlumno() {
         return alumno;
     }
@@ -22,12 +22,17 @@ import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
 import jakarta.persistence.Index;
+import jakarta.persistence.UniqueConstraint;
 
 /**
  * Clase que representa a una Clase en la escuela de equitación.
  */
 @Entity
-@Table(name = "clases", indexes = {
+@Table(name = "clases", uniqueConstraints = {
+        // Una sola fila por ocurrencia de plantilla; las clases únicas tienen ambas en null
+        @UniqueConstraint(name = "uk_clase_recurrente_ocurrencia", columnNames = { "clase_recurrente_id",
+                "fecha_ocurrencia" })
+}, indexes = {
         @Index(name = "idx_clase_dia_hora", columnList = "dia, hora"),
         @Index(name = "idx_clase_instructor_dia", columnList = "instructor_id, dia"),
         @Index(name = "idx_clase_alumno_dia", columnList = "alumno_id, dia"),
@@ -78,6 +83,14 @@ public class Clase {
     @JoinColumn(name = "persona_prueba_id", nullable = true)
     private PersonaPrueba personaPrueba;
 
+    // Solo para ocurrencias materializadas de una ClaseRecurrente
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JsonIgnore
+    @JoinColumn(name = "clase_recurrente_id", nullable = true)
+    private ClaseRecurrente claseRecurrente;
+    @Column(name = "fecha_ocurrencia", nullable = true)
+    private LocalDate fechaOcurrencia; // Fecha original de la ocurrencia, aunque después se mueva
+
     // Constructor vacío
     public Clase() {
     }
@@ -129,6 +142,22 @@ public class Clase {
         this.caballo = caballo;
     }
 
+    public ClaseRecurrente getClaseRecurrente() {
+        return claseRecurrente;
+    }
+
+    public void setClaseRecurrente(ClaseRecurrente claseRecurrente) {
+        this.claseRecurrente = claseRecurrente;
+    }
+
+    public LocalDate getFechaOcurrencia() {
+        return fechaOcurrencia;
+    }
+
+    public void setFechaOcurrencia(LocalDate fechaOcurrencia) {
+        this.fechaOcurrencia = fechaOcurrencia;
+    }
+
     public PersonaPrueba getPersonaPrueba() {
         return personaPrueba;
     }
@@ -0,0 +1,182 @@
+package com.escueladeequitacion.hrs.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import com.escueladeequitacion.hrs.enums.Especialidad;
+import com.escueladeequitacion.hrs.enums.Estado;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
+import jakarta.persistence.Table;
+
+/**
+ * Plantilla de una clase que se repite todas las semanas (mismo día de la
+ * semana, hora, instructor, alumno y caballo) dentro de un período de vigencia.
+ *
+ * Las ocurrencias no se guardan en la tabla clases: se calculan al leer el
+ * calendario. Solo se crea la fila de Clase (con claseRecurrente y
+ * fechaOcurrencia) cuando una ocurrencia se modifica, se completa o se
+ * cancela; esa fila reemplaza a la ocurrencia calculada.
+ */
+@Entity
+@Table(name = "clases_recurrentes", indexes = {
+        @Index(name = "idx_clase_recurrente_vigencia", columnList = "vigente_desde, vigente_hasta"),
+        @Index(name = "idx_clase_recurrente_alumno", columnList = "alumno_id"),
+        @Index(name = "idx_clase_recurrente_caballo", columnList = "caballo_id")
+})
+public class ClaseRecurrente {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "dia_semana", nullable = false, length = 10)
+    private DayOfWeek diaSemana;
+
+    @Column(name = "hora", nullable = false)
+    private LocalTime hora;
+
+    @Column(name = "duracion", nullable = false)
+    private Integer duracion = 30;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "especialidad", nullable = false, length = 16)
+    private Especialidad especialidad;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "instructor_id", nullable = false)
+    private Instructor instructor;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "alumno_id", nullable = true)
+    private Alumno alumno;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "caballo_id", nullable = false)
+    private Caballo caballo;
+
+    @Column(name = "vigente_desde", nullable = false)
+    private LocalDate vigenteDesde;
+
+    @Column(name = "vigente_hasta", nullable = true)
+    private LocalDate vigenteHasta; // null = sin fecha de fin
+
+    // Constructor vacío
+    public ClaseRecurrente() {
+    }
+
+    /**
+     * Indica si la plantilla tiene una ocurrencia en la fecha dada.
+     */
+    public boolean ocurreEl(LocalDate fecha) {
+        return fecha.getDayOfWeek() == diaSemana
+                && !fecha.isBefore(vigenteDesde)
+                && (vigenteHasta == null || !fecha.isAfter(vigenteHasta));
+    }
+
+    /**
+     * Crea la fila de Clase de la ocurrencia de una fecha, en estado
+     * PROGRAMADA. No la persiste.
+     */
+    public Clase crearOcurrencia(LocalDate fecha) {
+        Clase clase = new Clase(instructor, alumno, caballo, especialidad, fecha, hora, duracion,
+                Estado.PROGRAMADA, false);
+        clase.setObservaciones("");
+        clase.setClaseRecurrente(this);
+        clase.setFechaOcurrencia(fecha);
+        return clase;
+    }
+
+    // Getters y Setters
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public DayOfWeek getDiaSemana() {
+        return diaSemana;
+    }
+
+    public void setDiaSemana(DayOfWeek diaSemana) {
+        this.diaSemana = diaSemana;
+    }
+
+    public LocalTime getHora() {
+        return hora;
+    }
+
+    public void setHora(LocalTime hora) {
+        this.hora = hora;
+    }
+
+    public Integer getDuracion() {
+        return duracion;
+    }
+
+    public void setDuracion(Integer duracion) {
+        this.duracion = duracion;
+    }
+
+    public Especialidad getEspecialidad() {
+        return especialidad;
+    }
+
+    public void setEspecialidad(Especialidad especialidad) {
+        this.especialidad = especialidad;
+    }
+
+    public Instructor getInstructor() {
+        return instructor;
+    }
+
+    public void setInstructor(Instructor instructor) {
+        this.instructor = instructor;
+    }
+
+    public Alumno getAlumno() {
+        return alumno;
+    }
+
+    public void setAlumno(Alumno alumno) {
+        this.alumno = alumno;
+    }
+
+    public Caballo getCaballo() {
+        return caballo;
+    }
+
+    public void setCaballo(Caballo caballo) {
+        this.caballo = caballo;
+    }
+
+    public LocalDate getVigenteDesde() {
+        return vigenteDesde;
+    }
+
+    public void setVigenteDesde(LocalDate vigenteDesde) {
+        this.vigenteDesde = vigenteDesde;
+    }
+
+    public LocalDate getVigenteHasta() {
+        return vigenteHasta;
+    }
+
+    public void setVigenteHasta(LocalDate vigenteHasta) {
+        this.vigenteHasta = vigenteHasta;
+    }
+}
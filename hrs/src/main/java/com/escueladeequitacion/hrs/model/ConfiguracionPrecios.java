@@ -49,6 +49,14 @@ public class ConfiguracionPrecios {
     @Column(name = "honorario_base_mensual", nullable = false)
     private Double honorarioBaseMensual = 0.0;
 
+    // ── Versión ───────────────────────────────────────────────
+    // Se incrementa en cada modificación, solo con
+    // ConfiguracionPreciosRepository.incrementarVersion (el UPDATE de la
+    // entidad no la pisa); cada nodo compara la versión de la BD con la de
+    // su copia en memoria (ver ConfiguracionPreciosCache)
+    @Column(name = "version", updatable = false)
+    private Long version = 0L;
+
     // ── Constructores ─────────────────────────────────────────
     public ConfiguracionPrecios() {
     }
@@ -62,6 +70,14 @@ public class ConfiguracionPrecios {
         this.id = v;
     }
 
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long v) {
+        this.version = v;
+    }
+
     public Double getCuota4Clases() {
         return cuota4Clases;
     }
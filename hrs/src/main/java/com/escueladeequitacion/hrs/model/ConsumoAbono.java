@@ -0,0 +1,77 @@
+package com.escueladeequitacion.hrs.model;
+
+import jakarta.persistence.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Registro de una clase descontada de un abono. Es de solo inserción: una fila
+ * por clase (clase_id único), así completar la misma clase dos veces no la
+ * cobra dos veces.
+ *
+ * Las filas se insertan con ConsumoAbonoRepository.registrar y, en la misma
+ * transacción, se descuenta la clase de Abono.clasesRestantes. El saldo del
+ * abono es entonces clasesTotales menos sus consumos, y se lee de una sola
+ * fila sin recontar. Las clases cobradas antes de que existiera el libro se
+ * siembran una vez, sin descontar (AbonoServiceImpl.sembrarConsumosAnteriores).
+ */
+@Entity
+@Immutable
+@Table(name = "consumos_abono", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_consumo_abono_clase", columnNames = "clase_id")
+}, indexes = {
+        @Index(name = "idx_consumo_abono_abono", columnList = "abono_id"),
+        @Index(name = "idx_consumo_abono_alumno_dia", columnList = "alumno_id, dia")
+})
+public class ConsumoAbono {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "clase_id", nullable = false)
+    private Long claseId;
+
+    @Column(name = "abono_id", nullable = false)
+    private Long abonoId;
+
+    @Column(name = "alumno_id", nullable = false)
+    private Long alumnoId;
+
+    @Column(name = "dia", nullable = false)
+    private LocalDate dia; // Día de la clase
+
+    @Column(name = "registrado_en", nullable = false)
+    private LocalDateTime registradoEn;
+
+    // Constructor vacío (JPA)
+    protected ConsumoAbono() {
+    }
+
+    // Getters
+    public Long getId() {
+        return id;
+    }
+
+    public Long getClaseId() {
+        return claseId;
+    }
+
+    public Long getAbonoId() {
+        return abonoId;
+    }
+
+    public Long getAlumnoId() {
+        return alumnoId;
+    }
+
+    public LocalDate getDia() {
+        return dia;
+    }
+
+    public LocalDateTime getRegistradoEn() {
+        return registradoEn;
+    }
+}
@@ -0,0 +1,41 @@
+package com.escueladeequitacion.hrs.model;
+
+import jakarta.persistence.*;
+
+/**
+ * Contador de números de factura de un año. "siguiente" es el primer número
+ * todavía no reservado: cada nodo reserva bloques con un UPDATE sobre esta
+ * fila (ver NumeradorFacturas), así dos nodos nunca reciben el mismo número.
+ */
+@Entity
+@Table(name = "contadores_factura")
+public class ContadorFactura {
+
+    @Id
+    @Column(name = "anio")
+    private Integer anio;
+
+    @Column(name = "siguiente", nullable = false)
+    private Long siguiente;
+
+    // Constructor vacío
+    public ContadorFactura() {
+    }
+
+    // Getters y Setters
+    public Integer getAnio() {
+        return anio;
+    }
+
+    public void setAnio(Integer anio) {
+        this.anio = anio;
+    }
+
+    public Long getSiguiente() {
+        return siguiente;
+    }
+
+    public void setSiguiente(Long siguiente) {
+        this.siguiente = siguiente;
+    }
+}
@@ -28,10 +28,12 @@ public class Factura {
 
     // Relaciones
     @ManyToOne(fetch = FetchType.LAZY)
+    @JsonIgnore
     @JoinColumn(name = "alumno_id", nullable = false)
     private Alumno alumno;
 
     @ManyToOne(fetch = FetchType.LAZY)
+    @JsonIgnore
     @JoinColumn(name = "abono_id")
     private Abono abono; // Si es factura de abono mensual
 
@@ -1,6 +1,7 @@
 package com.escueladeequitacion.hrs.model;
 
 import com.escueladeequitacion.hrs.enums.FormaPago;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDate;
@@ -19,10 +20,12 @@ public class Pago {
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY)
+    @JsonIgnore
     @JoinColumn(name = "factura_id", nullable = false)
     private Factura factura;
 
     @ManyToOne(fetch = FetchType.LAZY)
+    @JsonIgnore
     @JoinColumn(name = "alumno_id", nullable = false)
     private Alumno alumno;
 
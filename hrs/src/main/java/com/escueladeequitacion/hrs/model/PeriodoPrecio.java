@@ -1,11 +1,13 @@
 package com.escueladeequitacion.hrs.model;
 
+import com.escueladeequitacion.hrs.service.PreciosPlanesListener;
 import jakarta.persistence.*;
 import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
 @Entity
+@EntityListeners(PreciosPlanesListener.class)
 @Table(name = "periodos_precio")
 public class PeriodoPrecio {
 
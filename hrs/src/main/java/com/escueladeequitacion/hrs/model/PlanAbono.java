@@ -2,11 +2,13 @@ package com.escueladeequitacion.hrs.model;
 
 import com.escueladeequitacion.hrs.enums.ModalidadClase;
 import com.escueladeequitacion.hrs.enums.TipoClase;
+import com.escueladeequitacion.hrs.service.PreciosPlanesListener;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
+@EntityListeners(PreciosPlanesListener.class)
 @Table(name = "planes_abono", indexes = {
         @Index(name = "idx_plan_abono_tipo_modalidad", columnList = "tipo_clase, modalidad"),
         @Index(name = "idx_plan_abono_vigencia", columnList = "fecha_vigencia_desde, fecha_vigencia_hasta"),
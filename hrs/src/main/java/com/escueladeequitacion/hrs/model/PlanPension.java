@@ -1,10 +1,12 @@
 package com.escueladeequitacion.hrs.model;
 
+import com.escueladeequitacion.hrs.service.PreciosPlanesListener;
 import jakarta.persistence.*;
 import java.math.BigDecimal;
 import java.time.LocalDate;
 
 @Entity
+@EntityListeners(PreciosPlanesListener.class)
 @Table(name = "planes_pension", indexes = {
         @Index(name = "idx_plan_pension_cantidad", columnList = "cantidad_clases"),
         @Index(name = "idx_plan_pension_vigencia", columnList = "fecha_vigencia_desde, fecha_vigencia_hasta"),
@@ -0,0 +1,204 @@
+package com.escueladeequitacion.hrs.model;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Resumen financiero precalculado de un mes, de toda la escuela
+ * (instructorId = ESCUELA) o de un instructor.
+ *
+ * El mes en curso queda abierto y se actualiza a medida que se completan
+ * clases o cambian alumnos y precios. Al empezar el mes siguiente se cierra
+ * y ya no se modifica: conserva los ingresos con el padrón y los honorarios
+ * con los precios que hubo ese mes.
+ *
+ * Un mes que se cierra sin haber tenido filas abiertas (meses anteriores a
+ * esta tabla o a una caída larga) se arma con el padrón y los precios del
+ * momento del cierre y queda marcado como estimado.
+ */
+@Entity
+@Table(name = "resumenes_mensuales", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_resumen_mes_instructor", columnNames = { "mes", "instructor_id" })
+}, indexes = {
+        @Index(name = "idx_resumen_mes_cerrado", columnList = "mes, cerrado")
+})
+public class ResumenMensual {
+
+    // instructor_id de la fila de toda la escuela. No es null para que
+    // uk_resumen_mes_instructor también la cubra (los NULL no chocan)
+    public static final long ESCUELA = 0L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "mes", nullable = false)
+    private LocalDate mes; // Siempre el día 1 del mes
+
+    @Column(name = "instructor_id", nullable = false)
+    private Long instructorId; // ESCUELA = toda la escuela
+
+    // ── Ingresos proyectados ──────────────────────────────────
+    @Column(name = "ingresos_cuotas", nullable = false)
+    private Double ingresosCuotas = 0.0;
+
+    @Column(name = "ingresos_pensiones", nullable = false)
+    private Double ingresosPensiones = 0.0;
+
+    // ── Egresos ───────────────────────────────────────────────
+    @Column(name = "clases_completadas", nullable = false)
+    private Long clasesCompletadas = 0L;
+
+    @Column(name = "instructores", nullable = false)
+    private Integer instructores = 0; // Instructores activos que cobran el básico
+
+    @Column(name = "egresos_honorarios", nullable = false)
+    private Double egresosHonorarios = 0.0;
+
+    // Precios con los que se calcularon los honorarios del mes
+    @Column(name = "honorario_base", nullable = false)
+    private Double honorarioBase = 0.0;
+
+    @Column(name = "honorario_por_clase", nullable = false)
+    private Double honorarioPorClase = 0.0;
+
+    @Column(name = "cerrado", nullable = false)
+    private Boolean cerrado = false;
+
+    @Column(name = "estimado", nullable = false)
+    private Boolean estimado = false;
+
+    @Column(name = "actualizado_en", nullable = false)
+    private LocalDateTime actualizadoEn;
+
+    // ── Constructores ─────────────────────────────────────────
+    public ResumenMensual() {
+    }
+
+    public ResumenMensual(LocalDate mes, Long instructorId) {
+        this.mes = mes;
+        this.instructorId = instructorId;
+    }
+
+    public double getIngresosTotal() {
+        return ingresosCuotas + ingresosPensiones;
+    }
+
+    public boolean esEscuela() {
+        return instructorId == ESCUELA;
+    }
+
+    /**
+     * Recalcula los honorarios con los precios guardados en la fila: básico
+     * por cada instructor activo más las clases completadas.
+     */
+    public void recalcularHonorarios() {
+        egresosHonorarios = honorarioBase * instructores + clasesCompletadas * honorarioPorClase;
+    }
+
+    // ── Getters & Setters ─────────────────────────────────────
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long v) {
+        this.id = v;
+    }
+
+    public LocalDate getMes() {
+        return mes;
+    }
+
+    public void setMes(LocalDate v) {
+        this.mes = v;
+    }
+
+    public Long getInstructorId() {
+        return instructorId;
+    }
+
+    public void setInstructorId(Long v) {
+        this.instructorId = v;
+    }
+
+    public Double getIngresosCuotas() {
+        return ingresosCuotas;
+    }
+
+    public void setIngresosCuotas(Double v) {
+        this.ingresosCuotas = v;
+    }
+
+    public Double getIngresosPensiones() {
+        return ingresosPensiones;
+    }
+
+    public void setIngresosPensiones(Double v) {
+        this.ingresosPensiones = v;
+    }
+
+    public Long getClasesCompletadas() {
+        return clasesCompletadas;
+    }
+
+    public void setClasesCompletadas(Long v) {
+        this.clasesCompletadas = v;
+    }
+
+    public Integer getInstructores() {
+        return instructores;
+    }
+
+    public void setInstructores(Integer v) {
+        this.instructores = v;
+    }
+
+    public Double getEgresosHonorarios() {
+        return egresosHonorarios;
+    }
+
+    public void setEgresosHonorarios(Double v) {
+        this.egresosHonorarios = v;
+    }
+
+    public Double getHonorarioBase() {
+        return honorarioBase;
+    }
+
+    public void setHonorarioBase(Double v) {
+        this.honorarioBase = v;
+    }
+
+    public Double getHonorarioPorClase() {
+        return honorarioPorClase;
+    }
+
+    public void setHonorarioPorClase(Double v) {
+        this.honorarioPorClase = v;
+    }
+
+    public Boolean getEstimado() {
+        return estimado;
+    }
+
+    public void setEstimado(Boolean v) {
+        this.estimado = v;
+    }
+
+    public Boolean getCerrado() {
+        return cerrado;
+    }
+
+    public void setCerrado(Boolean v) {
+        this.cerrado = v;
+    }
+
+    public LocalDateTime getActualizadoEn() {
+        return actualizadoEn;
+    }
+
+    public void setActualizadoEn(LocalDateTime v) {
+        this.actualizadoEn = v;
+    }
+}
@@ -2,12 +2,16 @@ package com.escueladeequitacion.hrs.repository;
 
 import com.escueladeequitacion.hrs.model.Abono;
 import com.escueladeequitacion.hrs.enums.EstadoAbono;
+import jakarta.persistence.LockModeType;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -39,11 +43,50 @@ public interface AbonoRepository extends JpaRepository<Abono, Long> {
     List<Abono> findAbonosPorVencer(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
 
     /**
-     * Lista abonos vencidos que aún están marcados como ACTIVO (para tarea
-     * programada).
+     * IDs de los abonos vencidos que aún están marcados como ACTIVO (los que
+     * va a actualizar vencerAbonos). Usa idx_abono_vigencia. Las filas quedan
+     * bloqueadas hasta el fin de la transacción, así ningún consumo, pausa o
+     * cancelación las cambia antes del UPDATE.
      */
-    @Query("SELECT a FROM Abono a WHERE a.fechaVencimiento < :hoy AND a.estado = 'ACTIVO'")
-    List<Abono> findAbonosVencidos(@Param("hoy") LocalDate hoy);
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a.id FROM Abono a WHERE a.fechaVencimiento < :hoy AND a.estado = 'ACTIVO' ORDER BY a.id")
+    List<Long> findIdsAbonosVencidos(@Param("hoy") LocalDate hoy);
+
+    /**
+     * Pasa a VENCIDO los abonos indicados que sigan ACTIVOS, en un solo UPDATE
+     * (sin cargar las entidades).
+     *
+     * @return cantidad de abonos vencidos
+     */
+    @Modifying
+    @Query("UPDATE Abono a SET " +
+            "a.estado = com.escueladeequitacion.hrs.enums.EstadoAbono.VENCIDO, " +
+            "a.version = a.version + 1 " +
+            "WHERE a.id IN :ids AND a.estado = 'ACTIVO'")
+    int vencerAbonos(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Descuenta del abono la clase que se acaba de registrar en
+     * consumos_abono, con un único UPDATE condicional (sin leer la fila).
+     * clasesRestantes es así el total acumulado de los consumos: solo baja
+     * junto con una fila nueva del registro. Si era la última clase, el abono
+     * queda FINALIZADO. El estado se asigna antes que clasesRestantes porque
+     * MySQL evalúa el SET de izquierda a derecha usando los valores ya
+     * modificados. La versión se incrementa a mano: los UPDATE masivos no la
+     * tocan.
+     *
+     * @return 1 si descontó, 0 si el abono ya no está activo o no le quedan
+     *         clases
+     */
+    @Modifying
+    @Query("UPDATE Abono a SET " +
+            "a.estado = CASE WHEN a.clasesRestantes = 1 " +
+            "THEN com.escueladeequitacion.hrs.enums.EstadoAbono.FINALIZADO ELSE a.estado END, " +
+            "a.clasesRestantes = a.clasesRestantes - 1, " +
+            "a.version = a.version + 1 " +
+            "WHERE a.id = (SELECT c.abonoId FROM ConsumoAbono c WHERE c.claseId = :claseId) " +
+            "AND a.estado = 'ACTIVO' AND a.clasesRestantes > 0")
+    int descontarClaseConsumida(@Param("claseId") Long claseId);
 
     /**
      * Cuenta abonos activos.
@@ -11,6 +11,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.time.LocalDate;
@@ -53,6 +54,14 @@ public interface AlumnoRepository extends JpaRepository<Alumno, Long>,
     @Query("SELECT a FROM Alumno a LEFT JOIN FETCH a.caballoPropio WHERE a.id = :alumnoId")
     Optional<Alumno> findAlumnoConCaballo(@Param("alumnoId") Long alumnoId);
 
+    // Variantes con el caballo propio (EAGER) en el mismo SELECT, para listados:
+    // sin el JOIN FETCH Hibernate lo busca con una consulta por caballo
+    @Query("SELECT a FROM Alumno a LEFT JOIN FETCH a.caballoPropio WHERE a.activo = :activo")
+    List<Alumno> findByActivoConCaballo(@Param("activo") Boolean activo);
+
+    @Query("SELECT a FROM Alumno a LEFT JOIN FETCH a.caballoPropio WHERE a.id IN :ids")
+    List<Alumno> findAllByIdConCaballo(@Param("ids") Collection<Long> ids);
+
     // Mantenemos estos métodos por compatibilidad con código existente
     Page<Alumno> findByActivo(Boolean activo, Pageable pageable);
     
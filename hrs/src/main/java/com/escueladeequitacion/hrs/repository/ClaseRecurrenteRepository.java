@@ -0,0 +1,37 @@
+package com.escueladeequitacion.hrs.repository;
+
+import com.escueladeequitacion.hrs.model.ClaseRecurrente;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ClaseRecurrenteRepository extends JpaRepository<ClaseRecurrente, Long> {
+
+    /**
+     * Plantillas cuya vigencia se superpone con [desde, hasta], con instructor,
+     * alumno y caballo cargados para armar las ocurrencias sin N+1.
+     */
+    @Query("SELECT r FROM ClaseRecurrente r " +
+            "JOIN FETCH r.instructor " +
+            "LEFT JOIN FETCH r.alumno " +
+            "JOIN FETCH r.caballo " +
+            "WHERE r.vigenteDesde <= :hasta " +
+            "AND (r.vigenteHasta IS NULL OR r.vigenteHasta >= :desde)")
+    List<ClaseRecurrente> findVigentesEnRango(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    /**
+     * Igual que findVigentesEnRango pero sin relaciones: alcanza con los IDs
+     * (para el índice de ocupación y la materialización diaria).
+     */
+    @Query("SELECT r FROM ClaseRecurrente r " +
+            "WHERE r.vigenteDesde <= :hasta " +
+            "AND (r.vigenteHasta IS NULL OR r.vigenteHasta >= :desde)")
+    List<ClaseRecurrente> findVigentesEnRangoSinDetalles(@Param("desde") LocalDate desde,
+            @Param("hasta") LocalDate hasta);
+}
@@ -1,5 +1,6 @@
 package com.escueladeequitacion.hrs.repository;
 
+import com.escueladeequitacion.hrs.dto.ClaseResponseDto;
 import com.escueladeequitacion.hrs.enums.Especialidad;
 import com.escueladeequitacion.hrs.model.Clase;
 
@@ -7,12 +8,20 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 import java.util.Optional;
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -21,6 +30,23 @@ import com.escueladeequitacion.hrs.enums.Estado;
 @Repository
 public interface ClaseRepository extends JpaRepository<Clase, Long>, JpaSpecificationExecutor<Clase> {
 
+  /**
+   * SELECT común de las proyecciones a ClaseResponseDto: trae solo las
+   * columnas del DTO con una expresión de constructor, sin crear entidades
+   * administradas (ni snapshots para dirty checking).
+   */
+  String SELECT_CLASE_RESPONSE = "SELECT new com.escueladeequitacion.hrs.dto.ClaseResponseDto(" +
+      "c.id, c.especialidad, c.dia, c.hora, c.duracion, c.estado, c.observaciones, c.esPrueba, " +
+      "i.id, i.nombre, i.apellido, " +
+      "a.id, a.nombre, a.apellido, " +
+      "pp.id, pp.nombre, pp.apellido, " +
+      "cab.id, cab.nombre, cab.tipo, c.claseRecurrente.id) " +
+      "FROM Clase c " +
+      "JOIN c.instructor i " +
+      "LEFT JOIN c.alumno a " +
+      "LEFT JOIN c.personaPrueba pp " +
+      "JOIN c.caballo cab ";
+
   // Métodos para buscar alumnos por diferentes criterios
   public List<Clase> findByEspecialidad(Especialidad especialidad);
 
@@ -57,6 +83,47 @@ public interface ClaseRepository extends JpaRepository<Clase, Long>, JpaSpecific
    */
   public List<Clase> findByDiaAndEstado(LocalDate dia, Estado estado);
 
+  // Cambia el estado de una sola clase solo si sigue en el estado esperado
+  @Modifying
+  @Query("UPDATE Clase c SET c.estado = :nuevo WHERE c.id = :id AND c.estado = :actual")
+  public int actualizarEstadoSiCorresponde(
+      @Param("id") Long id,
+      @Param("actual") Estado actual,
+      @Param("nuevo") Estado nuevo);
+
+  /**
+   * Cambia de estado, en un solo UPDATE, las clases de [desde, hasta) que
+   * estén en alguno de los estados indicados.
+   */
+  @Modifying
+  @Query("""
+      UPDATE Clase c SET c.estado = :nuevo
+      WHERE c.dia >= :desde
+        AND c.dia < :hasta
+        AND c.estado IN :estados
+      """)
+  public int actualizarEstadoEntre(
+      @Param("desde") LocalDate desde,
+      @Param("hasta") LocalDate hasta,
+      @Param("estados") Collection<Estado> estados,
+      @Param("nuevo") Estado nuevo);
+
+  /**
+   * IDs de las clases con alumno que va a afectar actualizarEstadoEntre (para
+   * registrar su consumo de abono).
+   */
+  @Query("""
+      SELECT c.id FROM Clase c
+      WHERE c.dia >= :desde
+        AND c.dia < :hasta
+        AND c.estado IN :estados
+        AND c.alumno IS NOT NULL
+      """)
+  public List<Long> findIdsConAlumnoEntre(
+      @Param("desde") LocalDate desde,
+      @Param("hasta") LocalDate hasta,
+      @Param("estados") Collection<Estado> estados);
+
   // ============================================================
   // CONSULTAS CON JOIN FETCH (Nuevas - traen datos relacionados)
   // ============================================================
@@ -77,32 +144,93 @@ public interface ClaseRepository extends JpaRepository<Clase, Long>, JpaSpecific
       "WHERE c.id = :id")
   public Optional<Clase> findByIdWithDetails(@Param("id") Long id);
 
+  // Proyección de las clases de un rango de días (calendario)
+  @Query(SELECT_CLASE_RESPONSE + "WHERE c.dia BETWEEN :desde AND :hasta ORDER BY c.dia ASC, c.hora ASC")
+  public List<ClaseResponseDto> findDtoByDiaBetween(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+  // ── Ocurrencias materializadas de clases recurrentes ─────────────────────
+
+  /**
+   * Ocurrencias de plantillas que ya tienen fila propia, cuya fecha original
+   * cae en [desde, hasta]. Devuelve filas [claseRecurrenteId, fechaOcurrencia].
+   * Esas fechas no se vuelven a calcular desde la plantilla.
+   */
+  @Query("""
+      SELECT c.claseRecurrente.id, c.fechaOcurrencia FROM Clase c
+      WHERE c.claseRecurrente IS NOT NULL
+        AND c.fechaOcurrencia BETWEEN :desde AND :hasta
+      """)
+  public List<Object[]> findOcurrenciasMaterializadas(
+      @Param("desde") LocalDate desde,
+      @Param("hasta") LocalDate hasta);
+
+  // Última fecha hasta :hasta con alguna ocurrencia materializada (recuperación tras una caída)
+  @Query("""
+      SELECT MAX(c.fechaOcurrencia) FROM Clase c
+      WHERE c.claseRecurrente IS NOT NULL
+        AND c.fechaOcurrencia <= :hasta
+      """)
+  public Optional<LocalDate> findUltimaOcurrenciaMaterializada(@Param("hasta") LocalDate hasta);
+
+  // Día de la clase más antigua (desde ahí se cierran los resúmenes mensuales)
+  @Query("SELECT MIN(c.dia) FROM Clase c")
+  public Optional<LocalDate> findPrimerDia();
+
+  public Optional<Clase> findByClaseRecurrenteIdAndFechaOcurrencia(Long claseRecurrenteId, LocalDate fechaOcurrencia);
+
+  // Proyección de una clase por ID (ver SELECT_CLASE_RESPONSE)
+  @Query(SELECT_CLASE_RESPONSE + "WHERE c.id = :id")
+  public Optional<ClaseResponseDto> findDtoById(@Param("id") Long id);
+
+  // Solo el instructor / alumno de una clase, para los chequeos de permisos
+  @Query("SELECT i.id FROM Clase c LEFT JOIN c.instructor i WHERE c.id = :id")
+  public Optional<Long> findInstructorIdById(@Param("id") Long id);
+
+  @Query("SELECT a.id FROM Clase c LEFT JOIN c.alumno a WHERE c.id = :id")
+  public Optional<Long> findAlumnoIdById(@Param("id") Long id);
+
+  // Bloquea la fila de la clase hasta el fin de la transacción: dos registros
+  // de consumo de la misma clase quedan en serie y el segundo ve la fila del
+  // primero en consumos_abono
+  @Lock(LockModeType.PESSIMISTIC_WRITE)
+  @Query("SELECT c.id FROM Clase c WHERE c.id = :id")
+  public Optional<Long> bloquearParaConsumo(@Param("id") Long id);
+
   /**
-   * Lista todas las clases con sus relaciones cargadas.
+   * Lista todas las clases proyectadas a DTO.
    * Útil para el endpoint GET /api/v1/clases/detalles
    */
+  @Query(SELECT_CLASE_RESPONSE + "ORDER BY c.dia ASC, c.hora ASC")
+  public List<ClaseResponseDto> findAllDto();
+
+  /**
+   * Lista todas las clases con relaciones como Stream, para exportar el historial
+   * sin materializar la tabla. Debe consumirse dentro de una transacción y
+   * cerrarse al terminar (try-with-resources).
+   * También trae el caballoPropio del alumno (EAGER) para no disparar un
+   * SELECT extra por alumno.
+   */
+  @QueryHints({
+      @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+      @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+  })
   @Query("SELECT c FROM Clase c " +
       "JOIN FETCH c.instructor " +
-      "LEFT JOIN FETCH c.alumno " +
+      "LEFT JOIN FETCH c.alumno a " +
+      "LEFT JOIN FETCH a.caballoPropio " +
       "LEFT JOIN FETCH c.personaPrueba " +
       "JOIN FETCH c.caballo " +
-      "ORDER BY c.dia ASC, c.hora ASC")
-  public List<Clase> findAllWithDetails();
+      "ORDER BY c.dia ASC, c.hora ASC, c.id ASC")
+  public Stream<Clase> streamAllWithDetails();
 
   /**
-   * Busca clases por día con relaciones cargadas.
+   * Busca clases por día proyectadas a DTO.
    * 
    * @param dia - Fecha de la clase
-   * @return Lista de clases con instructor, alumno y caballo cargados
+   * @return Lista de DTOs con datos de instructor, alumno y caballo
    */
-  @Query("SELECT c FROM Clase c " +
-      "JOIN FETCH c.instructor " +
-      "LEFT JOIN FETCH c.alumno " +
-      "LEFT JOIN FETCH c.personaPrueba " +
-      "JOIN FETCH c.caballo " +
-      "WHERE c.dia = :dia " +
-      "ORDER BY c.hora ASC")
-  public List<Clase> findByDiaWithDetails(@Param("dia") LocalDate dia);
+  @Query(SELECT_CLASE_RESPONSE + "WHERE c.dia = :dia ORDER BY c.hora ASC")
+  public List<ClaseResponseDto> findDtoByDia(@Param("dia") LocalDate dia);
 
   /**
    * Busca clases por día y hora con relaciones cargadas.
@@ -120,50 +248,30 @@ public interface ClaseRepository extends JpaRepository<Clase, Long>, JpaSpecific
   public List<Clase> findByDiaAndHoraWithDetails(@Param("dia") LocalDate dia, @Param("hora") LocalTime hora);
 
   /**
-   * Busca clases por instructor con relaciones cargadas.
+   * Busca clases por instructor proyectadas a DTO.
    * Útil para que un instructor vea sus clases asignadas.
    */
-  @Query("SELECT c FROM Clase c " +
-      "JOIN FETCH c.instructor i " +
-      "LEFT JOIN FETCH c.alumno " +
-      "LEFT JOIN FETCH c.personaPrueba " +
-      "JOIN FETCH c.caballo " +
-      "WHERE i.id = :instructorId")
-  public List<Clase> findByInstructorIdWithDetails(@Param("instructorId") Long instructorId);
+  @Query(SELECT_CLASE_RESPONSE + "WHERE i.id = :instructorId")
+  public List<ClaseResponseDto> findDtoByInstructorId(@Param("instructorId") Long instructorId);
 
   /**
-   * Busca clases por alumno con relaciones cargadas.
+   * Busca clases por alumno proyectadas a DTO.
    * Útil para que un alumno vea sus clases programadas.
    */
-  @Query("SELECT c FROM Clase c " +
-      "JOIN FETCH c.instructor " +
-      "LEFT JOIN FETCH c.alumno a " +
-      "LEFT JOIN FETCH c.personaPrueba " +
-      "JOIN FETCH c.caballo " +
-      "WHERE a.id = :alumnoId")
-  public List<Clase> findByAlumnoIdWithDetails(@Param("alumnoId") Long alumnoId);
+  @Query(SELECT_CLASE_RESPONSE + "WHERE a.id = :alumnoId")
+  public List<ClaseResponseDto> findDtoByAlumnoId(@Param("alumnoId") Long alumnoId);
 
   /**
-   * Busca clases por caballo con relaciones cargadas.
+   * Busca clases por caballo proyectadas a DTO.
    */
-  @Query("SELECT c FROM Clase c " +
-      "JOIN FETCH c.instructor " +
-      "LEFT JOIN FETCH c.alumno " +
-      "LEFT JOIN FETCH c.personaPrueba " +
-      "JOIN FETCH c.caballo cab " +
-      "WHERE cab.id = :caballoId")
-  public List<Clase> findByCaballoIdWithDetails(@Param("caballoId") Long caballoId);
+  @Query(SELECT_CLASE_RESPONSE + "WHERE cab.id = :caballoId")
+  public List<ClaseResponseDto> findDtoByCaballoId(@Param("caballoId") Long caballoId);
 
   /**
-   * Busca clases por estado con relaciones cargadas.
+   * Busca clases por estado proyectadas a DTO.
    */
-  @Query("SELECT c FROM Clase c " +
-      "JOIN FETCH c.instructor " +
-      "LEFT JOIN FETCH c.alumno " +
-      "LEFT JOIN FETCH c.personaPrueba " +
-      "JOIN FETCH c.caballo " +
-      "WHERE c.estado = :estado")
-  public List<Clase> findByEstadoWithDetails(@Param("estado") Estado estado);
+  @Query(SELECT_CLASE_RESPONSE + "WHERE c.estado = :estado")
+  public List<ClaseResponseDto> findDtoByEstado(@Param("estado") Estado estado);
 
   /**
    * Cuenta clases por caballo y estado.
@@ -174,50 +282,91 @@ public interface ClaseRepository extends JpaRepository<Clase, Long>, JpaSpecific
   // Método para copiar las clases de un período a otro
   public List<Clase> findByDiaBetween(LocalDate inicio, LocalDate fin);
 
-  // Método para eliminar las clases en un período
+  /**
+   * Clases sin plantilla de [inicio, fin] candidatas a copiarse a otra semana:
+   * id, dia, hora, duracion, alumno y caballo (ver
+   * CalendarioServiceImpl.copiarClases).
+   */
+  @Query("""
+      SELECT c.id, c.dia, c.hora, c.duracion, a.id, c.caballo.id
+      FROM Clase c
+      LEFT JOIN c.alumno a
+      WHERE c.dia BETWEEN :inicio AND :fin
+        AND c.claseRecurrente IS NULL
+      ORDER BY c.dia, c.hora, c.id
+      """)
+  public List<Object[]> findParaCopiar(
+      @Param("inicio") LocalDate inicio,
+      @Param("fin") LocalDate fin);
+
+  /**
+   * Copia en un solo INSERT ... SELECT las clases indicadas desplazadas :dias
+   * días, como PROGRAMADAS y sin observaciones. Qué clases se copian (sin
+   * conflictos en el destino) lo decide CalendarioServiceImpl.
+   */
+  @Modifying
+  @Query("""
+      INSERT INTO Clase (especialidad, dia, hora, duracion, estado, observaciones, esPrueba,
+                         instructor, alumno, caballo, personaPrueba)
+      SELECT c.especialidad, c.dia + :dias day, c.hora, c.duracion, :estado, '', c.esPrueba,
+             c.instructor, c.alumno, c.caballo, c.personaPrueba
+      FROM Clase c
+      WHERE c.id IN :ids
+      """)
+  public int copiarClasesDesplazadas(
+      @Param("ids") Collection<Long> ids,
+      @Param("dias") long dias,
+      @Param("estado") Estado estado);
+
+  // Borra las clases sin plantilla de un período (las ocurrencias materializadas las maneja su plantilla)
   @Modifying
-  @Query("DELETE FROM Clase c WHERE c.dia BETWEEN :inicio AND :fin AND c.estado = :estado")
-  public void deleteByDiaBetweenAndEstado(
+  @Query("""
+      DELETE FROM Clase c
+      WHERE c.dia BETWEEN :inicio AND :fin
+        AND c.estado = :estado
+        AND c.claseRecurrente IS NULL
+      """)
+  public void deleteSinPlantillaByDiaBetweenAndEstado(
       @Param("inicio") LocalDate inicio,
       @Param("fin") LocalDate fin,
       @Param("estado") Estado estado);
 
+  // Igual que deleteSinPlantillaByDiaBetweenAndEstado, solo en una franja horaria de un día
+  @Modifying
   @Query("""
-      SELECT COUNT(c) > 0
-      FROM Clase c
+      DELETE FROM Clase c
       WHERE c.dia = :dia
-        AND c.hora = :hora
-        AND (:id IS NULL OR c.id <> :id)
-        AND :alumnoId IS NOT NULL
-        AND c.alumno.id = :alumnoId
+        AND c.hora BETWEEN :horaInicio AND :horaFin
+        AND c.estado = :estado
+        AND c.claseRecurrente IS NULL
       """)
-  public boolean existsConflictoAlumno(
-      @Param("id") Long id,
-      @Param("dia") LocalDate dia,
-      @Param("hora") LocalTime hora,
-      @Param("alumnoId") Long alumnoId);
-
-  @Modifying
-  @Query("DELETE FROM Clase c WHERE c.dia = :dia AND c.hora BETWEEN :horaInicio AND :horaFin AND c.estado = :estado")
-  void deleteByDiaAndHoraBetweenAndEstado(
+  public void deleteSinPlantillaByDiaAndHoraBetweenAndEstado(
       @Param("dia") LocalDate dia,
       @Param("horaInicio") LocalTime horaInicio,
       @Param("horaFin") LocalTime horaFin,
       @Param("estado") Estado estado);
 
+  /**
+   * Cancela las ocurrencias materializadas de [inicio, fin] en la franja
+   * [horaInicio, horaFin] que estén en :estado. No se borran: la fila es la
+   * excepción que suprime la ocurrencia calculada, y sin ella la plantilla la
+   * volvería a mostrar (y el planificador a materializar).
+   */
+  @Modifying
   @Query("""
-      SELECT COUNT(c) > 0
-      FROM Clase c
-      WHERE c.dia = :dia
-        AND c.hora = :hora
-        AND (:id IS NULL OR c.id <> :id)
-        AND c.caballo.id = :caballoId
+      UPDATE Clase c SET c.estado = :nuevo
+      WHERE c.dia BETWEEN :inicio AND :fin
+        AND c.hora BETWEEN :horaInicio AND :horaFin
+        AND c.estado = :estado
+        AND c.claseRecurrente IS NOT NULL
       """)
-  public boolean existsConflictoCaballo(
-      @Param("id") Long id,
-      @Param("dia") LocalDate dia,
-      @Param("hora") LocalTime hora,
-      @Param("caballoId") Long caballoId);
+  public int cancelarOcurrenciasEntre(
+      @Param("inicio") LocalDate inicio,
+      @Param("fin") LocalDate fin,
+      @Param("horaInicio") LocalTime horaInicio,
+      @Param("horaFin") LocalTime horaFin,
+      @Param("estado") Estado estado,
+      @Param("nuevo") Estado nuevo);
 
   // Buscar clases de prueba de un alumno
   @Query("SELECT c FROM Clase c WHERE c.alumno.id = :alumnoId AND c.esPrueba = true")
@@ -305,6 +454,52 @@ public interface ClaseRepository extends JpaRepository<Clase, Long>, JpaSpecific
       @Param("inicio") LocalDate inicio,
       @Param("fin") LocalDate fin);
 
+  /**
+   * Cuenta las clases de un estado por instructor y mes dentro del período,
+   * en una sola consulta. Cada fila es [instructorId, año, mes, cantidad].
+   * Reemplaza a llamar contarPorInstructorYEstado por instructor y por mes.
+   */
+  @Query("""
+          SELECT c.instructor.id, YEAR(c.dia), MONTH(c.dia), COUNT(c) FROM Clase c
+          WHERE c.estado = :estado
+            AND c.dia BETWEEN :inicio AND :fin
+          GROUP BY c.instructor.id, YEAR(c.dia), MONTH(c.dia)
+      """)
+  List<Object[]> contarPorInstructorYMes(
+      @Param("estado") Estado estado,
+      @Param("inicio") LocalDate inicio,
+      @Param("fin") LocalDate fin);
+
+  /**
+   * Cuenta las clases de un estado por alumno dentro del período, en una sola
+   * consulta. Cada fila es [alumnoId, cantidad]; los alumnos sin clases no
+   * aparecen.
+   */
+  @Query("""
+          SELECT c.alumno.id, COUNT(c) FROM Clase c
+          WHERE c.estado = :estado
+            AND c.dia BETWEEN :inicio AND :fin
+            AND c.alumno IS NOT NULL
+          GROUP BY c.alumno.id
+      """)
+  List<Object[]> contarPorAlumnoYPeriodo(
+      @Param("estado") Estado estado,
+      @Param("inicio") LocalDate inicio,
+      @Param("fin") LocalDate fin);
+
+  /**
+   * Alumnos que tuvieron clases con cada instructor, por mes, dentro del
+   * período. Cada fila es [instructorId, año, mes, alumnoId].
+   */
+  @Query("""
+          SELECT DISTINCT c.instructor.id, YEAR(c.dia), MONTH(c.dia), c.alumno.id FROM Clase c
+          WHERE c.dia BETWEEN :inicio AND :fin
+            AND c.alumno IS NOT NULL
+      """)
+  List<Object[]> findAlumnoIdsPorInstructorYMes(
+      @Param("inicio") LocalDate inicio,
+      @Param("fin") LocalDate fin);
+
   public Page<Clase> findAll(Pageable pageable);
 
   public Page<Clase> findByEstado(Estado estado, Pageable pageable);
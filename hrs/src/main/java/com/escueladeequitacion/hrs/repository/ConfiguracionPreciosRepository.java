@@ -2,11 +2,28 @@ package com.escueladeequitacion.hrs.repository;
 
 import com.escueladeequitacion.hrs.model.ConfiguracionPrecios;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Optional;
+
 @Repository
 public interface ConfiguracionPreciosRepository
         extends JpaRepository<ConfiguracionPrecios, Long> {
     // El registro singleton siempre tiene id = 1.
     // Usamos findById(1L) directamente desde el service.
-}
\ No newline at end of file
+
+    // Solo la versión, para saber si hay que recargar la copia en memoria
+    @Query("SELECT COALESCE(c.version, 0) FROM ConfiguracionPrecios c WHERE c.id = 1")
+    Optional<Long> findVersion();
+
+    /**
+     * Avanza la versión en la BD. El UPDATE bloquea la fila hasta el commit,
+     * así dos nodos que guardan a la vez reciben versiones distintas.
+     * Devuelve 0 si la fila todavía no existe.
+     */
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE ConfiguracionPrecios c SET c.version = COALESCE(c.version, 0) + 1 WHERE c.id = 1")
+    int incrementarVersion();
+}
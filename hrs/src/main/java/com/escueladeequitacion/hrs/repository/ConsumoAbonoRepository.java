@@ -0,0 +1,73 @@
+package com.escueladeequitacion.hrs.repository;
+
+import com.escueladeequitacion.hrs.model.ConsumoAbono;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+
+@Repository
+public interface ConsumoAbonoRepository extends JpaRepository<ConsumoAbono, Long> {
+
+    /**
+     * Registra el consumo de una clase contra el abono ACTIVO con clases de su
+     * alumno, en un solo INSERT ... SELECT. No inserta nada (0 filas) si la
+     * clase ya tiene consumo, no tiene alumno o el alumno no tiene abono con
+     * clases: equivale a ON CONFLICT DO NOTHING sin depender del motor.
+     *
+     * Dos registros concurrentes de la misma clase quedan en serie por el
+     * bloqueo de la fila de la clase (ClaseRepository.bloquearParaConsumo)
+     * que lo precede. No alcanza con capturar la violación de la restricción
+     * única: deja la transacción del llamador marcada para rollback.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO consumos_abono (clase_id, abono_id, alumno_id, dia, registrado_en)
+            SELECT c.id, a.id, c.alumno_id, c.dia, :ahora
+              FROM clases c
+              JOIN abonos a ON a.alumno_id = c.alumno_id
+             WHERE c.id = :claseId
+               AND a.id = (SELECT MIN(b.id) FROM abonos b
+                            WHERE b.alumno_id = c.alumno_id
+                              AND b.estado = 'ACTIVO'
+                              AND b.clases_restantes > 0)
+               AND NOT EXISTS (SELECT 1 FROM consumos_abono x WHERE x.clase_id = c.id)
+            """, nativeQuery = true)
+    int registrar(@Param("claseId") Long claseId, @Param("ahora") LocalDateTime ahora);
+
+    /**
+     * Siembra el libro con las clases COMPLETADA/ASA que no tienen consumo,
+     * cada una contra el abono de su alumno vigente el día de la clase (el de
+     * menor id si hay varios). No descuenta nada: es el corte desde el
+     * contador anterior, que ya las había descontado.
+     */
+    @Modifying
+    @Query(value = """
+            INSERT INTO consumos_abono (clase_id, abono_id, alumno_id, dia, registrado_en)
+            SELECT c.id, MIN(a.id), c.alumno_id, c.dia, :ahora
+              FROM clases c
+              JOIN abonos a ON a.alumno_id = c.alumno_id
+                           AND c.dia BETWEEN a.fecha_contratacion AND a.fecha_vencimiento
+             WHERE c.estado IN ('COMPLETADA', 'ASA')
+               AND NOT EXISTS (SELECT 1 FROM consumos_abono x WHERE x.clase_id = c.id)
+             GROUP BY c.id, c.alumno_id, c.dia
+            """, nativeQuery = true)
+    int sembrarDesdeClases(@Param("ahora") LocalDateTime ahora);
+
+    boolean existsBy();
+
+    /**
+     * Quita el consumo recién registrado cuando el abono se quedó sin clases
+     * entre el INSERT y el descuento (otra clase del mismo abono ganó la
+     * última), antes de reintentar contra el siguiente abono. Solo se usa
+     * dentro de la misma transacción; es SQL nativo porque la entidad es
+     * @Immutable.
+     */
+    @Modifying
+    @Query(value = "DELETE FROM consumos_abono WHERE clase_id = :claseId", nativeQuery = true)
+    int deshacer(@Param("claseId") Long claseId);
+}
@@ -0,0 +1,38 @@
+package com.escueladeequitacion.hrs.repository;
+
+import com.escueladeequitacion.hrs.model.ContadorFactura;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ContadorFacturaRepository extends JpaRepository<ContadorFactura, Integer> {
+
+    /**
+     * Avanza el contador del año en "cantidad" números. El UPDATE bloquea la
+     * fila hasta el fin de la transacción, así las reservas de distintos
+     * nodos quedan en serie.
+     *
+     * @return 0 si el año todavía no tiene contador
+     */
+    @Modifying
+    @Query("UPDATE ContadorFactura c SET c.siguiente = c.siguiente + :cantidad WHERE c.anio = :anio")
+    int avanzar(@Param("anio") Integer anio, @Param("cantidad") long cantidad);
+
+    @Query("SELECT c.siguiente FROM ContadorFactura c WHERE c.anio = :anio")
+    Optional<Long> findSiguiente(@Param("anio") Integer anio);
+
+    /**
+     * Crea el contador de un año. Es un INSERT explícito (no save/merge) para
+     * que, si otro nodo lo creó al mismo tiempo, falle por clave duplicada en
+     * lugar de pisarlo.
+     */
+    @Modifying
+    @Query(value = "INSERT INTO contadores_factura (anio, siguiente) VALUES (:anio, :siguiente)", nativeQuery = true)
+    int crear(@Param("anio") Integer anio, @Param("siguiente") long siguiente);
+}
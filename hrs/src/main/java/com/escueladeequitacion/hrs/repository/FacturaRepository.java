@@ -55,7 +55,8 @@ public interface FacturaRepository extends JpaRepository<Factura, Long> {
     long countByEstado(EstadoFactura estado);
 
     /**
-     * Obtiene el último número de factura para generar el siguiente.
+     * Obtiene el último número de factura de un año. Solo se usa para crear
+     * el contador del año (NumeradorFacturas).
      */
     @Query("SELECT MAX(f.numeroFactura) FROM Factura f WHERE f.numeroFactura LIKE :patron")
     Optional<String> findUltimoNumeroFactura(@Param("patron") String patron);
@@ -39,6 +39,12 @@ public interface PlanAbonoRepository extends JpaRepository<PlanAbono, Long> {
             "ORDER BY p.tipoClase, p.cantidadClases")
     List<PlanAbono> findAllVigentes(@Param("fecha") LocalDate fecha);
 
+    /**
+     * Todos los planes activos con su período, para armar TablaPreciosPlanes.
+     */
+    @Query("SELECT p FROM PlanAbono p LEFT JOIN FETCH p.periodoVigencia WHERE p.activo = true")
+    List<PlanAbono> findAllActivosConPeriodo();
+
     /**
      * Lista planes por tipo de clase.
      */
@@ -32,4 +32,10 @@ public interface PlanPensionRepository extends JpaRepository<PlanPension, Long>
             ":fecha BETWEEN p.fechaVigenciaDesde AND p.fechaVigenciaHasta " +
             "ORDER BY p.cantidadClases")
     List<PlanPension> findAllVigentes(@Param("fecha") LocalDate fecha);
-}
\ No newline at end of file
+
+    /**
+     * Todos los planes activos con su período, para armar TablaPreciosPlanes.
+     */
+    @Query("SELECT p FROM PlanPension p LEFT JOIN FETCH p.periodoVigencia WHERE p.activo = true")
+    List<PlanPension> findAllActivosConPeriodo();
+}
@@ -0,0 +1,33 @@
+package com.escueladeequitacion.hrs.repository;
+
+import com.escueladeequitacion.hrs.model.ResumenMensual;
+
+import jakarta.persistence.LockModeType;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface ResumenMensualRepository extends JpaRepository<ResumenMensual, Long> {
+
+    List<ResumenMensual> findByMesBetween(LocalDate desde, LocalDate hasta);
+
+    boolean existsByMesAndCerradoTrue(LocalDate mes);
+
+    @Query("SELECT DISTINCT r.mes FROM ResumenMensual r WHERE r.cerrado = true AND r.mes BETWEEN :desde AND :hasta")
+    List<LocalDate> findMesesCerrados(@Param("desde") LocalDate desde, @Param("hasta") LocalDate hasta);
+
+    /**
+     * Filas abiertas del mes, bloqueadas hasta el fin de la transacción para
+     * que dos recálculos o recuentos del mismo mes no se pisen.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM ResumenMensual r WHERE r.mes = :mes AND r.cerrado = false")
+    List<ResumenMensual> findAbiertosParaActualizar(@Param("mes") LocalDate mes);
+}
@@ -9,6 +9,8 @@ import jakarta.persistence.criteria.JoinType;
 import jakarta.persistence.criteria.Predicate;
 import org.springframework.data.jpa.domain.Specification;
 
+import java.time.LocalDate;
+import java.time.LocalTime;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -68,4 +70,21 @@ public class ClaseSpecification {
             return cb.and(predicates.toArray(new Predicate[0]));
         };
     }
+
+    /**
+     * Clases estrictamente anteriores a (dia, hora, id) en el orden
+     * dia DESC, hora DESC, id DESC. Es la comparación de tuplas
+     * (dia, hora, id) < (:dia, :hora, :id) expandida, porque JPA no la admite.
+     */
+    public static Specification<Clase> anteriorA(LocalDate dia, LocalTime hora, Long id) {
+        return (root, query, cb) -> cb.or(
+                cb.lessThan(root.get("dia"), dia),
+                cb.and(
+                        cb.equal(root.get("dia"), dia),
+                        cb.or(
+                                cb.lessThan(root.get("hora"), hora),
+                                cb.and(
+                                        cb.equal(root.get("hora"), hora),
+                                        cb.lessThan(root.get("id"), id)))));
+    }
 }
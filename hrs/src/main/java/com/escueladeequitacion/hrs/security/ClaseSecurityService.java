@@ -6,11 +6,8 @@ import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.web.server.ResponseStatusException;
 
-import com.escueladeequitacion.hrs.model.Instructor;
-import com.escueladeequitacion.hrs.model.Alumno;
 import com.escueladeequitacion.hrs.repository.ClaseRepository;
-import com.escueladeequitacion.hrs.repository.InstructorRepository;
-import com.escueladeequitacion.hrs.repository.AlumnoRepository;
+import com.escueladeequitacion.hrs.security.IdentidadUsuarioCache.IdentidadUsuario;
 
 @Service("claseSecurityService")
 public class ClaseSecurityService {
@@ -19,13 +16,7 @@ public class ClaseSecurityService {
     private ClaseRepository claseRepository;
 
     @Autowired
-    private InstructorRepository instructorRepository;
-
-    @Autowired
-    private AlumnoRepository alumnoRepository;
-
-    @Autowired
-    private UserRepository userRepository;
+    private IdentidadUsuarioCache identidadUsuarioCache;
 
     /**
      * Verifica si el usuario autenticado puede modificar una clase.
@@ -47,13 +38,8 @@ public class ClaseSecurityService {
                 throw new ResponseStatusException(HttpStatus.FORBIDDEN,
                         "Tu cuenta de instructor no está vinculada a un perfil. Contactá al administrador.");
             }
-            return claseRepository.findById(claseId)
-                    .map(clase -> {
-                        Long classInstructorId = (clase.getInstructor() != null)
-                                ? clase.getInstructor().getId()
-                                : null;
-                        return instructorId.equals(classInstructorId);
-                    })
+            return claseRepository.findInstructorIdById(claseId)
+                    .map(instructorId::equals)
                     .orElse(false);
         }
 
@@ -62,13 +48,8 @@ public class ClaseSecurityService {
             if (alumnoId == null) {
                 return false;
             }
-            return claseRepository.findById(claseId)
-                    .map(clase -> {
-                        Long classAlumnoId = (clase.getAlumno() != null)
-                                ? clase.getAlumno().getId()
-                                : null;
-                        return alumnoId.equals(classAlumnoId);
-                    })
+            return claseRepository.findAlumnoIdById(claseId)
+                    .map(alumnoId::equals)
                     .orElse(false);
         }
 
@@ -77,43 +58,14 @@ public class ClaseSecurityService {
 
     /**
      * Resuelve el ID del Instructor a partir de la autenticación.
-     * Estrategia: email del username → email del User → DNI del User.
+     * Estrategia: campo directo del User → email del username → email del
+     * User → DNI del User (resuelto y cacheado por IdentidadUsuarioCache).
      */
     public Long getInstructorId(Authentication auth) {
         if (auth == null || !auth.isAuthenticated())
             return null;
 
-        String username = auth.getName();
-        User user = userRepository.findByUsername(username).orElse(null);
-
-        // NUEVO: campo directo — estrategia 0
-        if (user != null && user.getInstructorId() != null) {
-            return user.getInstructorId();
-        }
-
-        // Fallback 1: username == email del instructor
-        Instructor byUsername = instructorRepository.findByEmailIgnoreCase(username).orElse(null);
-        if (byUsername != null)
-            return byUsername.getId();
-
-        if (user != null) {
-            // Fallback 2: email del User
-            if (user.getEmail() != null) {
-                Instructor byEmail = instructorRepository
-                        .findByEmailIgnoreCase(user.getEmail()).orElse(null);
-                if (byEmail != null)
-                    return byEmail.getId();
-            }
-            // Fallback 3: DNI
-            if (user.getPersonaDni() != null) {
-                Instructor byDni = instructorRepository
-                        .findByDni(user.getPersonaDni().toString()).orElse(null);
-                if (byDni != null)
-                    return byDni.getId();
-            }
-        }
-
-        return null;
+        return identidadUsuarioCache.obtener(auth.getName()).instructorId();
     }
 
     /**
@@ -144,16 +96,9 @@ public class ClaseSecurityService {
         if (esAdmin(auth) || esInstructor(auth))
             return true;
 
-        // ALUMNO: verificar que el alumnoId corresponde a su perfil
-        User user = userRepository.findByUsername(auth.getName()).orElse(null);
-        if (user == null || user.getPersonaDni() == null)
-            return false;
-
-        Alumno alumno = alumnoRepository.findByDni(user.getPersonaDni().toString()).orElse(null);
-        if (alumno == null)
-            return false;
-
-        return alumno.getId().equals(alumnoId);
+        // ALUMNO: verificar que el alumnoId corresponde a su perfil (por DNI)
+        Long propio = identidadUsuarioCache.obtener(auth.getName()).alumnoIdPorDni();
+        return propio != null && propio.equals(alumnoId);
     }
 
     /**
@@ -165,11 +110,11 @@ public class ClaseSecurityService {
         if (esAdmin(auth) || esInstructor(auth))
             return true;
 
-        User user = userRepository.findByUsername(auth.getName()).orElse(null);
-        if (user == null || user.getPersonaDni() == null)
+        IdentidadUsuario identidad = identidadUsuarioCache.obtener(auth.getName());
+        if (identidad.personaDni() == null)
             return false;
 
-        return user.getPersonaDni().toString().equals(dni);
+        return identidad.personaDni().toString().equals(dni);
     }
 
     /**
@@ -181,23 +126,8 @@ public class ClaseSecurityService {
         if (auth == null || !auth.isAuthenticated())
             return null;
 
-        User user = userRepository.findByUsername(auth.getName()).orElse(null);
-        if (user == null)
-            return null;
-
-        // NUEVO: campo directo — estrategia 0
-        if (user.getAlumnoId() != null)
-            return user.getAlumnoId();
-
-        // Fallback: por DNI
-        if (user.getPersonaDni() != null) {
-            Alumno alumno = alumnoRepository
-                    .findByDni(user.getPersonaDni().toString()).orElse(null);
-            if (alumno != null)
-                return alumno.getId();
-        }
-
-        return null;
+        // Campo directo del User; si falta, por DNI
+        return identidadUsuarioCache.obtener(auth.getName()).alumnoId();
     }
 
     // ── Helpers privados ─────────────────────────────────────────
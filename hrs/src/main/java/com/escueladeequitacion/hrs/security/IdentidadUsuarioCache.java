@@ -0,0 +1,112 @@
+package com.escueladeequitacion.hrs.security;
+
+import com.escueladeequitacion.hrs.model.Alumno;
+import com.escueladeequitacion.hrs.model.Instructor;
+import com.escueladeequitacion.hrs.repository.AlumnoRepository;
+import com.escueladeequitacion.hrs.repository.InstructorRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caché username → perfil vinculado (instructor / alumno) que usan las
+ * expresiones de @PreAuthorize vía ClaseSecurityService.
+ *
+ * Resolver un usuario cuesta hasta cinco consultas (User y los fallbacks por
+ * email y DNI); acá se hace una vez cada app.seguridad.identidad-ttl-segundos
+ * por usuario. AuthController invalida la entrada al modificar o eliminar el
+ * usuario; los cambios en el email o DNI de un Instructor/Alumno se ven al
+ * vencer el TTL. Los roles no se guardan: vienen en la Authentication.
+ */
+@Component
+public class IdentidadUsuarioCache {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private InstructorRepository instructorRepository;
+
+    @Autowired
+    private AlumnoRepository alumnoRepository;
+
+    @Value("${app.seguridad.identidad-ttl-segundos:300}")
+    private long ttlSegundos;
+
+    private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+
+    public IdentidadUsuario obtener(String username) {
+        long ahora = System.currentTimeMillis();
+        Entrada entrada = entradas.get(username);
+        if (entrada == null || entrada.vence() < ahora) {
+            entrada = new Entrada(resolver(username), ahora + ttlSegundos * 1000);
+            entradas.put(username, entrada);
+        }
+        return entrada.identidad();
+    }
+
+    public void invalidar(String username) {
+        if (username != null) {
+            entradas.remove(username);
+        }
+    }
+
+    // ── Resolución ───────────────────────────────────────────────────────────
+
+    private IdentidadUsuario resolver(String username) {
+        User user = userRepository.findByUsername(username).orElse(null);
+        Integer personaDni = user != null ? user.getPersonaDni() : null;
+        Long alumnoIdPorDni = personaDni != null
+                ? alumnoRepository.findByDni(personaDni.toString()).map(Alumno::getId).orElse(null)
+                : null;
+        Long alumnoId = user != null && user.getAlumnoId() != null ? user.getAlumnoId() : alumnoIdPorDni;
+        return new IdentidadUsuario(resolverInstructorId(username, user), alumnoId, alumnoIdPorDni, personaDni);
+    }
+
+    /**
+     * Estrategia: campo directo → email del username → email del User → DNI
+     * del User.
+     */
+    private Long resolverInstructorId(String username, User user) {
+        if (user != null && user.getInstructorId() != null) {
+            return user.getInstructorId();
+        }
+
+        Instructor byUsername = instructorRepository.findByEmailIgnoreCase(username).orElse(null);
+        if (byUsername != null)
+            return byUsername.getId();
+
+        if (user != null) {
+            if (user.getEmail() != null) {
+                Instructor byEmail = instructorRepository
+                        .findByEmailIgnoreCase(user.getEmail()).orElse(null);
+                if (byEmail != null)
+                    return byEmail.getId();
+            }
+            if (user.getPersonaDni() != null) {
+                Instructor byDni = instructorRepository
+                        .findByDni(user.getPersonaDni().toString()).orElse(null);
+                if (byDni != null)
+                    return byDni.getId();
+            }
+        }
+        return null;
+    }
+
+    // ── Estructuras internas ─────────────────────────────────────────────────
+
+    /**
+     * Perfil resuelto de un usuario. alumnoId usa el campo directo del User y
+     * si falta el DNI; alumnoIdPorDni solo el DNI (lo que compara
+     * esElMismoAlumno).
+     */
+    public record IdentidadUsuario(Long instructorId, Long alumnoId, Long alumnoIdPorDni, Integer personaDni) {
+    }
+
+    private record Entrada(IdentidadUsuario identidad, long vence) {
+    }
+}
@@ -0,0 +1,48 @@
+package com.escueladeequitacion.hrs.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Autentica los requests con "Authorization: Bearer <token de acceso>".
+ * Solo verifica la firma y el vencimiento (TokenService): no consulta la BD.
+ * Un token inválido se ignora y el request sigue sin autenticar, así los
+ * endpoints protegidos responden 401 desde el entry point.
+ */
+public class TokenAuthenticationFilter extends OncePerRequestFilter {
+
+    private static final String PREFIJO = "Bearer ";
+
+    private final TokenService tokenService;
+
+    public TokenAuthenticationFilter(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String header = request.getHeader("Authorization");
+        if (header != null && header.startsWith(PREFIJO)) {
+            TokenService.TokenValido token = tokenService.validar(header.substring(PREFIJO.length()).trim(),
+                    TokenService.TIPO_ACCESO);
+            if (token != null) {
+                UsernamePasswordAuthenticationToken auth = UsernamePasswordAuthenticationToken.authenticated(
+                        token.username(), null,
+                        List.of(new SimpleGrantedAuthority("ROLE_" + token.rol().name())));
+                SecurityContextHolder.getContext().setAuthentication(auth);
+            }
+        }
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,178 @@
+package com.escueladeequitacion.hrs.security;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.env.Environment;
+import org.springframework.core.env.Profiles;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Emite y valida los tokens de sesión: JWT firmados con HMAC-SHA256 con una
+ * clave propia del servidor (app.token.secreto).
+ *
+ * - Token de acceso: corta duración (app.token.acceso-minutos). Lo valida
+ * TokenAuthenticationFilter en cada request sin ir a la BD ni a BCrypt.
+ * - Token de refresco: larga duración (app.token.refresco-dias). Solo sirve
+ * en POST /api/v1/auth/refresh, que sí verifica que el usuario siga activo.
+ *
+ * Como el token de acceso no se consulta contra la BD, un usuario desactivado
+ * o con rol cambiado conserva el anterior hasta que vence. El token de
+ * refresco tampoco se guarda: no se rota al usarlo ni se puede revocar uno
+ * solo; sirve hasta que vence o hasta que se desactiva el usuario.
+ *
+ * Sin app.token.secreto la aplicación no arranca, salvo en los perfiles
+ * local (el que se usa si no se indica SPRING_PROFILE), dev y loadtest, que
+ * usan una clave aleatoria por proceso.
+ */
+@Service
+public class TokenService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TokenService.class);
+
+    public static final String TIPO_ACCESO = "acceso";
+    public static final String TIPO_REFRESCO = "refresco";
+
+    // Perfiles que pueden arrancar sin app.token.secreto
+    private static final Profiles SIN_SECRETO = Profiles.of("local", "dev", "loadtest");
+
+    private static final String ALGORITMO = "HmacSHA256";
+    private static final String CABECERA = base64(
+            "{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SecretKeySpec clave;
+    private final long accesoSegundos;
+    private final long refrescoSegundos;
+
+    public TokenService(@Value("${app.token.secreto:}") String secreto,
+            @Value("${app.token.acceso-minutos:15}") long accesoMinutos,
+            @Value("${app.token.refresco-dias:7}") long refrescoDias,
+            Environment entorno) {
+        byte[] bytes = secreto.getBytes(StandardCharsets.UTF_8);
+        if (secreto.isBlank()) {
+            // Con una clave por proceso cada nodo rechaza los tokens de los demás
+            if (!entorno.acceptsProfiles(SIN_SECRETO)) {
+                throw new IllegalStateException(
+                        "app.token.secreto (TOKEN_SECRET) es obligatorio fuera de los perfiles local, dev y loadtest");
+            }
+            bytes = new byte[32];
+            new SecureRandom().nextBytes(bytes);
+            logger.warn("app.token.secreto no está configurado: se usa una clave aleatoria y los tokens "
+                    + "dejan de valer al reiniciar");
+        } else if (bytes.length < 32) {
+            throw new IllegalStateException("app.token.secreto debe tener al menos 32 bytes");
+        }
+        this.clave = new SecretKeySpec(bytes, ALGORITMO);
+        this.accesoSegundos = accesoMinutos * 60;
+        this.refrescoSegundos = refrescoDias * 24 * 3600;
+    }
+
+    // ── Emisión ──────────────────────────────────────────────────────────────
+
+    public String emitirAcceso(User user) {
+        return emitir(user, TIPO_ACCESO, accesoSegundos);
+    }
+
+    public String emitirRefresco(User user) {
+        return emitir(user, TIPO_REFRESCO, refrescoSegundos);
+    }
+
+    public long getAccesoSegundos() {
+        return accesoSegundos;
+    }
+
+    private String emitir(User user, String tipo, long duracion) {
+        long ahora = Instant.now().getEpochSecond();
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", user.getUsername());
+        claims.put("uid", user.getId());
+        claims.put("rol", user.getRol().name());
+        claims.put("typ", tipo);
+        claims.put("iat", ahora);
+        claims.put("exp", ahora + duracion);
+
+        String cuerpo;
+        try {
+            cuerpo = base64(objectMapper.writeValueAsBytes(claims));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo serializar el token", e);
+        }
+        String firmado = CABECERA + "." + cuerpo;
+        return firmado + "." + base64(firmar(firmado));
+    }
+
+    // ── Validación ───────────────────────────────────────────────────────────
+
+    /**
+     * Valida firma, tipo y vencimiento. Devuelve null si el token no es válido.
+     */
+    public TokenValido validar(String token, String tipoEsperado) {
+        if (token == null) {
+            return null;
+        }
+        int primerPunto = token.indexOf('.');
+        int ultimoPunto = token.lastIndexOf('.');
+        if (primerPunto < 0 || primerPunto == ultimoPunto) {
+            return null;
+        }
+        String firmado = token.substring(0, ultimoPunto);
+        if (!CABECERA.equals(token.substring(0, primerPunto))) {
+            return null;
+        }
+
+        try {
+            byte[] firma = Base64.getUrlDecoder().decode(token.substring(ultimoPunto + 1));
+            if (!MessageDigest.isEqual(firma, firmar(firmado))) {
+                return null;
+            }
+            Map<?, ?> claims = objectMapper.readValue(
+                    Base64.getUrlDecoder().decode(token.substring(primerPunto + 1, ultimoPunto)), Map.class);
+            if (!tipoEsperado.equals(claims.get("typ"))
+                    || ((Number) claims.get("exp")).longValue() <= Instant.now().getEpochSecond()) {
+                return null;
+            }
+            return new TokenValido((String) claims.get("sub"), ((Number) claims.get("uid")).longValue(),
+                    RolSeguridad.valueOf((String) claims.get("rol")));
+        } catch (IllegalArgumentException | ClassCastException | NullPointerException | IOException e) {
+            logger.debug("Token rechazado: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private byte[] firmar(String contenido) {
+        try {
+            Mac mac = Mac.getInstance(ALGORITMO);
+            mac.init(clave);
+            return mac.doFinal(contenido.getBytes(StandardCharsets.UTF_8));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("No se pudo firmar el token", e);
+        }
+    }
+
+    private static String base64(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * Datos de un token válido.
+     */
+    public record TokenValido(String username, Long userId, RolSeguridad rol) {
+    }
+}
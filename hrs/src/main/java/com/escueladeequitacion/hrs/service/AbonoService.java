@@ -6,6 +6,7 @@ import com.escueladeequitacion.hrs.dto.InscripcionRequestDto;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -25,11 +26,23 @@ public interface AbonoService {
     public Optional<Abono> obtenerAbonoActivo(Long alumnoId);
 
     /**
-     * Descuenta una clase del abono cuando el alumno toma una clase.
-     * Este método se llama desde ClaseService al completar una clase.
+     * Descuenta del abono activo del alumno una clase completada (o ausente
+     * sin aviso). Es idempotente: cada clase se cobra una sola vez aunque
+     * vuelva a pasar por COMPLETADA.
+     *
+     * @return true si la clase se descontó ahora; false si ya estaba
+     *         descontada o el alumno no tiene abono con clases
      */
     @Transactional
-    public void descontarClase(Long abonoId);
+    public boolean registrarConsumo(Long claseId);
+
+    /**
+     * registrarConsumo para varias clases (barrido de ClaseService).
+     *
+     * @return cantidad de clases descontadas
+     */
+    @Transactional
+    public int registrarConsumos(Collection<Long> claseIds);
 
     /**
      * Cancela un abono.
@@ -60,8 +73,9 @@ public interface AbonoService {
     public List<Abono> listarAbonosPorEstado(EstadoAbono estado);
 
     /**
-     * Actualiza abonos vencidos (tarea programada).
-     * Cambia el estado de ACTIVO a VENCIDO si la fecha de vencimiento ya pasó.
+     * Actualiza abonos vencidos (tarea programada, todos los días a las
+     * 00:05). Cambia el estado de ACTIVO a VENCIDO si la fecha de vencimiento
+     * ya pasó y publica un AbonosVencidosEvent con los IDs.
      */
     @Transactional
     public void actualizarAbonosVencidos();
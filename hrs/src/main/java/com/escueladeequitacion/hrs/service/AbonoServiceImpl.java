@@ -13,20 +13,53 @@ import com.escueladeequitacion.hrs.model.Alumno;
 import com.escueladeequitacion.hrs.model.Caballo;
 import com.escueladeequitacion.hrs.repository.AlumnoRepository;
 import com.escueladeequitacion.hrs.repository.CaballoRepository;
+import com.escueladeequitacion.hrs.repository.ClaseRepository;
+import com.escueladeequitacion.hrs.repository.ConsumoAbonoRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import io.micrometer.core.instrument.Timer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Service
 public class AbonoServiceImpl implements AbonoService {
 
+    private static final Logger logger = LoggerFactory.getLogger(AbonoServiceImpl.class);
+
+    private static final ZoneId ZONA = ZoneId.of("America/Argentina/Buenos_Aires");
+
+    // Cada intento descarta un abono que se quedó sin clases; más de tres
+    // abonos ACTIVOS a la vez para un mismo alumno no es un caso real
+    private static final int MAX_INTENTOS_CONSUMO = 3;
+
     @Autowired
     private AbonoRepository abonoRepository;
 
+    @Autowired
+    private ConsumoAbonoRepository consumoAbonoRepository;
+
+    @Autowired
+    private ClaseRepository claseRepository;
+
     @Autowired
     private AlumnoRepository alumnoRepository;
 
@@ -39,6 +72,23 @@ public class AbonoServiceImpl implements AbonoService {
     @Autowired
     private FacturacionService facturacionService;
 
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate txNueva;
+
+    @PostConstruct
+    void inicializar() {
+        txNueva = new TransactionTemplate(transactionManager);
+        txNueva.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
     /**
      * Crea un nuevo abono desde una inscripción.
      * Este es el método principal que se llama cuando un alumno se inscribe.
@@ -101,16 +151,74 @@ public class AbonoServiceImpl implements AbonoService {
     }
 
     /**
-     * Descuenta una clase del abono cuando el alumno toma una clase.
-     * Este método se llama desde ClaseService al completar una clase.
+     * Registra el consumo de la clase en consumos_abono y, si la fila es
+     * nueva, lo descuenta del abono en la misma transacción. Son dos
+     * sentencias sin lecturas previas; ninguna se repite si la clase ya se
+     * había cobrado.
+     *
+     * Si otra clase del mismo abono se llevó la última entre el INSERT y el
+     * UPDATE, se deshace el consumo y se vuelve a registrar: el INSERT ya no
+     * elige ese abono (está sin clases o FINALIZADO) y pasa al siguiente
+     * ACTIVO del alumno. Termina cuando descuenta o cuando no queda abono con
+     * clases (registrar inserta 0 filas).
+     *
+     * Antes de nada bloquea la fila de la clase: un registro concurrente de
+     * la misma clase espera a que este confirme y su INSERT no inserta nada,
+     * como una clase ya cobrada, en vez de chocar con la restricción única.
      */
     @Transactional
-    public void descontarClase(Long abonoId) {
-        Abono abono = abonoRepository.findById(abonoId)
-                .orElseThrow(() -> new ResourceNotFoundException("Abono", "ID", abonoId));
+    public boolean registrarConsumo(Long claseId) {
+        if (claseRepository.bloquearParaConsumo(claseId).isEmpty()) {
+            return false;
+        }
+        for (int intento = 1; intento <= MAX_INTENTOS_CONSUMO; intento++) {
+            if (consumoAbonoRepository.registrar(claseId, LocalDateTime.now()) == 0) {
+                return false;
+            }
+            if (abonoRepository.descontarClaseConsumida(claseId) > 0) {
+                return true;
+            }
+            consumoAbonoRepository.deshacer(claseId);
+        }
+        logger.warn("Clase {}: no se pudo descontar del abono tras {} intentos", claseId, MAX_INTENTOS_CONSUMO);
+        return false;
+    }
 
-        abono.descontarClase();
-        abonoRepository.save(abono);
+    /**
+     * Corte al libro de consumos: las clases COMPLETADA/ASA de antes de
+     * consumos_abono ya se descontaron con el contador anterior, pero no
+     * tienen fila, y volver a completarlas las cobraría otra vez. Si el libro
+     * está vacío (primer arranque con esta versión), se siembra una fila por
+     * cada una contra el abono del alumno vigente ese día, sin tocar
+     * clasesRestantes. Las que no tienen abono vigente quedan sin fila.
+     *
+     * Corre en su propia transacción: si otro nodo arranca a la vez y siembra
+     * primero, el INSERT choca con la restricción única de clase_id y el
+     * libro ya quedó sembrado por ese nodo.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void sembrarConsumosAnteriores() {
+        try {
+            int sembrados = txNueva.execute(status -> consumoAbonoRepository.existsBy()
+                    ? 0
+                    : consumoAbonoRepository.sembrarDesdeClases(LocalDateTime.now()));
+            if (sembrados > 0) {
+                logger.info("Libro de consumos: {} clases anteriores registradas sin descontar", sembrados);
+            }
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Libro de consumos sembrado por otro nodo");
+        }
+    }
+
+    @Transactional
+    public int registrarConsumos(Collection<Long> claseIds) {
+        int descontadas = 0;
+        for (Long claseId : claseIds) {
+            if (registrarConsumo(claseId)) {
+                descontadas++;
+            }
+        }
+        return descontadas;
     }
 
     /**
@@ -184,15 +292,34 @@ public class AbonoServiceImpl implements AbonoService {
     /**
      * Actualiza abonos vencidos (tarea programada).
      * Cambia el estado de ACTIVO a VENCIDO si la fecha de vencimiento ya pasó.
+     * Lee y bloquea los IDs (por idx_abono_vigencia) y los vence con un único
+     * UPDATE sobre esos IDs, así el AbonosVencidosEvent lleva exactamente los
+     * abonos que cambiaron.
+     * Métricas: hrs.abonos.vencimiento (duración del barrido) y
+     * hrs.abonos.vencidos (abonos que venció).
      */
     @Transactional
+    @Scheduled(cron = "0 5 0 * * *", zone = "America/Argentina/Buenos_Aires")
     public void actualizarAbonosVencidos() {
-        List<Abono> abonosVencidos = abonoRepository.findAbonosVencidos(LocalDate.now());
-
-        for (Abono abono : abonosVencidos) {
-            abono.setEstado(EstadoAbono.VENCIDO);
-            abonoRepository.save(abono);
+        Timer.Sample muestra = Timer.start(meterRegistry);
+        LocalDate hoy = LocalDate.now(ZONA);
+
+        List<Long> ids = abonoRepository.findIdsAbonosVencidos(hoy);
+        int vencidos = ids.isEmpty() ? 0 : abonoRepository.vencerAbonos(ids);
+        if (vencidos == ids.size()) {
+            if (vencidos > 0) {
+                eventPublisher.publishEvent(new AbonosVencidosEvent(hoy, ids));
+            }
+        } else {
+            // No debería pasar con las filas bloqueadas: sin saber cuáles
+            // cambiaron, no se publica una lista que no corresponde
+            logger.error("Vencimiento de abonos: {} IDs bloqueados y {} actualizados; no se publica el evento",
+                    ids.size(), vencidos);
         }
+
+        meterRegistry.counter("hrs.abonos.vencidos").increment(vencidos);
+        long nanos = muestra.stop(meterRegistry.timer("hrs.abonos.vencimiento"));
+        logger.info("Abonos vencidos al {}: {} en {} ms", hoy, vencidos, nanos / 1_000_000);
     }
 
     // Métodos auxiliares privados
@@ -0,0 +1,17 @@
+package com.escueladeequitacion.hrs.service;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Evento que publica AbonoServiceImpl.actualizarAbonosVencidos con los abonos
+ * que pasaron de ACTIVO a VENCIDO. Se publica dentro de la transacción del
+ * vencimiento: los consumidores que necesiten ver el cambio confirmado deben
+ * escucharlo con @TransactionalEventListener (AFTER_COMMIT por defecto).
+ *
+ * @param fecha    día del barrido (vencieron los abonos con vencimiento
+ *                 anterior a esta fecha)
+ * @param abonoIds IDs de los abonos vencidos
+ */
+public record AbonosVencidosEvent(LocalDate fecha, List<Long> abonoIds) {
+}
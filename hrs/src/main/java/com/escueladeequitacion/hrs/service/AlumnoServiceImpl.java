@@ -38,6 +38,9 @@ public class AlumnoServiceImpl implements AlumnoService {
     private AlumnoRepository alumnoRepository;
     @Autowired
     private CaballoRepository caballoRepository;
+    // Los cambios de plan, pensión, altas y bajas cambian los ingresos del mes
+    @Autowired
+    private ResumenMensualService resumenMensualService;
 
     @Override
     public List<Alumno> listarAlumnos() {
@@ -192,6 +195,7 @@ public class AlumnoServiceImpl implements AlumnoService {
         }
 
         alumnoRepository.save(alumno);
+        resumenMensualService.recalcularMesActual();
     };
 
     @Override
@@ -214,12 +218,14 @@ public class AlumnoServiceImpl implements AlumnoService {
 
         // 4. Guardar los cambios
         alumnoRepository.save(alumnoExistente);
+        resumenMensualService.recalcularMesActual();
     };
 
     @Override
     public void eliminarAlumno(Long id) {
         obtenerAlumnoOLanzarExcepcion(id);
         alumnoRepository.deleteById(id);
+        resumenMensualService.recalcularMesActual();
     };
 
     @Override
@@ -235,6 +241,7 @@ public class AlumnoServiceImpl implements AlumnoService {
         // 3. Inactivar
         alumno.setActivo(false);
         alumnoRepository.save(alumno);
+        resumenMensualService.recalcularMesActual();
     };
 
     /**
@@ -283,6 +290,7 @@ public class AlumnoServiceImpl implements AlumnoService {
         }
 
         Alumno alumnoGuardado = alumnoRepository.save(alumno);
+        resumenMensualService.recalcularMesActual();
         return alumnoGuardado;
     }
 
@@ -341,6 +349,7 @@ public class AlumnoServiceImpl implements AlumnoService {
 
         // 7. Guardar
         alumnoRepository.save(alumnoExistente);
+        resumenMensualService.recalcularMesActual();
     }
 
     @Override
@@ -444,6 +453,7 @@ public class AlumnoServiceImpl implements AlumnoService {
         alumno.setCantidadClases(cantidadClases);
 
         alumnoRepository.save(alumno);
+        resumenMensualService.recalcularMesActual();
     }
 
     /**
@@ -2,6 +2,11 @@ package com.escueladeequitacion.hrs.service;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.util.List;
+
+import com.escueladeequitacion.hrs.dto.ClaseResponseDto;
+import com.escueladeequitacion.hrs.dto.DisponibilidadDto;
+import com.escueladeequitacion.hrs.enums.Especialidad;
 
 // Interfaz para el servicio de calendario
 public interface CalendarioService {
@@ -11,4 +16,13 @@ public interface CalendarioService {
 
     // Método para eliminar clases en un periodo
     public void eliminarClases(LocalDate fechaInicio, LocalDate inicioDes, LocalTime horaInicio, LocalTime horaFin);
-}
\ No newline at end of file
+
+    // Clases de un rango de fechas: filas de la tabla clases más las ocurrencias
+    // calculadas de las clases recurrentes que no tienen fila propia
+    public List<ClaseResponseDto> obtenerCalendario(LocalDate desde, LocalDate hasta);
+
+    // Horarios del rango en los que hay al menos un caballo disponible y un
+    // instructor activo libres durante toda la duración pedida
+    public DisponibilidadDto obtenerDisponibilidad(LocalDate desde, LocalDate hasta, Especialidad especialidad,
+            Integer duracion);
+}
@@ -1,28 +1,73 @@
 package com.escueladeequitacion.hrs.service;
 
-import org.springframework.beans.BeanUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.escueladeequitacion.hrs.dto.ClaseResponseDto;
+import com.escueladeequitacion.hrs.dto.DisponibilidadDto;
+import com.escueladeequitacion.hrs.dto.DisponibilidadDto.FranjaDisponibleDto;
+import com.escueladeequitacion.hrs.dto.DisponibilidadDto.RecursoDisponibleDto;
+import com.escueladeequitacion.hrs.enums.Especialidad;
 import com.escueladeequitacion.hrs.enums.Estado;
 import com.escueladeequitacion.hrs.exception.ValidationException;
+import com.escueladeequitacion.hrs.model.Caballo;
 import com.escueladeequitacion.hrs.model.Clase;
+import com.escueladeequitacion.hrs.model.ClaseRecurrente;
+import com.escueladeequitacion.hrs.model.Instructor;
+import com.escueladeequitacion.hrs.repository.CaballoRepository;
+import com.escueladeequitacion.hrs.repository.ClaseRecurrenteRepository;
 import com.escueladeequitacion.hrs.repository.ClaseRepository;
+import com.escueladeequitacion.hrs.repository.InstructorRepository;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.ZoneId;
 import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Objects;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 public class CalendarioServiceImpl implements CalendarioService {
 
+    private static final Logger logger = LoggerFactory.getLogger(CalendarioServiceImpl.class);
+
+    private static final int MAX_DIAS_CALENDARIO = 93;
+    private static final int MAX_DIAS_DISPONIBILIDAD = 31;
+    private static final ZoneId ZONA = ZoneId.of("America/Argentina/Buenos_Aires");
+    // Mismo horario que valida ClaseServiceImpl al crear una clase
+    private static final LocalTime APERTURA = LocalTime.of(9, 0);
+    private static final LocalTime CIERRE = LocalTime.of(18, 30);
+    private static final int MINUTOS_FRANJA = 30;
+    // Última hora del día para las consultas por franja: LocalTime.MAX se redondea a 00:00 en TIME sin fracción
+    private static final LocalTime FIN_DEL_DIA = LocalTime.of(23, 59, 59);
+
     @Autowired
     private ClaseRepository claseRepository;
 
+    @Autowired
+    private ClaseRecurrenteRepository claseRecurrenteRepository;
+
+    @Autowired
+    private CaballoRepository caballoRepository;
+
+    @Autowired
+    private InstructorRepository instructorRepository;
+
+    @Autowired
+    private OcupacionHorariaIndex ocupacionHorariaIndex;
+
+    @Autowired
+    private PlanificadorEstadosClase planificadorEstadosClase;
+
     @Transactional
     public void copiarClases(LocalDate inicioOri, LocalDate inicioDes, int cantidadSemanas) {
 
@@ -35,52 +80,183 @@ public class CalendarioServiceImpl implements CalendarioService {
             // Reutilizamos la lógica de copiar una semana (refactorizada)
             ejecutarCopiaSemana(semanaOriActual, semanaDesActual);
         }
+
+        ocupacionHorariaIndex.invalidar(inicioDes, inicioDes.plusDays(cantidadSemanas * 7L - 1));
+        planificadorEstadosClase.invalidar(inicioDes, inicioDes.plusDays(cantidadSemanas * 7L - 1));
     }
 
+    /**
+     * Copia una semana sin cargar entidades:
+     * 1. Borra lo PROGRAMADO sin plantilla en el destino
+     * 2. Lee el origen sin las ocurrencias de plantillas (la plantilla ya
+     * genera las suyas en el destino)
+     * 3. Descarta las clases cuyo alumno o caballo ya está ocupado en el
+     * destino (clases que quedaron y ocurrencias de plantillas), con una
+     * instantánea de OcupacionHorariaIndex leída después del borrado
+     * 4. Copia el resto con un INSERT ... SELECT por ID
+     */
     private void ejecutarCopiaSemana(LocalDate inicioOri, LocalDate inicioDes) {
         LocalDate finOri = inicioOri.plusDays(6);
         LocalDate finDes = inicioDes.plusDays(6);
+        long diferenciaEntreSemanas = ChronoUnit.DAYS.between(inicioOri, inicioDes);
 
-        // 1. Borrar solo lo programado en la semana destino actual
-        claseRepository.deleteByDiaBetweenAndEstado(inicioDes, finDes, Estado.PROGRAMADA);
-        claseRepository.flush();
-
-        // 2. Obtener origen y lo que sobrevivió en destino
-        List<Clase> clasesOrigen = claseRepository.findByDiaBetween(inicioOri, finOri);
-        List<Clase> destinoRestante = claseRepository.findByDiaBetween(inicioDes, finDes);
+        claseRepository.deleteSinPlantillaByDiaBetweenAndEstado(inicioDes, finDes, Estado.PROGRAMADA);
 
-        if (clasesOrigen.isEmpty())
+        List<Object[]> origen = claseRepository.findParaCopiar(inicioOri, finOri);
+        if (origen.isEmpty()) {
             return;
+        }
+        OcupacionHorariaIndex.Instantanea destino = ocupacionHorariaIndex.leer(inicioDes, finDes);
 
-        long diferenciaEntreSemanas = ChronoUnit.DAYS.between(inicioOri, inicioDes);
+        List<Long> aCopiar = new ArrayList<>(origen.size());
+        for (Object[] fila : origen) {
+            LocalDate dia = ((LocalDate) fila[1]).plusDays(diferenciaEntreSemanas);
+            if (destino.reservar(dia, (LocalTime) fila[2], (Integer) fila[3], (Long) fila[4], (Long) fila[5])) {
+                aCopiar.add((Long) fila[0]);
+            }
+        }
+        if (!aCopiar.isEmpty()) {
+            claseRepository.copiarClasesDesplazadas(aCopiar, diferenciaEntreSemanas, Estado.PROGRAMADA);
+        }
+        if (aCopiar.size() < origen.size()) {
+            logger.info("Copia de la semana {} a {}: {} clases omitidas por conflicto de horario", inicioOri,
+                    inicioDes, origen.size() - aCopiar.size());
+        }
+    }
+
+    /**
+     * Arma el calendario de [desde, hasta] sin leer copias semanales:
+     * 1. Clases con fila propia (únicas y ocurrencias materializadas), proyectadas a DTO
+     * 2. Plantillas vigentes en el rango, expandidas en memoria
+     * 3. Se omiten las ocurrencias que ya tienen fila (excepciones)
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public List<ClaseResponseDto> obtenerCalendario(LocalDate desde, LocalDate hasta) {
+        if (desde == null || hasta == null) {
+            throw new ValidationException("fechas", "Las fechas desde y hasta no pueden estar vacías");
+        }
+        if (desde.isAfter(hasta)) {
+            throw new ValidationException("desde", "La fecha desde no puede ser posterior a la fecha hasta");
+        }
+        if (ChronoUnit.DAYS.between(desde, hasta) > MAX_DIAS_CALENDARIO) {
+            throw new ValidationException("hasta", "El rango no puede superar " + MAX_DIAS_CALENDARIO + " días");
+        }
+
+        List<ClaseResponseDto> calendario = new ArrayList<>(claseRepository.findDtoByDiaBetween(desde, hasta));
+
+        Map<Long, Set<LocalDate>> materializadas = new HashMap<>();
+        for (Object[] fila : claseRepository.findOcurrenciasMaterializadas(desde, hasta)) {
+            materializadas.computeIfAbsent((Long) fila[0], k -> new HashSet<>()).add((LocalDate) fila[1]);
+        }
+
+        for (ClaseRecurrente plantilla : claseRecurrenteRepository.findVigentesEnRango(desde, hasta)) {
+            Set<LocalDate> excepciones = materializadas.getOrDefault(plantilla.getId(), Set.of());
+            for (LocalDate d = desde.with(TemporalAdjusters.nextOrSame(plantilla.getDiaSemana()));
+                    !d.isAfter(hasta); d = d.plusWeeks(1)) {
+                if (plantilla.ocurreEl(d) && !excepciones.contains(d)) {
+                    calendario.add(ClaseResponseDto.deOcurrencia(plantilla, d));
+                }
+            }
+        }
+
+        calendario.sort(Comparator.comparing(ClaseResponseDto::getDia).thenComparing(ClaseResponseDto::getHora));
+        return calendario;
+    }
+
+    /**
+     * Calcula los horarios libres de [desde, hasta] sin probar clase por clase:
+     * 1. Caballos disponibles e instructores activos (una consulta cada uno)
+     * 2. Ocupación del rango desde OcupacionHorariaIndex, que carga los días
+     * que no tenga con una sola consulta por rango (incluye las ocurrencias de
+     * clases recurrentes)
+     * 3. Por cada día y hora candidata, un recurso está libre si
+     * (ocupada & mascara(hora, duracion)) == 0
+     *
+     * Las horas candidatas van de 09:00 a la última que termina antes de las
+     * 18:30, cada 30 minutos; hoy solo cuentan las que empiezan dentro de 60
+     * minutos o más. Ni Caballo ni Instructor tienen especialidad, así que la
+     * especialidad no filtra recursos: se devuelve para armar la clase.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public DisponibilidadDto obtenerDisponibilidad(LocalDate desde, LocalDate hasta, Especialidad especialidad,
+            Integer duracion) {
+        if (desde == null || hasta == null) {
+            throw new ValidationException("fechas", "Las fechas desde y hasta no pueden estar vacías");
+        }
+        if (desde.isAfter(hasta)) {
+            throw new ValidationException("desde", "La fecha desde no puede ser posterior a la fecha hasta");
+        }
+        if (ChronoUnit.DAYS.between(desde, hasta) > MAX_DIAS_DISPONIBILIDAD) {
+            throw new ValidationException("hasta",
+                    "El rango no puede superar " + MAX_DIAS_DISPONIBILIDAD + " días");
+        }
+        int minutos = duracion != null ? duracion : MINUTOS_FRANJA;
+        if (minutos != 30 && minutos != 60) {
+            throw new ValidationException("duracion", "La duración debe ser 30 o 60 minutos");
+        }
 
-        List<Clase> nuevasClases = clasesOrigen.stream()
-                .map(claseOri -> {
-                    LocalDate nuevaFecha = claseOri.getDia().plusDays(diferenciaEntreSemanas);
+        DisponibilidadDto disponibilidad = new DisponibilidadDto(desde, hasta, especialidad, minutos);
 
-                    // Evitar duplicar si ya existe una clase (ej. COMPLETADA)
-                    boolean existe = destinoRestante.stream()
-                            .anyMatch(d -> d.getDia().equals(nuevaFecha) && d.getHora().equals(claseOri.getHora()) &&
-                                    d.getAlumno().equals(claseOri.getAlumno()));
+        LocalDate hoy = LocalDate.now(ZONA);
+        LocalDate inicio = desde.isBefore(hoy) ? hoy : desde;
+        if (inicio.isAfter(hasta)) {
+            return disponibilidad;
+        }
+
+        List<RecursoDisponibleDto> caballos = caballoRepository.findByDisponible(true).stream()
+                .sorted(Comparator.comparing(Caballo::getId))
+                .map(c -> new RecursoDisponibleDto(c.getId(), c.getNombre()))
+                .toList();
+        List<RecursoDisponibleDto> instructores = instructorRepository.findByActivo(true).stream()
+                .sorted(Comparator.comparing(Instructor::getId))
+                .map(i -> new RecursoDisponibleDto(i.getId(), i.getNombre() + " " + i.getApellido()))
+                .toList();
+        if (caballos.isEmpty() || instructores.isEmpty()) {
+            return disponibilidad;
+        }
 
-                    if (existe)
-                        return null;
+        List<LocalTime> horas = new ArrayList<>();
+        for (LocalTime h = APERTURA; !h.plusMinutes(minutos).isAfter(CIERRE); h = h.plusMinutes(MINUTOS_FRANJA)) {
+            horas.add(h);
+        }
+        LocalTime primeraHoraHoy = LocalTime.now(ZONA).plusMinutes(60);
 
-                    return clonarEntidad(claseOri, nuevaFecha);
-                })
-                .filter(Objects::nonNull)
-                .collect(Collectors.toList());
+        ocupacionHorariaIndex.cargarSiFalta(inicio, hasta);
+        for (LocalDate dia = inicio; !dia.isAfter(hasta); dia = dia.plusDays(1)) {
+            Map<Long, Long> ocupacionCaballos = ocupacionHorariaIndex.mascarasCaballos(dia);
+            Map<Long, Long> ocupacionInstructores = ocupacionHorariaIndex.mascarasInstructores(dia);
 
-        claseRepository.saveAll(nuevasClases);
+            for (LocalTime hora : horas) {
+                if (dia.equals(hoy) && hora.isBefore(primeraHoraHoy)) {
+                    continue;
+                }
+                long mascara = OcupacionHorariaIndex.mascara(hora, minutos);
+                List<RecursoDisponibleDto> caballosLibres = libres(caballos, ocupacionCaballos, mascara);
+                if (caballosLibres.isEmpty()) {
+                    continue;
+                }
+                List<RecursoDisponibleDto> instructoresLibres = libres(instructores, ocupacionInstructores,
+                        mascara);
+                if (!instructoresLibres.isEmpty()) {
+                    disponibilidad.agregarFranja(
+                            new FranjaDisponibleDto(dia, hora, caballosLibres, instructoresLibres));
+                }
+            }
+        }
+        return disponibilidad;
     }
 
-    private Clase clonarEntidad(Clase origen, LocalDate nuevaFecha) {
-        Clase nueva = new Clase();
-        BeanUtils.copyProperties(origen, nueva, "id");
-        nueva.setDia(nuevaFecha);
-        nueva.setEstado(Estado.PROGRAMADA);
-        nueva.setObservaciones("");
-        return nueva;
+    private static List<RecursoDisponibleDto> libres(List<RecursoDisponibleDto> recursos,
+            Map<Long, Long> ocupacion, long mascara) {
+        List<RecursoDisponibleDto> resultado = new ArrayList<>();
+        for (RecursoDisponibleDto recurso : recursos) {
+            if ((ocupacion.getOrDefault(recurso.getId(), 0L) & mascara) == 0L) {
+                resultado.add(recurso);
+            }
+        }
+        return resultado;
     }
 
     @Transactional
@@ -101,13 +277,53 @@ public class CalendarioServiceImpl implements CalendarioService {
 
             // Cancelar solo en el rango horario para UN DÍA
             if (fechaInicio.equals(fechaFin)) {
-                claseRepository.deleteByDiaAndHoraBetweenAndEstado(fechaInicio, horaInicio, horaFin, Estado.PROGRAMADA);
+                claseRepository.deleteSinPlantillaByDiaAndHoraBetweenAndEstado(fechaInicio, horaInicio, horaFin,
+                        Estado.PROGRAMADA);
+                cancelarOcurrencias(fechaInicio, fechaFin, horaInicio, horaFin);
             } else {
                 throw new ValidationException("fechas", "La cancelación por horario solo aplica para un mismo día");
             }
         } else {
             // Sin horarios = cancelar días completos
-            claseRepository.deleteByDiaBetweenAndEstado(fechaInicio, fechaFin, Estado.PROGRAMADA);
+            claseRepository.deleteSinPlantillaByDiaBetweenAndEstado(fechaInicio, fechaFin, Estado.PROGRAMADA);
+            cancelarOcurrencias(fechaInicio, fechaFin, LocalTime.MIN, FIN_DEL_DIA);
+        }
+
+        ocupacionHorariaIndex.invalidar(fechaInicio, fechaFin);
+        planificadorEstadosClase.invalidar(fechaInicio, fechaFin);
+    }
+
+    /**
+     * Cancela las ocurrencias de clases recurrentes del rango en lugar de
+     * borrarlas (una fila borrada vuelve a aparecer desde la plantilla):
+     * 1. Las materializadas PROGRAMADAS pasan a CANCELADA con un UPDATE
+     * 2. Las que todavía solo se calculan se materializan ya CANCELADAS, como
+     * excepción de la plantilla
+     */
+    private void cancelarOcurrencias(LocalDate inicio, LocalDate fin, LocalTime horaInicio, LocalTime horaFin) {
+        claseRepository.cancelarOcurrenciasEntre(inicio, fin, horaInicio, horaFin, Estado.PROGRAMADA,
+                Estado.CANCELADA);
+
+        Map<Long, Set<LocalDate>> materializadas = new HashMap<>();
+        for (Object[] fila : claseRepository.findOcurrenciasMaterializadas(inicio, fin)) {
+            materializadas.computeIfAbsent((Long) fila[0], k -> new HashSet<>()).add((LocalDate) fila[1]);
+        }
+
+        List<Clase> canceladas = new ArrayList<>();
+        for (ClaseRecurrente plantilla : claseRecurrenteRepository.findVigentesEnRangoSinDetalles(inicio, fin)) {
+            if (plantilla.getHora().isBefore(horaInicio) || plantilla.getHora().isAfter(horaFin)) {
+                continue;
+            }
+            Set<LocalDate> excepciones = materializadas.getOrDefault(plantilla.getId(), Set.of());
+            for (LocalDate d = inicio.with(TemporalAdjusters.nextOrSame(plantilla.getDiaSemana()));
+                    !d.isAfter(fin); d = d.plusWeeks(1)) {
+                if (plantilla.ocurreEl(d) && !excepciones.contains(d)) {
+                    Clase ocurrencia = plantilla.crearOcurrencia(d);
+                    ocurrencia.setEstado(Estado.CANCELADA);
+                    canceladas.add(ocurrencia);
+                }
+            }
         }
+        claseRepository.saveAll(canceladas);
     }
 }
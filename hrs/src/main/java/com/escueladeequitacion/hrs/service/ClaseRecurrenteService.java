@@ -0,0 +1,36 @@
+package com.escueladeequitacion.hrs.service;
+
+import com.escueladeequitacion.hrs.dto.ClaseRecurrenteDto;
+import com.escueladeequitacion.hrs.dto.ClaseResponseDto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+// Interfaz para el servicio de clases recurrentes (plantillas semanales)
+public interface ClaseRecurrenteService {
+
+    public List<ClaseRecurrenteDto> listarClasesRecurrentes();
+
+    public ClaseRecurrenteDto buscarClaseRecurrentePorId(Long id);
+
+    /**
+     * Crea una plantilla. Valida instructor, alumno y caballo como el alta de
+     * una clase, y que ninguna ocurrencia dentro del horizonte precargado del
+     * índice de ocupación choque con otra clase.
+     */
+    public ClaseRecurrenteDto crearClaseRecurrente(ClaseRecurrenteDto dto);
+
+    /**
+     * Termina la vigencia de una plantilla: no genera ocurrencias después de
+     * la fecha indicada (hoy si es null). Las ocurrencias ya materializadas no
+     * se tocan.
+     */
+    public ClaseRecurrenteDto finalizarClaseRecurrente(Long id, LocalDate ultimaFecha);
+
+    /**
+     * Crea (o devuelve, si ya existe) la fila de Clase de la ocurrencia de una
+     * fecha, para poder modificarla, completarla o cancelarla con los
+     * endpoints normales de clases.
+     */
+    public ClaseResponseDto materializarOcurrencia(Long id, LocalDate fecha);
+}
@@ -0,0 +1,229 @@
+package com.escueladeequitacion.hrs.service;
+
+import com.escueladeequitacion.hrs.dto.ClaseRecurrenteDto;
+import com.escueladeequitacion.hrs.dto.ClaseResponseDto;
+import com.escueladeequitacion.hrs.exception.BusinessException;
+import com.escueladeequitacion.hrs.exception.ResourceNotFoundException;
+import com.escueladeequitacion.hrs.exception.ValidationException;
+import com.escueladeequitacion.hrs.model.Alumno;
+import com.escueladeequitacion.hrs.model.Caballo;
+import com.escueladeequitacion.hrs.model.Clase;
+import com.escueladeequitacion.hrs.model.ClaseRecurrente;
+import com.escueladeequitacion.hrs.model.Instructor;
+import com.escueladeequitacion.hrs.repository.ClaseRecurrenteRepository;
+import com.escueladeequitacion.hrs.repository.ClaseRepository;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+@Service
+public class ClaseRecurrenteServiceImpl implements ClaseRecurrenteService {
+
+    private static final ZoneId ZONA = ZoneId.of("America/Argentina/Buenos_Aires");
+
+    @Autowired
+    private ClaseRecurrenteRepository claseRecurrenteRepository;
+
+    @Autowired
+    private ClaseRepository claseRepository;
+
+    @Autowired
+    private InstructorService instructorService;
+
+    @Autowired
+    private AlumnoService alumnoService;
+
+    @Autowired
+    private CaballoService caballoService;
+
+    @Autowired
+    private OcupacionHorariaIndex ocupacionHorariaIndex;
+
+    @Autowired
+    private PlanificadorEstadosClase planificadorEstadosClase;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.ocupacion.semanas-precarga:8}")
+    private int semanasPrecarga;
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<ClaseRecurrenteDto> listarClasesRecurrentes() {
+        return claseRecurrenteRepository.findAll().stream()
+                .map(ClaseRecurrenteDto::new)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public ClaseRecurrenteDto buscarClaseRecurrentePorId(Long id) {
+        return new ClaseRecurrenteDto(obtenerPlantilla(id));
+    }
+
+    @Override
+    @Transactional
+    public ClaseRecurrenteDto crearClaseRecurrente(ClaseRecurrenteDto dto) {
+        if (dto.getVigenteHasta() != null && dto.getVigenteHasta().isBefore(dto.getVigenteDesde())) {
+            throw new ValidationException("vigenteHasta", "No puede ser anterior a vigenteDesde");
+        }
+        validarDuracion(dto.getHora(), dto.getDuracion());
+
+        ClaseRecurrente plantilla = new ClaseRecurrente();
+        plantilla.setDiaSemana(dto.getDiaSemana());
+        plantilla.setHora(dto.getHora());
+        plantilla.setDuracion(dto.getDuracion());
+        plantilla.setEspecialidad(dto.getEspecialidad());
+        plantilla.setInstructor(obtenerInstructorValido(dto.getInstructorId()));
+        plantilla.setAlumno(dto.getAlumnoId() != null ? obtenerAlumnoValido(dto.getAlumnoId()) : null);
+        plantilla.setCaballo(obtenerCaballoValido(dto.getCaballoId()));
+        plantilla.setVigenteDesde(dto.getVigenteDesde());
+        plantilla.setVigenteHasta(dto.getVigenteHasta());
+
+        validarConflictos(plantilla);
+
+        ClaseRecurrente guardada = claseRecurrenteRepository.save(plantilla);
+        invalidarDesde(guardada.getVigenteDesde());
+        return new ClaseRecurrenteDto(guardada);
+    }
+
+    @Override
+    @Transactional
+    public ClaseRecurrenteDto finalizarClaseRecurrente(Long id, LocalDate ultimaFecha) {
+        ClaseRecurrente plantilla = obtenerPlantilla(id);
+        if (ultimaFecha == null) {
+            ultimaFecha = LocalDate.now(ZONA);
+        }
+        if (ultimaFecha.isBefore(plantilla.getVigenteDesde().minusDays(1))) {
+            throw new BusinessException("La fecha no puede ser anterior al inicio de la vigencia");
+        }
+
+        plantilla.setVigenteHasta(ultimaFecha);
+        claseRecurrenteRepository.save(plantilla);
+        invalidarDesde(ultimaFecha.plusDays(1));
+        return new ClaseRecurrenteDto(plantilla);
+    }
+
+    @Override
+    @Transactional
+    public ClaseResponseDto materializarOcurrencia(Long id, LocalDate fecha) {
+        ClaseRecurrente plantilla = obtenerPlantilla(id);
+        if (fecha == null || !plantilla.ocurreEl(fecha)) {
+            throw new BusinessException("La clase recurrente no tiene una ocurrencia el " + fecha);
+        }
+
+        Optional<Clase> existente = claseRepository.findByClaseRecurrenteIdAndFechaOcurrencia(id, fecha);
+        if (existente.isPresent()) {
+            return new ClaseResponseDto(existente.get());
+        }
+
+        // El INSERT va en su propia transacción: si otro pedido (u otro nodo)
+        // materializó la misma ocurrencia, choca con uk_clase_recurrente_ocurrencia
+        // y se devuelve la suya
+        TransactionTemplate txNueva = new TransactionTemplate(transactionManager);
+        txNueva.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        try {
+            Clase nueva = txNueva.execute(status -> {
+                Clase guardada = claseRepository.save(plantilla.crearOcurrencia(fecha));
+                ocupacionHorariaIndex.registrar(guardada);
+                planificadorEstadosClase.planificar(guardada);
+                return guardada;
+            });
+            return new ClaseResponseDto(nueva);
+        } catch (DataIntegrityViolationException e) {
+            return claseRepository.findByClaseRecurrenteIdAndFechaOcurrencia(id, fecha)
+                    .map(ClaseResponseDto::new)
+                    .orElseThrow(() -> e);
+        }
+    }
+
+    // ============================================================
+    // MÉTODOS AUXILIARES
+    // ============================================================
+
+    private ClaseRecurrente obtenerPlantilla(Long id) {
+        return claseRecurrenteRepository.findById(id)
+                .orElseThrow(() -> new ResourceNotFoundException("ClaseRecurrente", "ID", id));
+    }
+
+    /**
+     * Revisa con el índice de ocupación las ocurrencias que caen dentro del
+     * horizonte precargado (las más cercanas, que son las que se van a dar).
+     */
+    private void validarConflictos(ClaseRecurrente plantilla) {
+        LocalDate hoy = LocalDate.now(ZONA);
+        LocalDate desde = plantilla.getVigenteDesde().isAfter(hoy) ? plantilla.getVigenteDesde() : hoy;
+        LocalDate horizonte = hoy.plusWeeks(semanasPrecarga);
+        Long alumnoId = plantilla.getAlumno() != null ? plantilla.getAlumno().getId() : null;
+
+        for (LocalDate d = desde.with(TemporalAdjusters.nextOrSame(plantilla.getDiaSemana()));
+                !d.isAfter(horizonte) && plantilla.ocurreEl(d); d = d.plusWeeks(1)) {
+            if (ocupacionHorariaIndex.hayConflictoAlumno(d, plantilla.getHora(), plantilla.getDuracion(),
+                    alumnoId, null)) {
+                throw new BusinessException("El alumno ya tiene una clase asignada el " + d + " a esa hora");
+            }
+            if (ocupacionHorariaIndex.hayConflictoCaballo(d, plantilla.getHora(), plantilla.getDuracion(),
+                    plantilla.getCaballo().getId(), null)) {
+                throw new BusinessException("El caballo ya está asignado a una clase el " + d + " a esa hora");
+            }
+        }
+    }
+
+    // Las ocurrencias calculadas cambiaron: recargar índice y planificador
+    private void invalidarDesde(LocalDate desde) {
+        ocupacionHorariaIndex.invalidar(desde, LocalDate.MAX);
+        planificadorEstadosClase.invalidar(desde, LocalDate.MAX);
+    }
+
+    // Mismas reglas que el alta de clases: 30 o 60 minutos y fin hasta las 18:30
+    private void validarDuracion(LocalTime hora, Integer duracion) {
+        if (duracion == null || (!duracion.equals(30) && !duracion.equals(60))) {
+            throw new BusinessException("La duración debe ser 30 o 60 minutos");
+        }
+        if (hora.plusMinutes(duracion).isAfter(LocalTime.of(18, 30))) {
+            throw new BusinessException("La clase no puede terminar después de las 18:30");
+        }
+    }
+
+    private Instructor obtenerInstructorValido(Long id) {
+        Instructor instructor = instructorService.buscarInstructorPorId(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Instructor", "ID", id));
+        if (!instructor.isActivo()) {
+            throw new BusinessException("El instructor no está activo");
+        }
+        return instructor;
+    }
+
+    private Alumno obtenerAlumnoValido(Long id) {
+        Alumno alumno = alumnoService.buscarAlumnoPorId(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Alumno", "ID", id));
+        if (!alumno.isActivo()) {
+            throw new BusinessException("El alumno no está activo");
+        }
+        return alumno;
+    }
+
+    private Caballo obtenerCaballoValido(Long id) {
+        Caballo caballo = caballoService.buscarCaballoPorId(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Caballo", "ID", id));
+        if (!caballo.isDisponible()) {
+            throw new BusinessException("El caballo no está disponible");
+        }
+        return caballo;
+    }
+}
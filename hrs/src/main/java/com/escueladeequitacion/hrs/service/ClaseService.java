@@ -1,6 +1,8 @@
 package com.escueladeequitacion.hrs.service;
 
 import com.escueladeequitacion.hrs.dto.ClaseDto;
+import com.escueladeequitacion.hrs.dto.ClaseCursorPaginaDto;
+import com.escueladeequitacion.hrs.dto.ClaseLoteResultadoDto;
 import com.escueladeequitacion.hrs.dto.ClaseResponseDto;
 import com.escueladeequitacion.hrs.enums.Especialidad;
 import com.escueladeequitacion.hrs.enums.Estado;
@@ -11,6 +13,8 @@ import org.springframework.data.domain.Pageable;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -65,6 +69,12 @@ public interface ClaseService {
      */
     public Clase crearClase(ClaseDto claseDto);
 
+    /**
+     * Método para crear muchas clases en una sola transacción. Las válidas se
+     * insertan y las inválidas se informan con su error, ítem por ítem.
+     */
+    public ClaseLoteResultadoDto crearClasesEnLote(List<ClaseDto> clasesDto);
+
     /**
      * Método para actualizar una clase desde un DTO, validando todas las reglas de
      * negocio.
@@ -87,6 +97,14 @@ public interface ClaseService {
      */
     public List<ClaseResponseDto> listarClasesConDetalles();
 
+    /**
+     * Exporta todo el historial de clases escribiendo fila por fila en la
+     * salida, en formato "ndjson" (un ClaseResponseDto JSON por línea) o "csv".
+     * Usa memoria constante: recorre un Stream y limpia el contexto de
+     * persistencia cada cierto número de filas.
+     */
+    public void exportarClases(String formato, OutputStream salida) throws IOException;
+
     /**
      * Busca una clase por ID con todos sus detalles.
      * 
@@ -135,9 +153,15 @@ public interface ClaseService {
      */
     public long contarClasesCompletadasPorCaballo(Long caballoId);
 
-    public void actualizarEstadosDeClases();
-
     public Page<ClaseResponseDto> listarClasesPaginado(Pageable pageable, Estado estado, Especialidad especialidad, Long instructorId, Long alumnoId);
+
+    /**
+     * Lista clases ordenadas por dia, hora e id descendentes usando un cursor
+     * opaco en lugar de offset. No hace COUNT y el costo no depende de la
+     * profundidad de la página. cursor null = primera página.
+     */
+    public ClaseCursorPaginaDto listarClasesPorCursor(String cursor, int tamanio, Estado estado,
+            Especialidad especialidad, Long instructorId, Long alumnoId);
     // ============================================================
     // MÉTODOS PARA CLASES DE PRUEBA
     // ============================================================
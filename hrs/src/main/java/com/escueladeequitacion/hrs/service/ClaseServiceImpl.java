@@ -1,43 +1,81 @@
 package com.escueladeequitacion.hrs.service;
 
+import com.escueladeequitacion.hrs.config.Medido;
 import com.escueladeequitacion.hrs.dto.ClaseDto;
+import com.escueladeequitacion.hrs.dto.ClaseCursorPaginaDto;
+import com.escueladeequitacion.hrs.dto.ClaseLoteResultadoDto;
 import com.escueladeequitacion.hrs.dto.ClaseResponseDto;
 import com.escueladeequitacion.hrs.enums.Especialidad;
 import com.escueladeequitacion.hrs.enums.Estado;
 import com.escueladeequitacion.hrs.exception.BusinessException;
 import com.escueladeequitacion.hrs.exception.ResourceNotFoundException;
+import com.escueladeequitacion.hrs.exception.ValidationException;
 import com.escueladeequitacion.hrs.model.Alumno;
 import com.escueladeequitacion.hrs.model.Caballo;
 import com.escueladeequitacion.hrs.model.Clase;
 import com.escueladeequitacion.hrs.model.Instructor;
 import com.escueladeequitacion.hrs.model.PersonaPrueba;
+import com.escueladeequitacion.hrs.repository.AlumnoRepository;
+import com.escueladeequitacion.hrs.repository.CaballoRepository;
 import com.escueladeequitacion.hrs.repository.ClaseRepository;
+import com.escueladeequitacion.hrs.repository.InstructorRepository;
 import com.escueladeequitacion.hrs.repository.PersonaPruebaRepository;
+import com.escueladeequitacion.hrs.repository.specifications.ClaseSpecification;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 
-import jakarta.transaction.Transactional;
+import com.fasterxml.jackson.databind.ObjectMapper;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
-
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDate;
 import java.time.LocalTime;
+import java.time.YearMonth;
 import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 // Implementación de la interfaz ClaseService
 @Service
 @Transactional
 public class ClaseServiceImpl implements ClaseService {
 
+    private static final Logger logger = LoggerFactory.getLogger(ClaseServiceImpl.class);
+
+    private static final int MAX_TAMANIO_CURSOR = 200;
+
     @Autowired
     ClaseRepository claseRepository;
 
@@ -56,6 +94,39 @@ public class ClaseServiceImpl implements ClaseService {
     @Autowired
     CaballoService caballoService;
 
+    @Autowired
+    OcupacionHorariaIndex ocupacionHorariaIndex;
+
+    @Autowired
+    PlanificadorEstadosClase planificadorEstadosClase;
+
+    @Autowired
+    ResumenMensualService resumenMensualService;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @PersistenceContext
+    EntityManager entityManager;
+
+    @Autowired
+    InstructorRepository instructorRepository;
+
+    @Autowired
+    AlumnoRepository alumnoRepository;
+
+    @Autowired
+    CaballoRepository caballoRepository;
+
+    @Autowired
+    Validator validator;
+
+    @Autowired
+    MeterRegistry meterRegistry;
+
+    // Límite de ítems por POST /api/v1/clases/batch
+    private static final int MAX_CLASES_POR_LOTE = 500;
+
     @Override
     public List<Clase> listarClases() {
         return claseRepository.findAll();
@@ -143,7 +214,18 @@ public class ClaseServiceImpl implements ClaseService {
 
     @Override
     public void eliminarClase(Long id) {
+        Optional<Clase> claseOpt = claseRepository.findById(id);
+        if (claseOpt.isPresent() && claseOpt.get().getClaseRecurrente() != null) {
+            // Ocurrencia materializada: la fila suprime la ocurrencia calculada, se cancela en lugar de borrarla
+            eliminarClaseTemporalmente(id);
+            return;
+        }
         claseRepository.deleteById(id);
+        ocupacionHorariaIndex.quitar(id);
+        planificadorEstadosClase.quitar(id);
+        if (claseOpt.isPresent() && claseOpt.get().getEstado() == Estado.COMPLETADA) {
+            resumenMensualService.recontarClases(claseOpt.get().getDia());
+        }
     };
 
     @Override
@@ -151,8 +233,14 @@ public class ClaseServiceImpl implements ClaseService {
         Optional<Clase> claseOpt = claseRepository.findById(id);
         if (claseOpt.isPresent()) {
             Clase clase = claseOpt.get();
+            Estado estadoAnterior = clase.getEstado();
             clase.setEstado(Estado.CANCELADA);
             claseRepository.save(clase);
+            ocupacionHorariaIndex.registrar(clase);
+            planificadorEstadosClase.planificar(clase);
+            if (estadoAnterior == Estado.COMPLETADA) {
+                resumenMensualService.recontarClases(clase.getDia());
+            }
         }
     };
 
@@ -161,21 +249,78 @@ public class ClaseServiceImpl implements ClaseService {
     // ============================================================
 
     /**
-     * Lista todas las clases con sus relaciones cargadas y las convierte a DTO.
+     * Lista todas las clases con sus datos relacionados.
      * 
-     * Flujo:
-     * 1. Llama a findAllWithDetails() que hace JOIN FETCH
-     * 2. Convierte cada Clase a ClaseResponseDto usando .stream()
-     * 3. Retorna la lista de DTOs
+     * Las consultas *ConDetalles proyectan directo a ClaseResponseDto
+     * (expresión de constructor en ClaseRepository.SELECT_CLASE_RESPONSE): no se
+     * crean entidades administradas y la transacción es de solo lectura.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ClaseResponseDto> listarClasesConDetalles() {
-        return claseRepository.findAllWithDetails()
-                .stream()
-                .map(ClaseResponseDto::new) // Constructor reference
-                .collect(Collectors.toList());
+        return claseRepository.findAllDto();
     };
 
+    // ── Exportación ──────────────────────────────────────────────────────────
+
+    private static final int FILAS_POR_LIMPIEZA = 500;
+
+    private static final String CABECERA_CSV = "id,dia,hora,duracion,especialidad,estado,esPrueba,"
+            + "instructorId,instructor,alumnoId,alumno,personaPruebaId,personaPrueba,caballoId,caballo,observaciones";
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportarClases(String formato, OutputStream salida) throws IOException {
+        boolean csv = "csv".equalsIgnoreCase(formato);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8));
+        if (csv) {
+            writer.write(CABECERA_CSV);
+            writer.write('\n');
+        }
+
+        int filas = 0;
+        try (Stream<Clase> clases = claseRepository.streamAllWithDetails()) {
+            Iterator<Clase> it = clases.iterator();
+            while (it.hasNext()) {
+                ClaseResponseDto dto = new ClaseResponseDto(it.next());
+                writer.write(csv ? filaCsv(dto) : objectMapper.writeValueAsString(dto));
+                writer.write('\n');
+
+                // Soltar las entidades ya escritas para mantener el heap constante
+                if (++filas % FILAS_POR_LIMPIEZA == 0) {
+                    entityManager.clear();
+                    writer.flush();
+                }
+            }
+        }
+        writer.flush();
+        logger.debug("Exportación de clases ({}): {} filas", csv ? "csv" : "ndjson", filas);
+    }
+
+    private String filaCsv(ClaseResponseDto dto) {
+        return String.join(",",
+                campoCsv(dto.getId()), campoCsv(dto.getDia()), campoCsv(dto.getHora()),
+                campoCsv(dto.getDuracion()), campoCsv(dto.getEspecialidad()), campoCsv(dto.getEstado()),
+                campoCsv(dto.isEsPrueba()),
+                campoCsv(dto.getInstructorId()), campoCsv(dto.getInstructorNombreCompleto()),
+                campoCsv(dto.getAlumnoId()), campoCsv(dto.getAlumnoNombreCompleto()),
+                campoCsv(dto.getPersonaPruebaId()), campoCsv(dto.getPersonaPruebaNombreCompleto()),
+                campoCsv(dto.getCaballoId()), campoCsv(dto.getCaballoNombre()),
+                campoCsv(dto.getObservaciones()));
+    }
+
+    // RFC 4180: comillas dobles si hay coma, comillas o saltos de línea
+    private static String campoCsv(Object valor) {
+        if (valor == null) {
+            return "";
+        }
+        String texto = valor.toString();
+        if (texto.contains(",") || texto.contains("\"") || texto.contains("\n") || texto.contains("\r")) {
+            return "\"" + texto.replace("\"", "\"\"") + "\"";
+        }
+        return texto;
+    }
+
     /**
      * Busca una clase por ID con detalles.
      * 
@@ -183,20 +328,18 @@ public class ClaseServiceImpl implements ClaseService {
      * @return Optional vacío si no existe, o Optional con ClaseResponseDto
      */
     @Override
+    @Transactional(readOnly = true)
     public Optional<ClaseResponseDto> buscarClasePorIdConDetalles(Long id) {
-        return claseRepository.findByIdWithDetails(id)
-                .map(ClaseResponseDto::new);
+        return claseRepository.findDtoById(id);
     };
 
     /**
      * Busca clases por día con detalles.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ClaseResponseDto> buscarClasePorDiaConDetalles(LocalDate dia) {
-        return claseRepository.findByDiaWithDetails(dia)
-                .stream()
-                .map(ClaseResponseDto::new)
-                .collect(Collectors.toList());
+        return claseRepository.findDtoByDia(dia);
     };
 
     /**
@@ -204,11 +347,9 @@ public class ClaseServiceImpl implements ClaseService {
      * Útil para el endpoint: GET /api/v1/clases/instructor/{id}/detalles
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ClaseResponseDto> buscarClasePorInstructorConDetalles(Long instructorId) {
-        return claseRepository.findByInstructorIdWithDetails(instructorId)
-                .stream()
-                .map(ClaseResponseDto::new)
-                .collect(Collectors.toList());
+        return claseRepository.findDtoByInstructorId(instructorId);
     };
 
     /**
@@ -216,45 +357,114 @@ public class ClaseServiceImpl implements ClaseService {
      * Útil para el endpoint: GET /api/v1/clases/alumno/{id}/detalles
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ClaseResponseDto> buscarClasePorAlumnoConDetalles(Long alumnoId) {
-        return claseRepository.findByAlumnoIdWithDetails(alumnoId)
-                .stream()
-                .map(ClaseResponseDto::new)
-                .collect(Collectors.toList());
+        return claseRepository.findDtoByAlumnoId(alumnoId);
     };
 
     /**
      * Busca clases por caballo con detalles.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ClaseResponseDto> buscarClasePorCaballoConDetalles(Long caballoId) {
-        return claseRepository.findByCaballoIdWithDetails(caballoId)
-                .stream()
-                .map(ClaseResponseDto::new)
-                .collect(Collectors.toList());
+        return claseRepository.findDtoByCaballoId(caballoId);
     };
 
     /**
      * Busca clases por estado con detalles.
      */
     @Override
+    @Transactional(readOnly = true)
     public List<ClaseResponseDto> buscarClasePorEstadoConDetalles(Estado estado) {
-        return claseRepository.findByEstadoWithDetails(estado)
-                .stream()
-                .map(ClaseResponseDto::new)
-                .collect(Collectors.toList());
+        return claseRepository.findDtoByEstado(estado);
     };
 
     /**
      * Crea una clase desde un DTO con todas las validaciones.
      */
     @Override
+    @Medido("clases.crear")
     public Clase crearClase(ClaseDto claseDto) {
+        Clase clase = prepararClase(claseDto, buscadoresDirectos());
+
+        Clase guardada = claseRepository.save(clase);
+        ocupacionHorariaIndex.registrar(guardada);
+        planificadorEstadosClase.planificar(guardada);
+        return guardada;
+    }
+
+    /**
+     * Crea muchas clases en una sola transacción.
+     * 
+     * Flujo:
+     * 1. Precarga instructores, alumnos, caballos y personas de prueba con un
+     * findAllById por tipo (en lugar de un findById por clase)
+     * 2. Valida cada ítem con las mismas reglas que crearClase, contra la BD
+     * (índice de ocupación) y contra las clases anteriores del mismo lote
+     * 3. Inserta las válidas con saveAll y reporta el error de cada rechazada
+     */
+    @Override
+    @Medido("clases.crear-lote")
+    public ClaseLoteResultadoDto crearClasesEnLote(List<ClaseDto> clasesDto) {
+        if (clasesDto == null || clasesDto.isEmpty()) {
+            throw new ValidationException("clases", "La lista de clases no puede estar vacía");
+        }
+        if (clasesDto.size() > MAX_CLASES_POR_LOTE) {
+            throw new ValidationException("clases",
+                    "No se pueden crear más de " + MAX_CLASES_POR_LOTE + " clases por lote");
+        }
+
+        Buscadores buscadores = new Buscadores(
+                indexarPorId(instructorRepository.findAllById(idsReferenciados(clasesDto, ClaseDto::getInstructorId)),
+                        Instructor::getId),
+                indexarPorId(alumnoRepository.findAllById(idsReferenciados(clasesDto, ClaseDto::getAlumnoId)),
+                        Alumno::getId),
+                indexarPorId(caballoRepository.findAllById(idsReferenciados(clasesDto, ClaseDto::getCaballoId)),
+                        Caballo::getId),
+                indexarPorId(
+                        personaPruebaRepository.findAllById(idsReferenciados(clasesDto, ClaseDto::getPersonaPruebaId)),
+                        PersonaPrueba::getId));
+
+        ClaseLoteResultadoDto resultado = new ClaseLoteResultadoDto();
+        Map<String, Long> ocupacionDelLote = new HashMap<>();
+        List<Clase> validas = new ArrayList<>();
+        List<Integer> indicesValidos = new ArrayList<>();
+
+        for (int i = 0; i < clasesDto.size(); i++) {
+            ClaseDto dto = clasesDto.get(i);
+            try {
+                validarCamposDeLote(dto);
+                Clase clase = prepararClase(dto, buscadores);
+                reservarEnLote(ocupacionDelLote, clase);
+                validas.add(clase);
+                indicesValidos.add(i);
+            } catch (BusinessException | ResourceNotFoundException | ValidationException e) {
+                resultado.agregarRechazada(i, e.getMessage());
+            }
+        }
+
+        List<Clase> guardadas = claseRepository.saveAll(validas);
+        for (int j = 0; j < guardadas.size(); j++) {
+            resultado.agregarCreada(indicesValidos.get(j), guardadas.get(j).getId());
+            ocupacionHorariaIndex.registrar(guardadas.get(j));
+            planificadorEstadosClase.planificar(guardadas.get(j));
+        }
+
+        resultado.getItems().sort(Comparator.comparingInt(ClaseLoteResultadoDto.ItemResultadoDto::getIndice));
+        return resultado;
+    }
+
+    /**
+     * Valida un DTO de alta y construye la entidad sin persistirla.
+     * Compartido por crearClase y crearClasesEnLote.
+     */
+    private Clase prepararClase(ClaseDto claseDto, Buscadores buscadores) {
 
         if (claseDto.getInstructorId() == null) {
             throw new BusinessException("El ID del instructor es obligatorio");
         }
-        Instructor instructor = obtenerInstructorValido(claseDto.getInstructorId());
+        Instructor instructor = obtenerInstructorValido(claseDto.getInstructorId(), buscadores.instructores());
 
         Alumno alumno = null;
         PersonaPrueba personaPrueba = null;
@@ -262,12 +472,12 @@ public class ClaseServiceImpl implements ClaseService {
         if (claseDto.isEsPrueba() != null && claseDto.isEsPrueba()) {
             if (claseDto.getPersonaPruebaId() != null) {
                 // Prueba de persona nueva (sin cuenta de alumno)
-                personaPrueba = personaPruebaRepository.findById(claseDto.getPersonaPruebaId())
+                personaPrueba = buscadores.personasPrueba().apply(claseDto.getPersonaPruebaId())
                         .orElseThrow(() -> new ResourceNotFoundException("PersonaPrueba", "ID",
                                 claseDto.getPersonaPruebaId()));
             } else if (claseDto.getAlumnoId() != null) {
                 // Prueba de alumno existente en otra especialidad
-                alumno = obtenerAlumnoSinValidarEstado(claseDto.getAlumnoId());
+                alumno = obtenerAlumnoSinValidarEstado(claseDto.getAlumnoId(), buscadores.alumnos());
                 validarClaseDePrueba(alumno, claseDto.getEspecialidad());
             } else {
                 throw new BusinessException("Una clase de prueba requiere alumnoId o personaPruebaId");
@@ -280,11 +490,11 @@ public class ClaseServiceImpl implements ClaseService {
                 if (claseDto.getAlumnoId() == null) {
                     throw new BusinessException("Una clase regular requiere alumnoId");
                 }
-                alumno = obtenerAlumnoValido(claseDto.getAlumnoId());
+                alumno = obtenerAlumnoValido(claseDto.getAlumnoId(), buscadores.alumnos());
             }
         }
 
-        Caballo caballo = obtenerCaballoValido(claseDto.getCaballoId());
+        Caballo caballo = obtenerCaballoValido(claseDto.getCaballoId(), buscadores.caballos());
 
         if ((claseDto.getEstado() == Estado.PROGRAMADA || claseDto.getEstado() == Estado.INICIADA)) {
             validarFechaYHora(claseDto.getDia(), claseDto.getHora());
@@ -298,6 +508,7 @@ public class ClaseServiceImpl implements ClaseService {
                 null,
                 claseDto.getDia(),
                 claseDto.getHora(),
+                claseDto.getDuracion(),
                 alumnoIdParaConflicto,
                 caballo.getId());
 
@@ -323,16 +534,19 @@ public class ClaseServiceImpl implements ClaseService {
         }
         clase.setEsPrueba(claseDto.isEsPrueba() != null ? claseDto.isEsPrueba() : false);
 
-        return claseRepository.save(clase);
+        return clase;
     }
 
     /**
      * Actualiza una clase desde un DTO.
      */
     @Override
+    @Medido("clases.actualizar")
     public void actualizarClase(Long id, ClaseDto dto) {
         Clase clase = claseRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Clase", "ID", id));
+        Estado estadoAnterior = clase.getEstado();
+        LocalDate diaAnterior = clase.getDia();
 
         // ✅ OPCIONAL: Prevenir cambio de tipo de clase
         if (dto.isEsPrueba() != null && !dto.isEsPrueba().equals(clase.isEsPrueba())) {
@@ -383,10 +597,22 @@ public class ClaseServiceImpl implements ClaseService {
                 clase.getId(),
                 clase.getDia(),
                 clase.getHora(),
+                clase.getDuracion(),
                 alumnoIdConflicto,
                 clase.getCaballo().getId());
 
         claseRepository.save(clase);
+        ocupacionHorariaIndex.registrar(clase);
+        planificadorEstadosClase.planificar(clase);
+
+        // Completada antes o después: cambia el conteo de su mes (o de los
+        // dos, si se movió de mes o de instructor)
+        if (estadoAnterior == Estado.COMPLETADA || clase.getEstado() == Estado.COMPLETADA) {
+            resumenMensualService.recontarClases(diaAnterior);
+            if (!YearMonth.from(diaAnterior).equals(YearMonth.from(clase.getDia()))) {
+                resumenMensualService.recontarClases(clase.getDia());
+            }
+        }
     }
 
     /**
@@ -413,45 +639,8 @@ public class ClaseServiceImpl implements ClaseService {
         return claseRepository.contarPorCaballoYEstado(caballoId, Estado.COMPLETADA);
     }
 
-    /**
-     * Tarea programada que se ejecuta cada minuto para actualizar estados de
-     * clases.
-     * - Cambia de PROGRAMADA a INICIADA cuando llega la hora de inicio
-     * - Cambia de INICIADA a COMPLETADA cuando transcurren 60 minutos
-     */
-    @Scheduled(cron = "0 0/30 9-18 * * TUE-SAT", zone = "America/Argentina/Buenos_Aires")
-    public void actualizarEstadosDeClases() {
-        ZoneId zona = ZoneId.of("America/Argentina/Buenos_Aires");
-        LocalDate hoy = LocalDate.now(zona);
-        LocalTime ahora = LocalTime.now(zona);
-
-        // 1. Cambiar clases PROGRAMADA → INICIADA (cuando llega la hora de inicio)
-        List<Clase> clasesPorIniciar = claseRepository.findByDiaAndEstado(hoy, Estado.PROGRAMADA);
-
-        for (Clase clase : clasesPorIniciar) {
-            if (!clase.getHora().isAfter(ahora)) {
-                clase.setEstado(Estado.INICIADA);
-                claseRepository.save(clase);
-            }
-        }
-
-        // 2. Cambiar clases INICIADA → COMPLETADA (cuando transcurren 60 minutos)
-        List<Clase> clasesEnCurso = claseRepository.findByDiaAndEstado(hoy, Estado.INICIADA);
-
-        for (Clase clase : clasesEnCurso) {
-            LocalTime horaFinalizacion = clase.getHora().plusMinutes(60);
-            if (!horaFinalizacion.isAfter(ahora)) {
-                clase.setEstado(Estado.COMPLETADA);
-                if (clase.getAlumno() != null) {
-                    abonoService.obtenerAbonoActivo(clase.getAlumno().getId())
-                            .ifPresent(abono -> abonoService.descontarClase(abono.getId()));
-                }
-                claseRepository.save(clase);
-            }
-        }
-    }
-
     @Override
+    @Transactional(readOnly = true)
     public Page<ClaseResponseDto> listarClasesPaginado(Pageable pageable, Estado estado, Especialidad especialidad, Long instructorId, Long alumnoId) {
         org.springframework.data.jpa.domain.Specification<Clase> spec = 
             com.escueladeequitacion.hrs.repository.specifications.ClaseSpecification.filtrar(estado, especialidad, null, null, instructorId, alumnoId);
@@ -465,6 +654,61 @@ public class ClaseServiceImpl implements ClaseService {
         return new PageImpl<>(dtos, pageable, page.getTotalElements());
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public ClaseCursorPaginaDto listarClasesPorCursor(String cursor, int tamanio, Estado estado,
+            Especialidad especialidad, Long instructorId, Long alumnoId) {
+        if (tamanio < 1 || tamanio > MAX_TAMANIO_CURSOR) {
+            throw new ValidationException("size", "Debe estar entre 1 y " + MAX_TAMANIO_CURSOR);
+        }
+
+        Specification<Clase> spec = ClaseSpecification.filtrar(estado, especialidad, null, null, instructorId,
+                alumnoId);
+        if (cursor != null && !cursor.isBlank()) {
+            Cursor ultima = decodificarCursor(cursor);
+            spec = spec.and(ClaseSpecification.anteriorA(ultima.dia(), ultima.hora(), ultima.id()));
+        }
+
+        // Se pide un elemento de más para saber si hay otra página sin hacer COUNT
+        List<Clase> clases = claseRepository.findBy(spec, q -> q
+                .sortBy(Sort.by(Sort.Direction.DESC, "dia", "hora", "id"))
+                .limit(tamanio + 1)
+                .all());
+
+        boolean hayMas = clases.size() > tamanio;
+        if (hayMas) {
+            clases = clases.subList(0, tamanio);
+        }
+
+        List<ClaseResponseDto> dtos = clases.stream()
+                .map(ClaseResponseDto::new)
+                .collect(Collectors.toList());
+        String siguiente = hayMas ? codificarCursor(clases.get(clases.size() - 1)) : null;
+
+        return new ClaseCursorPaginaDto(dtos, dtos.size(), hayMas, siguiente);
+    }
+
+    /**
+     * El cursor es "dia|hora|id" de la última clase devuelta, en Base64 URL-safe
+     * para que el cliente lo trate como un valor opaco.
+     */
+    private String codificarCursor(Clase clase) {
+        String valor = clase.getDia() + "|" + clase.getHora() + "|" + clase.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(valor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private Cursor decodificarCursor(String cursor) {
+        try {
+            String[] partes = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8).split("\\|");
+            return new Cursor(LocalDate.parse(partes[0]), LocalTime.parse(partes[1]), Long.valueOf(partes[2]));
+        } catch (RuntimeException e) {
+            throw new ValidationException("cursor", "El cursor no es válido");
+        }
+    }
+
+    private record Cursor(LocalDate dia, LocalTime hora, Long id) {
+    }
+
     /**
      * Método auxiliar para validar fecha y hora.
      */
@@ -506,7 +750,10 @@ public class ClaseServiceImpl implements ClaseService {
     }
 
     /**
-     * Valida que no exista conflicto de horario para instructor, alumno o caballo.
+     * Valida que no exista conflicto de horario para alumno o caballo (un
+     * instructor puede tener varias clases en la misma franja).
+     * Considera la duración: una clase de 60' a las 10:00 choca con otra a las
+     * 10:30. Se resuelve en memoria con OcupacionHorariaIndex.
      * 
      * @throws BusinessException si hay conflicto de horario
      */
@@ -514,30 +761,51 @@ public class ClaseServiceImpl implements ClaseService {
             Long id,
             LocalDate dia,
             LocalTime hora,
+            Integer duracion,
             Long alumnoId,
             Long caballoId) {
 
-        if (claseRepository.existsConflictoAlumno(id, dia, hora, alumnoId)) {
+        if (ocupacionHorariaIndex.hayConflictoAlumno(dia, hora, duracion, alumnoId, id)) {
+            contarVerificacionConflicto("agenda", "alumno");
             throw new BusinessException(
                     "El alumno ya tiene una clase asignada a esa hora");
         }
 
-        if (claseRepository.existsConflictoCaballo(id, dia, hora, caballoId)) {
+        if (ocupacionHorariaIndex.hayConflictoCaballo(dia, hora, duracion, caballoId, id)) {
+            contarVerificacionConflicto("agenda", "caballo");
             throw new BusinessException(
                     "El caballo ya está asignado a una clase en esa hora");
         }
+        contarVerificacionConflicto("agenda", "ninguno");
+    }
+
+    /**
+     * Cuenta el resultado de una verificación de conflicto de horario
+     * (hrs.clases.conflictos): origen agenda (índice de ocupación) o lote, y
+     * el recurso que chocó (alumno, caballo o ninguno).
+     */
+    private void contarVerificacionConflicto(String origen, String conflicto) {
+        meterRegistry.counter("hrs.clases.conflictos", "origen", origen, "conflicto", conflicto).increment();
     }
 
     private Alumno obtenerAlumnoSinValidarEstado(Long id) {
-        return alumnoService.buscarAlumnoPorId(id)
+        return obtenerAlumnoSinValidarEstado(id, alumnoService::buscarAlumnoPorId);
+    }
+
+    private Alumno obtenerAlumnoSinValidarEstado(Long id, Function<Long, Optional<Alumno>> buscar) {
+        return buscar.apply(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Alumno", "ID", id));
     }
 
     private Alumno obtenerAlumnoValido(Long id) {
+        return obtenerAlumnoValido(id, alumnoService::buscarAlumnoPorId);
+    }
+
+    private Alumno obtenerAlumnoValido(Long id, Function<Long, Optional<Alumno>> buscar) {
         if (id == null) {
             throw new BusinessException("El ID del alumno no puede ser nulo");
         }
-        Alumno alumno = alumnoService.buscarAlumnoPorId(id)
+        Alumno alumno = buscar.apply(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Alumno", "ID", id));
 
         if (!alumno.isActivo()) {
@@ -548,10 +816,14 @@ public class ClaseServiceImpl implements ClaseService {
     }
 
     private Caballo obtenerCaballoValido(Long id) {
+        return obtenerCaballoValido(id, caballoService::buscarCaballoPorId);
+    }
+
+    private Caballo obtenerCaballoValido(Long id, Function<Long, Optional<Caballo>> buscar) {
         if (id == null) {
             throw new BusinessException("El ID del caballo no puede ser nulo");
         }
-        Caballo caballo = caballoService.buscarCaballoPorId(id)
+        Caballo caballo = buscar.apply(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Caballo", "ID", id));
 
         if (!caballo.isDisponible()) {
@@ -562,10 +834,14 @@ public class ClaseServiceImpl implements ClaseService {
     }
 
     private Instructor obtenerInstructorValido(Long id) {
+        return obtenerInstructorValido(id, instructorService::buscarInstructorPorId);
+    }
+
+    private Instructor obtenerInstructorValido(Long id, Function<Long, Optional<Instructor>> buscar) {
         if (id == null) {
             throw new BusinessException("El ID del instructor no puede ser nulo");
         }
-        Instructor instructor = instructorService.buscarInstructorPorId(id)
+        Instructor instructor = buscar.apply(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Instructor", "ID", id));
 
         if (!instructor.isActivo()) {
@@ -575,6 +851,90 @@ public class ClaseServiceImpl implements ClaseService {
         return instructor;
     }
 
+    // ============================================================
+    // AUXILIARES PARA ALTA MASIVA
+    // ============================================================
+
+    /**
+     * Fuentes de entidades para prepararClase: directas (findById) en el alta
+     * individual, o mapas precargados en el alta masiva.
+     */
+    private record Buscadores(
+            Function<Long, Optional<Instructor>> instructores,
+            Function<Long, Optional<Alumno>> alumnos,
+            Function<Long, Optional<Caballo>> caballos,
+            Function<Long, Optional<PersonaPrueba>> personasPrueba) {
+    }
+
+    private Buscadores buscadoresDirectos() {
+        return new Buscadores(
+                instructorService::buscarInstructorPorId,
+                alumnoService::buscarAlumnoPorId,
+                caballoService::buscarCaballoPorId,
+                personaPruebaRepository::findById);
+    }
+
+    private static Set<Long> idsReferenciados(List<ClaseDto> clasesDto, Function<ClaseDto, Long> campo) {
+        return clasesDto.stream()
+                .filter(Objects::nonNull)
+                .map(campo)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+    }
+
+    private static <T> Function<Long, Optional<T>> indexarPorId(List<T> entidades, Function<T, Long> id) {
+        Map<Long, T> porId = entidades.stream().collect(Collectors.toMap(id, Function.identity()));
+        return clave -> Optional.ofNullable(porId.get(clave));
+    }
+
+    /**
+     * En el alta masiva el @Valid del controller no aplica a cada elemento, así
+     * que se validan aquí para poder reportar el error por ítem.
+     */
+    private void validarCamposDeLote(ClaseDto dto) {
+        if (dto == null) {
+            throw new ValidationException("clase", "El ítem no puede ser nulo");
+        }
+        Set<ConstraintViolation<ClaseDto>> errores = validator.validate(dto);
+        if (!errores.isEmpty()) {
+            throw new ValidationException(errores.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+        if (dto.getEspecialidad() == null) {
+            throw new ValidationException("especialidad", "La especialidad es obligatoria");
+        }
+    }
+
+    /**
+     * Verifica que la clase no se superponga con otra del mismo lote (alumno o
+     * caballo) y reserva sus franjas.
+     */
+    private void reservarEnLote(Map<String, Long> ocupacion, Clase clase) {
+        if (clase.getEstado() == Estado.CANCELADA) {
+            return;
+        }
+        long mascara = OcupacionHorariaIndex.mascara(clase.getHora(), clase.getDuracion());
+        String claveAlumno = clase.getAlumno() != null ? "A" + clase.getAlumno().getId() + "@" + clase.getDia() : null;
+        String claveCaballo = "C" + clase.getCaballo().getId() + "@" + clase.getDia();
+
+        if (claveAlumno != null && (ocupacion.getOrDefault(claveAlumno, 0L) & mascara) != 0L) {
+            contarVerificacionConflicto("lote", "alumno");
+            throw new BusinessException("El alumno ya tiene una clase asignada a esa hora (en este mismo lote)");
+        }
+        if ((ocupacion.getOrDefault(claveCaballo, 0L) & mascara) != 0L) {
+            contarVerificacionConflicto("lote", "caballo");
+            throw new BusinessException("El caballo ya está asignado a una clase en esa hora (en este mismo lote)");
+        }
+        contarVerificacionConflicto("lote", "ninguno");
+
+        if (claveAlumno != null) {
+            ocupacion.merge(claveAlumno, mascara, (a, b) -> a | b);
+        }
+        ocupacion.merge(claveCaballo, mascara, (a, b) -> a | b);
+    }
+
     private void aplicarCamposSimples(Clase clase, ClaseDto dto) {
 
         if (dto.getEspecialidad() != null)
@@ -679,16 +1039,26 @@ public class ClaseServiceImpl implements ClaseService {
      * Usado por el endpoint PATCH /clases/{id}/estado
      */
     @Override
+    @Medido("clases.cambiar-estado")
     public ClaseResponseDto cambiarEstado(Long id, Estado nuevoEstado, String observaciones) {
         Clase clase = claseRepository.findByIdWithDetails(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Clase", "ID", id));
+        Estado estadoAnterior = clase.getEstado();
         clase.setEstado(nuevoEstado);
         clase.setObservaciones(observaciones);
         claseRepository.save(clase);
+        ocupacionHorariaIndex.registrar(clase);
+        planificadorEstadosClase.planificar(clase);
+
+        // Entra o sale de COMPLETADA: el resumen del mes se recuenta, así
+        // COMPLETADA → X → COMPLETADA no suma dos veces
+        if ((nuevoEstado == Estado.COMPLETADA) != (estadoAnterior == Estado.COMPLETADA)) {
+            resumenMensualService.recontarClases(clase.getDia());
+        }
 
+        // Idempotente: volver a COMPLETADA (o ASA) no cobra la clase otra vez
         if ((nuevoEstado == Estado.COMPLETADA || nuevoEstado == Estado.ASA) && clase.getAlumno() != null) {
-            abonoService.obtenerAbonoActivo(clase.getAlumno().getId())
-                    .ifPresent(abono -> abonoService.descontarClase(abono.getId()));
+            abonoService.registrarConsumo(clase.getId());
         }
         return new ClaseResponseDto(clase);
     }
@@ -1,5 +1,6 @@
 package com.escueladeequitacion.hrs.service;
 
+import com.escueladeequitacion.hrs.config.Medido;
 import com.escueladeequitacion.hrs.exception.BusinessException;
 import com.escueladeequitacion.hrs.exception.ResourceNotFoundException;
 import com.escueladeequitacion.hrs.model.Factura;
@@ -31,6 +32,7 @@ public class CobranzaServiceImpl implements CobranzaService {
      * Actualiza el saldo pendiente y estado de la factura.
      */
     @Transactional
+    @Medido("cobranza.registrar-pago")
     public Pago registrarPago(RegistrarPagoRequestDto request, String usuarioRegistrador) {
 
         // 1. Obtener factura
@@ -0,0 +1,98 @@
+package com.escueladeequitacion.hrs.service;
+
+import com.escueladeequitacion.hrs.model.ConfiguracionPrecios;
+import com.escueladeequitacion.hrs.repository.ConfiguracionPreciosRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Copia en memoria de la fila única de ConfiguracionPrecios.
+ *
+ * Los precios cambian pocas veces al año y se leen en cada reporte de
+ * finanzas, así que se guarda una copia inmutable en un AtomicReference:
+ * - La primera lectura la carga (y crea la fila con valores por defecto si no
+ * existe).
+ * - updateConfiguracion la reemplaza cuando confirma su transacción; si hace
+ * rollback la copia no cambia. Nunca se reemplaza por una versión menor.
+ * - Cada app.precios.verificacion-ms se lee solo la columna version: si otro
+ * nodo cambió los precios la versión difiere y se recarga la fila.
+ */
+@Component
+public class ConfiguracionPreciosCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConfiguracionPreciosCache.class);
+
+    @Autowired
+    private ConfiguracionPreciosRepository configRepo;
+
+    private final AtomicReference<ConfiguracionPreciosVigente> actual = new AtomicReference<>();
+
+    /**
+     * Precios vigentes, sin ir a la BD salvo en la primera llamada.
+     */
+    public ConfiguracionPreciosVigente obtener() {
+        ConfiguracionPreciosVigente vigente = actual.get();
+        return vigente != null ? vigente : recargar();
+    }
+
+    /**
+     * Reemplaza la copia por la configuración recién guardada cuando confirma
+     * la transacción en curso (o enseguida si no hay una). Devuelve la copia
+     * nueva para responder sin esperar al commit.
+     */
+    public ConfiguracionPreciosVigente reemplazarAlConfirmar(ConfiguracionPrecios cfg) {
+        ConfiguracionPreciosVigente nueva = ConfiguracionPreciosVigente.de(cfg);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    instalar(nueva);
+                }
+            });
+        } else {
+            instalar(nueva);
+        }
+        return nueva;
+    }
+
+    private void instalar(ConfiguracionPreciosVigente nueva) {
+        actual.accumulateAndGet(nueva,
+                (vigente, candidata) -> vigente == null || candidata.getVersion() >= vigente.getVersion()
+                        ? candidata
+                        : vigente);
+    }
+
+    @Scheduled(fixedDelayString = "${app.precios.verificacion-ms:30000}")
+    public void verificarVersion() {
+        ConfiguracionPreciosVigente vigente = actual.get();
+        if (vigente == null) {
+            return; // Todavía no se leyó: se carga en la primera lectura
+        }
+        configRepo.findVersion()
+                .filter(version -> version != vigente.getVersion())
+                .ifPresent(version -> {
+                    recargar();
+                    logger.info("Configuración de precios recargada (versión {} → {})", vigente.getVersion(),
+                            version);
+                });
+    }
+
+    private ConfiguracionPreciosVigente recargar() {
+        ConfiguracionPrecios cfg = configRepo.findById(1L).orElseGet(() -> {
+            ConfiguracionPrecios defaults = new ConfiguracionPrecios();
+            defaults.setId(1L);
+            return configRepo.save(defaults);
+        });
+        ConfiguracionPreciosVigente nueva = ConfiguracionPreciosVigente.de(cfg);
+        actual.set(nueva);
+        return nueva;
+    }
+}
@@ -0,0 +1,125 @@
+package com.escueladeequitacion.hrs.service;
+
+import com.escueladeequitacion.hrs.model.Alumno;
+import com.escueladeequitacion.hrs.model.ConfiguracionPrecios;
+
+/**
+ * Copia inmutable de ConfiguracionPrecios que se comparte entre hilos desde
+ * ConfiguracionPreciosCache. Las tarifas se calculan en memoria, sin tocar la
+ * entidad ni la BD.
+ */
+public final class ConfiguracionPreciosVigente {
+
+    private final long version;
+    private final double cuota4Clases;
+    private final double cuota8Clases;
+    private final double cuota12Clases;
+    private final double cuota16Clases;
+    private final double pensionEntera;
+    private final double pensionMedia;
+    private final double pensionTercio;
+    private final double reservaEscuela;
+    private final double honorarioPorClase;
+    private final double honorarioBaseMensual;
+
+    private ConfiguracionPreciosVigente(ConfiguracionPrecios cfg) {
+        this.version = cfg.getVersion() != null ? cfg.getVersion() : 0L;
+        this.cuota4Clases = cfg.getCuota4Clases();
+        this.cuota8Clases = cfg.getCuota8Clases();
+        this.cuota12Clases = cfg.getCuota12Clases();
+        this.cuota16Clases = cfg.getCuota16Clases();
+        this.pensionEntera = cfg.getPensionEntera();
+        this.pensionMedia = cfg.getPensionMedia();
+        this.pensionTercio = cfg.getPensionTercio();
+        this.reservaEscuela = cfg.getReservaEscuela();
+        this.honorarioPorClase = cfg.getHonorarioPorClase();
+        this.honorarioBaseMensual = cfg.getHonorarioBaseMensual();
+    }
+
+    public static ConfiguracionPreciosVigente de(ConfiguracionPrecios cfg) {
+        return new ConfiguracionPreciosVigente(cfg);
+    }
+
+    // ── Tarifas ───────────────────────────────────────────────
+
+    /**
+     * Cuota mensual de un plan de 4, 8, 12 o 16 clases (0 para otro valor).
+     */
+    public double tarifaPlan(Integer plan) {
+        if (plan == null)
+            return 0.0;
+        return switch (plan) {
+            case 4 -> cuota4Clases;
+            case 8 -> cuota8Clases;
+            case 12 -> cuota12Clases;
+            case 16 -> cuota16Clases;
+            default -> 0.0;
+        };
+    }
+
+    /**
+     * Pensión mensual de un alumno según su tipo y cuota de pensión.
+     */
+    public double pensionDe(Alumno a) {
+        if (a.getTipoPension() == null)
+            return 0.0;
+        return switch (a.getTipoPension()) {
+            case SIN_CABALLO -> 0.0;
+            case RESERVA_ESCUELA -> reservaEscuela;
+            case CABALLO_PROPIO -> {
+                if (a.getCuotaPension() == null)
+                    yield 0.0;
+                yield switch (a.getCuotaPension()) {
+                    case ENTERA -> pensionEntera;
+                    case MEDIA -> pensionMedia;
+                    case TERCIO -> pensionTercio;
+                };
+            }
+        };
+    }
+
+    // ── Getters ───────────────────────────────────────────────
+    public long getVersion() {
+        return version;
+    }
+
+    public double getCuota4Clases() {
+        return cuota4Clases;
+    }
+
+    public double getCuota8Clases() {
+        return cuota8Clases;
+    }
+
+    public double getCuota12Clases() {
+        return cuota12Clases;
+    }
+
+    public double getCuota16Clases() {
+        return cuota16Clases;
+    }
+
+    public double getPensionEntera() {
+        return pensionEntera;
+    }
+
+    public double getPensionMedia() {
+        return pensionMedia;
+    }
+
+    public double getPensionTercio() {
+        return pensionTercio;
+    }
+
+    public double getReservaEscuela() {
+        return reservaEscuela;
+    }
+
+    public double getHonorarioPorClase() {
+        return honorarioPorClase;
+    }
+
+    public double getHonorarioBaseMensual() {
+        return honorarioBaseMensual;
+    }
+}
@@ -24,6 +24,9 @@ public class FacturacionServiceImpl implements FacturacionService {
     @Autowired
     private FacturaRepository facturaRepository;
 
+    @Autowired
+    private NumeradorFacturas numeradorFacturas;
+
     /**
      * Genera factura mensual automáticamente para un abono.
      * Se llama desde el AbonoService al crear el abono.
@@ -108,25 +111,12 @@ public class FacturacionServiceImpl implements FacturacionService {
     }
 
     /**
-     * Genera el número de factura siguiente.
+     * Genera el número de factura siguiente (ver NumeradorFacturas).
      * Formato: FC-YYYY-NNNNN
      */
     private String generarNumeroFactura() {
         int anio = LocalDate.now().getYear();
-        String patron = "FC-" + anio + "-%";
-
-        String ultimoNumero = facturaRepository.findUltimoNumeroFactura(patron).orElse(null);
-
-        int siguiente = 1;
-        if (ultimoNumero != null) {
-            // Extraer el número del formato FC-2025-00123
-            String[] partes = ultimoNumero.split("-");
-            if (partes.length == 3) {
-                siguiente = Integer.parseInt(partes[2]) + 1;
-            }
-        }
-
-        return String.format("FC-%d-%05d", anio, siguiente);
+        return String.format("FC-%d-%05d", anio, numeradorFacturas.siguiente(anio));
     }
 
     /**
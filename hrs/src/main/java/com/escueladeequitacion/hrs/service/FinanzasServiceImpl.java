@@ -1,5 +1,6 @@
 package com.escueladeequitacion.hrs.service;
 
+import com.escueladeequitacion.hrs.config.Medido;
 import com.escueladeequitacion.hrs.dto.*;
 import com.escueladeequitacion.hrs.dto.ResumenFinancieroDto.DesglosePlanDto;
 import com.escueladeequitacion.hrs.dto.ResumenFinancieroDto.PuntoEvolucionDto;
@@ -8,6 +9,7 @@ import com.escueladeequitacion.hrs.enums.TipoPension;
 import com.escueladeequitacion.hrs.model.Alumno;
 import com.escueladeequitacion.hrs.model.ConfiguracionPrecios;
 import com.escueladeequitacion.hrs.model.Instructor;
+import com.escueladeequitacion.hrs.model.ResumenMensual;
 import com.escueladeequitacion.hrs.repository.AlumnoRepository;
 import com.escueladeequitacion.hrs.repository.ClaseRepository;
 import com.escueladeequitacion.hrs.repository.ConfiguracionPreciosRepository;
@@ -19,10 +21,14 @@ import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.YearMonth;
+import java.time.ZoneId;
 import java.time.format.TextStyle;
+import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 @Service
 @Transactional
@@ -38,40 +44,44 @@ public class FinanzasServiceImpl implements FinanzasService {
     private ConfiguracionPreciosRepository configRepo;
     @Autowired
     private InstructorService instructorService;
+    @Autowired
+    private ResumenMensualService resumenMensualService;
+    @Autowired
+    private ConfiguracionPreciosCache preciosCache;
 
-    // ── Singleton de configuración ────────────────────────────────────────────
-
-    private ConfiguracionPrecios getOrCreateConfig() {
-        return configRepo.findById(1L).orElseGet(() -> {
-            ConfiguracionPrecios defaults = new ConfiguracionPrecios();
-            defaults.setId(1L);
-            return configRepo.save(defaults);
-        });
-    }
+    private static final ZoneId ZONA = ZoneId.of("America/Argentina/Buenos_Aires");
 
     // ── getConfiguracion ─────────────────────────────────────────────────────
 
     @Override
     public ConfiguracionPreciosDto getConfiguracion() {
-        ConfiguracionPrecios cfg = getOrCreateConfig();
-        return toDto(cfg);
+        return toDto(preciosCache.obtener());
     }
 
     // ── updateConfiguracion ──────────────────────────────────────────────────
 
     @Override
     public ConfiguracionPreciosDto updateConfiguracion(ConfiguracionPreciosDto dto) {
-        ConfiguracionPrecios cfg = getOrCreateConfig();
+        // La versión se avanza en la BD antes de leer la fila: el UPDATE la
+        // bloquea, así otro nodo que guarde a la vez espera y lee la nuestra
+        if (configRepo.incrementarVersion() == 0) {
+            configRepo.saveAndFlush(new ConfiguracionPrecios());
+            configRepo.incrementarVersion();
+        }
+        ConfiguracionPrecios cfg = configRepo.findById(1L).orElseThrow();
         applyDto(cfg, dto);
         configRepo.save(cfg);
-        return toDto(cfg);
+        ConfiguracionPreciosVigente vigente = preciosCache.reemplazarAlConfirmar(cfg);
+        resumenMensualService.recalcularMesActual();
+        return toDto(vigente);
     }
 
     // ── calcularResumen ──────────────────────────────────────────────────────
 
     @Override
+    @Medido("finanzas.resumen")
     public ResumenFinancieroDto calcularResumen(LocalDate inicio, LocalDate fin, Long instructorId) {
-        ConfiguracionPrecios cfg = getOrCreateConfig();
+        ConfiguracionPreciosVigente cfg = preciosCache.obtener();
         
         List<Alumno> alumnos;
         List<Instructor> instructores;
@@ -84,10 +94,10 @@ public class FinanzasServiceImpl implements FinanzasService {
             // ✅ Query dedicada — filtra en BD con índices, sin cargar toda la tabla
             List<Long> alumnoIds = claseRepository.findAlumnoIdsByInstructorAndPeriodo(
                     instructorId, inicio, fin);
-            alumnos = alumnoRepository.findAllById(alumnoIds).stream()
+            alumnos = alumnoRepository.findAllByIdConCaballo(alumnoIds).stream()
                     .filter(Alumno::isActivo).collect(java.util.stream.Collectors.toList());
         } else {
-            alumnos = alumnoRepository.findByActivo(true);
+            alumnos = alumnoRepository.findByActivoConCaballo(true);
             instructores = instructorRepository.findByActivo(true);
         }
 
@@ -100,42 +110,47 @@ public class FinanzasServiceImpl implements FinanzasService {
             long count = alumnos.stream()
                     .filter(a -> a.getCantidadClases() == plan)
                     .count();
-            double tarifa = tarifaPlan(cfg, plan);
+            double tarifa = cfg.tarifaPlan(plan);
             cuotas += count * tarifa;
             desglose.add(new DesglosePlanDto(plan, (int) count, tarifa));
         }
 
         // ── Ingresos pensiones ────────────────────────────────────────────
         double pensiones = alumnos.stream()
-                .mapToDouble(a -> calcularPensionAlumno(cfg, a))
+                .mapToDouble(a -> cfg.pensionDe(a))
                 .sum();
 
-        // ── Egresos honorarios (clases completadas en el período) ─────────
-        double honorarios = instructores.stream().mapToDouble(inst -> {
-            long completadas = claseRepository.contarPorInstructorYEstado(
-                    inst.getId(), Estado.COMPLETADA);
-            // Si el período es de varios meses, prorrateamos el base
-            long meses = Math.max(1,
-                    YearMonth.from(inicio).until(YearMonth.from(fin),
-                            java.time.temporal.ChronoUnit.MONTHS) + 1);
-            return cfg.getHonorarioBaseMensual() * meses
-                    + completadas * cfg.getHonorarioPorClase();
-        }).sum();
-
-        // ── Evolución mensual ─────────────────────────────────────────────
-        List<PuntoEvolucionDto> evolucion = new ArrayList<>();
+        // ── Evolución mensual y honorarios ────────────────────────────────
+        // Meses terminados: filas de resumenes_mensuales.
+        // Mes en curso (y futuros): en vivo, con una consulta agrupada.
         YearMonth ymInicio = YearMonth.from(inicio);
         YearMonth ymFin = YearMonth.from(fin);
-        YearMonth ym = ymInicio;
-        while (!ym.isAfter(ymFin)) {
-            LocalDate mesInicio = ym.atDay(1);
-            LocalDate mesFin = ym.atEndOfMonth();
+        YearMonth mesActual = YearMonth.now(ZONA);
+        Map<YearMonth, ResumenMensual> terminados = resumenMensualService.obtenerMesesTerminados(
+                ymInicio, ymFin, instructorId);
 
-            // Ingresos proyectados del mes = cuotas + pensiones (estáticos)
-            double ingMes = cuotas + pensiones;
+        LocalDate inicioEnVivo = inicio.isBefore(mesActual.atDay(1)) ? mesActual.atDay(1) : inicio;
+        CompletadasPorMes completadasPorMes = contarCompletadasPorMes(inicioEnVivo,
+                fin.isBefore(inicioEnVivo) ? inicioEnVivo : fin);
 
-            // Egresos del mes = base mensual instructores activos + clases del mes
-            double egrMes = calcularEgresosMes(cfg, instructores, mesInicio, mesFin);
+        List<PuntoEvolucionDto> evolucion = new ArrayList<>();
+        double honorarios = 0;
+        YearMonth ym = ymInicio;
+        while (!ym.isAfter(ymFin)) {
+            double ingMes;
+            double egrMes;
+            if (ym.isBefore(mesActual)) {
+                // Mes terminado: sin fila, el instructor no tuvo clases ni estuvo activo
+                ResumenMensual resumen = terminados.get(ym);
+                ingMes = resumen != null ? resumen.getIngresosTotal() : 0.0;
+                egrMes = resumen != null ? resumen.getEgresosHonorarios() : 0.0;
+            } else {
+                // Ingresos proyectados del mes = cuotas + pensiones (estáticos)
+                ingMes = cuotas + pensiones;
+                // Egresos del mes = base mensual instructores activos + clases del mes
+                egrMes = calcularEgresosMes(cfg, instructores, completadasPorMes, ym);
+            }
+            honorarios += egrMes;
 
             String label = ym.getMonth()
                     .getDisplayName(TextStyle.SHORT, new Locale("es", "AR"))
@@ -158,29 +173,35 @@ public class FinanzasServiceImpl implements FinanzasService {
     // ── calcularCuotasAlumnos ────────────────────────────────────────────────
 
     @Override
+    @Medido("finanzas.cuotas")
     public CuotasAlumnosDto calcularCuotasAlumnos(LocalDate inicio, LocalDate fin, Long instructorId) {
-        ConfiguracionPrecios cfg = getOrCreateConfig();
+        ConfiguracionPreciosVigente cfg = preciosCache.obtener();
         
         List<Alumno> alumnos;
         if (instructorId != null) {
             // ✅ Query dedicada — filtra en BD con índices, sin cargar toda la tabla
             List<Long> alumnoIds = claseRepository.findAlumnoIdsByInstructorAndPeriodo(
                     instructorId, inicio, fin);
-            alumnos = alumnoRepository.findAllById(alumnoIds).stream()
+            alumnos = alumnoRepository.findAllByIdConCaballo(alumnoIds).stream()
                     .filter(Alumno::isActivo).collect(java.util.stream.Collectors.toList());
         } else {
-            alumnos = alumnoRepository.findByActivo(true);
+            alumnos = alumnoRepository.findByActivoConCaballo(true);
+        }
+
+        // Clases completadas del período de todos los alumnos en una sola consulta
+        Map<Long, Long> completadasPorAlumno = new HashMap<>();
+        for (Object[] fila : claseRepository.contarPorAlumnoYPeriodo(Estado.COMPLETADA, inicio, fin)) {
+            completadasPorAlumno.put((Long) fila[0], ((Number) fila[1]).longValue());
         }
 
         List<CuotasAlumnosDto.FilaAlumnoDto> filas = new ArrayList<>();
         double total = 0;
 
         for (Alumno a : alumnos) {
-            long completadas = claseRepository.contarPorAlumnoYEstado(
-                    a.getId(), Estado.COMPLETADA);
+            long completadas = completadasPorAlumno.getOrDefault(a.getId(), 0L);
 
-            double montoCuota = tarifaPlan(cfg, a.getCantidadClases());
-            double montoPension = calcularPensionAlumno(cfg, a);
+            double montoCuota = cfg.tarifaPlan(a.getCantidadClases());
+            double montoPension = cfg.pensionDe(a);
             double totalAlumno = montoCuota + montoPension;
             total += totalAlumno;
 
@@ -210,8 +231,9 @@ public class FinanzasServiceImpl implements FinanzasService {
     // ── calcularPensiones ────────────────────────────────────────────────────
 
     @Override
+    @Medido("finanzas.pensiones")
     public PensionesDto calcularPensiones() {
-        ConfiguracionPrecios cfg = getOrCreateConfig();
+        ConfiguracionPreciosVigente cfg = preciosCache.obtener();
         List<Alumno> alumnos = alumnoRepository.findAll();
 
         List<PensionesDto.FilaPensionDto> filas = new ArrayList<>();
@@ -224,7 +246,7 @@ public class FinanzasServiceImpl implements FinanzasService {
                 continue;
             }
 
-            double monto = calcularPensionAlumno(cfg, a);
+            double monto = cfg.pensionDe(a);
             if (monto == 0)
                 continue;
 
@@ -252,8 +274,9 @@ public class FinanzasServiceImpl implements FinanzasService {
     // ── calcularHonorarios ───────────────────────────────────────────────────
 
     @Override
+    @Medido("finanzas.honorarios")
     public HonorariosDto calcularHonorarios(LocalDate inicio, LocalDate fin, Long instructorId) {
-        ConfiguracionPrecios cfg = getOrCreateConfig();
+        ConfiguracionPreciosVigente cfg = preciosCache.obtener();
         
         List<Instructor> instructores;
         if (instructorId != null) {
@@ -266,13 +289,11 @@ public class FinanzasServiceImpl implements FinanzasService {
         List<HonorariosDto.FilaInstructorDto> filas = new ArrayList<>();
         double total = 0;
 
-        long meses = Math.max(1,
-                YearMonth.from(inicio).until(YearMonth.from(fin),
-                        java.time.temporal.ChronoUnit.MONTHS) + 1);
+        CompletadasPorMes completadasPorMes = contarCompletadasPorMes(inicio, fin);
+        long meses = completadasPorMes.meses();
 
         for (Instructor inst : instructores) {
-            long completadas = claseRepository.contarPorInstructorYEstado(
-                    inst.getId(), Estado.COMPLETADA);
+            long completadas = completadasPorMes.total(inst.getId());
 
             double base = cfg.getHonorarioBaseMensual() * meses;
             double porClases = completadas * cfg.getHonorarioPorClase();
@@ -300,45 +321,74 @@ public class FinanzasServiceImpl implements FinanzasService {
 
     // ── Helpers privados ─────────────────────────────────────────────────────
 
-    private double tarifaPlan(ConfiguracionPrecios cfg, int plan) {
-        return switch (plan) {
-            case 4 -> cfg.getCuota4Clases();
-            case 8 -> cfg.getCuota8Clases();
-            case 12 -> cfg.getCuota12Clases();
-            case 16 -> cfg.getCuota16Clases();
-            default -> 0.0;
-        };
-    }
-
-    private double calcularPensionAlumno(ConfiguracionPrecios cfg, Alumno a) {
-        if (a.getTipoPension() == null)
-            return 0.0;
-        return switch (a.getTipoPension()) {
-            case SIN_CABALLO -> 0.0;
-            case RESERVA_ESCUELA -> cfg.getReservaEscuela();
-            case CABALLO_PROPIO -> {
-                if (a.getCuotaPension() == null)
-                    yield 0.0;
-                yield switch (a.getCuotaPension()) {
-                    case ENTERA -> cfg.getPensionEntera();
-                    case MEDIA -> cfg.getPensionMedia();
-                    case TERCIO -> cfg.getPensionTercio();
-                };
-            }
-        };
-    }
-
-    private double calcularEgresosMes(ConfiguracionPrecios cfg,
-            List<Instructor> instructores, LocalDate inicio, LocalDate fin) {
+    private double calcularEgresosMes(ConfiguracionPreciosVigente cfg, List<Instructor> instructores,
+            CompletadasPorMes completadasPorMes, YearMonth mes) {
         return instructores.stream().mapToDouble(inst -> {
-            long completadas = claseRepository.contarPorInstructorYEstado(
-                    inst.getId(), Estado.COMPLETADA);
+            long completadas = completadasPorMes.delMes(inst.getId(), mes);
             return cfg.getHonorarioBaseMensual()
                     + completadas * cfg.getHonorarioPorClase();
         }).sum();
     }
 
-    private ConfiguracionPreciosDto toDto(ConfiguracionPrecios cfg) {
+    /**
+     * Clases COMPLETADAS del período por instructor y mes, con una sola
+     * consulta agrupada (ClaseRepository.contarPorInstructorYMes).
+     */
+    private CompletadasPorMes contarCompletadasPorMes(LocalDate inicio, LocalDate fin) {
+        CompletadasPorMes resultado = new CompletadasPorMes(YearMonth.from(inicio), YearMonth.from(fin));
+        for (Object[] fila : claseRepository.contarPorInstructorYMes(Estado.COMPLETADA, inicio, fin)) {
+            resultado.sumar((Long) fila[0],
+                    YearMonth.of(((Number) fila[1]).intValue(), ((Number) fila[2]).intValue()),
+                    ((Number) fila[3]).longValue());
+        }
+        return resultado;
+    }
+
+    /**
+     * Conteos por instructor en un arreglo de long indexado por mes desde el
+     * inicio del período, para no crear un objeto por cada (instructor, mes).
+     */
+    private static final class CompletadasPorMes {
+        private final YearMonth primerMes;
+        private final int meses;
+        private final Map<Long, long[]> porInstructor = new HashMap<>();
+
+        CompletadasPorMes(YearMonth primerMes, YearMonth ultimoMes) {
+            this.primerMes = primerMes;
+            this.meses = (int) Math.max(1, primerMes.until(ultimoMes, ChronoUnit.MONTHS) + 1);
+        }
+
+        void sumar(Long instructorId, YearMonth mes, long cantidad) {
+            int indice = (int) primerMes.until(mes, ChronoUnit.MONTHS);
+            if (indice >= 0 && indice < meses) {
+                porInstructor.computeIfAbsent(instructorId, id -> new long[meses])[indice] += cantidad;
+            }
+        }
+
+        long delMes(Long instructorId, YearMonth mes) {
+            long[] conteos = porInstructor.get(instructorId);
+            int indice = (int) primerMes.until(mes, ChronoUnit.MONTHS);
+            return conteos != null && indice >= 0 && indice < meses ? conteos[indice] : 0L;
+        }
+
+        long total(Long instructorId) {
+            long[] conteos = porInstructor.get(instructorId);
+            if (conteos == null) {
+                return 0L;
+            }
+            long total = 0L;
+            for (long c : conteos) {
+                total += c;
+            }
+            return total;
+        }
+
+        long meses() {
+            return meses;
+        }
+    }
+
+    private ConfiguracionPreciosDto toDto(ConfiguracionPreciosVigente cfg) {
         ConfiguracionPreciosDto dto = new ConfiguracionPreciosDto();
         dto.setCuota4Clases(cfg.getCuota4Clases());
         dto.setCuota8Clases(cfg.getCuota8Clases());
@@ -0,0 +1,142 @@
+package com.escueladeequitacion.hrs.service;
+
+import com.escueladeequitacion.hrs.repository.ContadorFacturaRepository;
+import com.escueladeequitacion.hrs.repository.FacturaRepository;
+
+import jakarta.annotation.PostConstruct;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Entrega los números de factura de cada año sin consultar la tabla de
+ * facturas en cada emisión.
+ *
+ * - Cada nodo reserva un bloque de números (app.facturas.bloque-numeros)
+ * avanzando la fila del año en contadores_factura, en una transacción propia
+ * que confirma enseguida. El UPDATE bloquea la fila, así dos nodos nunca
+ * reciben el mismo bloque.
+ * - Dentro del bloque los números salen de un AtomicLong, sin ir a la BD.
+ * - La numeración admite huecos: los números de un bloque que no se usan
+ * (reinicio, factura que hace rollback) se pierden, y con varios nodos el
+ * orden de los números no sigue el orden de emisión.
+ * - La primera vez que se pide un año se crea su contador a partir del
+ * último FC-AAAA-NNNNN existente.
+ */
+@Component
+public class NumeradorFacturas {
+
+    private static final Logger logger = LoggerFactory.getLogger(NumeradorFacturas.class);
+
+    @Autowired
+    private ContadorFacturaRepository contadorRepository;
+
+    @Autowired
+    private FacturaRepository facturaRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Value("${app.facturas.bloque-numeros:50}")
+    private int tamanioBloque;
+
+    private final Map<Integer, Bloque> bloques = new ConcurrentHashMap<>();
+
+    private TransactionTemplate txNueva;
+
+    @PostConstruct
+    void inicializar() {
+        txNueva = new TransactionTemplate(transactionManager);
+        txNueva.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Devuelve el siguiente número libre del año.
+     */
+    public long siguiente(int anio) {
+        while (true) {
+            Bloque bloque = bloques.get(anio);
+            if (bloque != null) {
+                long numero = bloque.proximo.getAndIncrement();
+                if (numero <= bloque.ultimo) {
+                    return numero;
+                }
+            }
+            renovar(anio, bloque);
+        }
+    }
+
+    /**
+     * Reserva un bloque nuevo si nadie lo hizo desde que se leyó "agotado".
+     */
+    private synchronized void renovar(int anio, Bloque agotado) {
+        if (bloques.get(anio) != agotado) {
+            return;
+        }
+        bloques.put(anio, reservar(anio));
+    }
+
+    private Bloque reservar(int anio) {
+        long hasta = txNueva.execute(status -> avanzar(anio));
+        long desde = hasta - tamanioBloque;
+        logger.debug("Números de factura {} reservados: {} a {}", anio, desde, hasta - 1);
+        return new Bloque(desde, hasta - 1);
+    }
+
+    private long avanzar(int anio) {
+        if (contadorRepository.avanzar(anio, tamanioBloque) == 0) {
+            crearContador(anio);
+            contadorRepository.avanzar(anio, tamanioBloque);
+        }
+        return contadorRepository.findSiguiente(anio).orElseThrow();
+    }
+
+    /**
+     * Crea el contador del año en su propia transacción. Si otro nodo lo creó
+     * primero el INSERT falla por clave duplicada y se usa el suyo.
+     */
+    private void crearContador(int anio) {
+        long inicial = ultimoNumeroExistente(anio) + 1;
+        try {
+            txNueva.executeWithoutResult(status -> contadorRepository.crear(anio, inicial));
+            logger.info("Contador de facturas {} creado desde {}", anio, inicial);
+        } catch (DataIntegrityViolationException e) {
+            logger.debug("Contador de facturas {} creado por otro nodo", anio);
+        }
+    }
+
+    private long ultimoNumeroExistente(int anio) {
+        String ultimo = facturaRepository.findUltimoNumeroFactura("FC-" + anio + "-%").orElse(null);
+        if (ultimo != null) {
+            // Extraer el número del formato FC-2025-00123
+            String[] partes = ultimo.split("-");
+            if (partes.length == 3) {
+                return Long.parseLong(partes[2]);
+            }
+        }
+        return 0;
+    }
+
+    // ── Estructuras internas ─────────────────────────────────────────────────
+
+    private static final class Bloque {
+        private final AtomicLong proximo;
+        private final long ultimo;
+
+        private Bloque(long desde, long ultimo) {
+            this.proximo = new AtomicLong(desde);
+            this.ultimo = ultimo;
+        }
+    }
+}
@@ -0,0 +1,478 @@
+package com.escueladeequitacion.hrs.service;
+
+import com.escueladeequitacion.hrs.enums.Estado;
+import com.escueladeequitacion.hrs.model.Clase;
+import com.escueladeequitacion.hrs.model.ClaseRecurrente;
+import com.escueladeequitacion.hrs.repository.ClaseRecurrenteRepository;
+import com.escueladeequitacion.hrs.repository.ClaseRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.time.temporal.TemporalAdjusters;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice en memoria de la ocupación horaria de caballos, alumnos e
+ * instructores.
+ *
+ * Cada día se divide en 48 franjas de 30 minutos y, por cada recurso, se
+ * guarda un long donde el bit N indica que la franja N está ocupada. Así la
+ * validación de conflictos (incluida la superposición por duración) es un AND
+ * de bits, sin ir a la base de datos.
+ *
+ * - Al arrancar se precargan las próximas semanas con findByDiaBetween.
+ * - Un día que no está en memoria se carga una sola vez desde la BD (fallback).
+ * - Las altas, cambios y bajas se aplican recién cuando confirma la
+ * transacción, para no dejar ocupaciones fantasma si hay rollback.
+ * - Cargas y cambios se serializan con un lock: un cambio confirmado mientras
+ * se leía un día espera a que el día esté en memoria y se aplica encima, en
+ * lugar de perderse.
+ * - Los instructores no se validan: pueden dar clase a varios alumnos en la
+ * misma franja. Sus máscaras se usan para la búsqueda de disponibilidad.
+ * - Las clases CANCELADAS no ocupan lugar.
+ * - Las ocurrencias de clases recurrentes sin fila propia también ocupan
+ * lugar; se identifican con el ID de la plantilla en negativo y se descartan
+ * recargando el día cuando la ocurrencia se materializa.
+ */
+@Component
+public class OcupacionHorariaIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(OcupacionHorariaIndex.class);
+
+    private static final ZoneId ZONA = ZoneId.of("America/Argentina/Buenos_Aires");
+    private static final int MINUTOS_FRANJA = 30;
+    private static final int FRANJAS_POR_DIA = 24 * 60 / MINUTOS_FRANJA;
+
+    @Autowired
+    private ClaseRepository claseRepository;
+
+    @Autowired
+    private ClaseRecurrenteRepository claseRecurrenteRepository;
+
+    @Value("${app.ocupacion.semanas-precarga:8}")
+    private int semanasPrecarga;
+
+    private final Map<LocalDate, DiaOcupacion> dias = new ConcurrentHashMap<>();
+    private final Map<Long, LocalDate> diaPorClase = new ConcurrentHashMap<>();
+    private final Object carga = new Object();
+
+    // ── Carga ────────────────────────────────────────────────────────────────
+
+    /**
+     * Precarga el índice desde hoy hasta las próximas N semanas.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void precargar() {
+        LocalDate hoy = LocalDate.now(ZONA);
+        LocalDate fin = hoy.plusWeeks(semanasPrecarga);
+        cargarRango(hoy, fin);
+        logger.info("Índice de ocupación precargado del {} al {} ({} clases)", hoy, fin, diaPorClase.size());
+    }
+
+    /**
+     * Descarta los días ya pasados. Si se vuelven a consultar, se recargan
+     * desde la BD.
+     */
+    @Scheduled(cron = "0 0 3 * * *", zone = "America/Argentina/Buenos_Aires")
+    public void descartarDiasPasados() {
+        LocalDate hoy = LocalDate.now(ZONA);
+        synchronized (carga) {
+            dias.keySet().removeIf(dia -> dia.isBefore(hoy));
+            diaPorClase.values().removeIf(dia -> dia.isBefore(hoy));
+        }
+    }
+
+    private void cargarRango(LocalDate inicio, LocalDate fin) {
+        synchronized (carga) {
+            cargarRangoAhora(inicio, fin);
+        }
+    }
+
+    private void cargarRangoAhora(LocalDate inicio, LocalDate fin) {
+        // putIfAbsent: si otro hilo ya cargó el día, se respeta su versión
+        leerDias(inicio, fin).forEach((dia, ocupacion) -> {
+            if (dias.putIfAbsent(dia, ocupacion) == null) {
+                ocupacion.claseIds().forEach(id -> diaPorClase.put(id, dia));
+            }
+        });
+    }
+
+    private Map<LocalDate, DiaOcupacion> leerDias(LocalDate inicio, LocalDate fin) {
+        Map<LocalDate, DiaOcupacion> cargados = new HashMap<>();
+        for (LocalDate d = inicio; !d.isAfter(fin); d = d.plusDays(1)) {
+            cargados.put(d, new DiaOcupacion());
+        }
+        for (Clase clase : claseRepository.findByDiaBetween(inicio, fin)) {
+            Ocupacion ocupacion = Ocupacion.de(clase);
+            if (ocupacion != null) {
+                cargados.get(clase.getDia()).agregar(ocupacion);
+            }
+        }
+        agregarOcurrenciasRecurrentes(inicio, fin, cargados);
+        return cargados;
+    }
+
+    /**
+     * Ocupación de [inicio, fin] leída de la BD en la transacción en curso,
+     * sin pasar por el índice. La usan las operaciones masivas que modifican
+     * el rango antes de confirmar (copiar semanas): ven sus propios borrados,
+     * que el índice recién aplica al confirmar.
+     */
+    public Instantanea leer(LocalDate inicio, LocalDate fin) {
+        return new Instantanea(leerDias(inicio, fin));
+    }
+
+    private void agregarOcurrenciasRecurrentes(LocalDate inicio, LocalDate fin,
+            Map<LocalDate, DiaOcupacion> cargados) {
+        List<ClaseRecurrente> plantillas = claseRecurrenteRepository.findVigentesEnRangoSinDetalles(inicio, fin);
+        if (plantillas.isEmpty()) {
+            return;
+        }
+        Set<String> materializadas = new HashSet<>();
+        for (Object[] fila : claseRepository.findOcurrenciasMaterializadas(inicio, fin)) {
+            materializadas.add(fila[0] + "@" + fila[1]);
+        }
+        for (ClaseRecurrente plantilla : plantillas) {
+            for (LocalDate d = inicio.with(TemporalAdjusters.nextOrSame(plantilla.getDiaSemana()));
+                    !d.isAfter(fin); d = d.plusWeeks(1)) {
+                if (plantilla.ocurreEl(d) && !materializadas.contains(plantilla.getId() + "@" + d)) {
+                    cargados.get(d).agregar(Ocupacion.de(plantilla));
+                }
+            }
+        }
+    }
+
+    private DiaOcupacion obtenerDia(LocalDate dia) {
+        DiaOcupacion ocupacion = dias.get(dia);
+        if (ocupacion != null) {
+            return ocupacion;
+        }
+        synchronized (carga) {
+            if (!dias.containsKey(dia)) {
+                cargarRangoAhora(dia, dia);
+            }
+            return dias.get(dia);
+        }
+    }
+
+    /**
+     * Garantiza que todos los días de [inicio, fin] estén en memoria. Los que
+     * falten se cargan juntos, con una sola consulta por rango.
+     */
+    public void cargarSiFalta(LocalDate inicio, LocalDate fin) {
+        LocalDate primero = null;
+        LocalDate ultimo = null;
+        for (LocalDate d = inicio; !d.isAfter(fin); d = d.plusDays(1)) {
+            if (!dias.containsKey(d)) {
+                if (primero == null) {
+                    primero = d;
+                }
+                ultimo = d;
+            }
+        }
+        if (primero != null) {
+            cargarRango(primero, ultimo);
+        }
+    }
+
+    // ── Consultas de ocupación ───────────────────────────────────────────────
+
+    /**
+     * Copia de las máscaras de franjas ocupadas de cada caballo en el día.
+     * Los caballos sin clases ese día no aparecen (máscara 0).
+     */
+    public Map<Long, Long> mascarasCaballos(LocalDate dia) {
+        return obtenerDia(dia).mascaras(Recurso.CABALLO);
+    }
+
+    public Map<Long, Long> mascarasInstructores(LocalDate dia) {
+        return obtenerDia(dia).mascaras(Recurso.INSTRUCTOR);
+    }
+
+    // ── Consultas de conflicto ───────────────────────────────────────────────
+
+    /**
+     * Indica si el caballo ya está ocupado en alguna franja del intervalo
+     * [hora, hora + duracion). excluirClaseId permite ignorar la propia clase
+     * al actualizarla.
+     */
+    public boolean hayConflictoCaballo(LocalDate dia, LocalTime hora, Integer duracion, Long caballoId,
+            Long excluirClaseId) {
+        return hayConflicto(dia, hora, duracion, caballoId, excluirClaseId, Recurso.CABALLO);
+    }
+
+    public boolean hayConflictoAlumno(LocalDate dia, LocalTime hora, Integer duracion, Long alumnoId,
+            Long excluirClaseId) {
+        return hayConflicto(dia, hora, duracion, alumnoId, excluirClaseId, Recurso.ALUMNO);
+    }
+
+    private boolean hayConflicto(LocalDate dia, LocalTime hora, Integer duracion, Long recursoId,
+            Long excluirClaseId, Recurso recurso) {
+        if (dia == null || hora == null || recursoId == null) {
+            return false;
+        }
+        return obtenerDia(dia).seSuperpone(recurso, recursoId, mascara(hora, duracion), excluirClaseId);
+    }
+
+    /**
+     * Calcula la máscara de franjas que ocupa una clase. Las horas que no caen
+     * justo en una franja se redondean hacia afuera (10:15 ocupa 10:00–10:30).
+     */
+    public static long mascara(LocalTime hora, Integer duracion) {
+        int minutos = duracion != null ? duracion : MINUTOS_FRANJA;
+        int inicio = hora.toSecondOfDay() / 60;
+        int desde = inicio / MINUTOS_FRANJA;
+        int hasta = Math.min(FRANJAS_POR_DIA, (inicio + minutos + MINUTOS_FRANJA - 1) / MINUTOS_FRANJA);
+        if (hasta <= desde) {
+            return 0L;
+        }
+        long bits = (hasta - desde) == 64 ? -1L : (1L << (hasta - desde)) - 1;
+        return bits << desde;
+    }
+
+    // ── Mantenimiento ────────────────────────────────────────────────────────
+
+    /**
+     * Registra (o reemplaza) la ocupación de una clase. Se aplica al confirmar
+     * la transacción en curso.
+     */
+    public void registrar(Clase clase) {
+        Ocupacion ocupacion = Ocupacion.de(clase);
+        Long claseId = clase.getId();
+        LocalDate dia = clase.getDia();
+        Long plantillaId = clase.getClaseRecurrente() != null ? clase.getClaseRecurrente().getId() : null;
+        LocalDate fechaOcurrencia = clase.getFechaOcurrencia();
+        alConfirmar(() -> {
+            quitarAhora(claseId);
+            // Una ocurrencia materializada reemplaza a la calculada de la plantilla
+            if (plantillaId != null && fechaOcurrencia != null && dias.containsKey(fechaOcurrencia)) {
+                dias.get(fechaOcurrencia).quitar(-plantillaId);
+            }
+            if (ocupacion != null && dias.containsKey(dia)) {
+                dias.get(dia).agregar(ocupacion);
+                diaPorClase.put(claseId, dia);
+            }
+        });
+    }
+
+    /**
+     * Quita la ocupación de una clase eliminada.
+     */
+    public void quitar(Long claseId) {
+        alConfirmar(() -> quitarAhora(claseId));
+    }
+
+    /**
+     * Descarta los días del rango para que se recarguen desde la BD. Se usa
+     * tras operaciones masivas (copiar o eliminar semanas).
+     */
+    public void invalidar(LocalDate inicio, LocalDate fin) {
+        alConfirmar(() -> {
+            dias.keySet().removeIf(dia -> !dia.isBefore(inicio) && !dia.isAfter(fin));
+            diaPorClase.values().removeIf(dia -> !dia.isBefore(inicio) && !dia.isAfter(fin));
+        });
+    }
+
+    private void quitarAhora(Long claseId) {
+        if (claseId == null) {
+            return;
+        }
+        LocalDate anterior = diaPorClase.remove(claseId);
+        if (anterior != null) {
+            DiaOcupacion ocupacion = dias.get(anterior);
+            if (ocupacion != null) {
+                ocupacion.quitar(claseId);
+            }
+        }
+    }
+
+    /**
+     * Aplica un cambio al confirmar la transacción. Toma el lock de carga: si
+     * el día se está leyendo de la BD, el cambio se aplica cuando termina la
+     * carga (que puede no incluirlo) en vez de descartarse porque el día
+     * todavía no estaba en memoria.
+     */
+    private void alConfirmar(Runnable accion) {
+        Runnable conLock = () -> {
+            synchronized (carga) {
+                accion.run();
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    conLock.run();
+                }
+            });
+        } else {
+            conLock.run();
+        }
+    }
+
+    // ── Estructuras internas ─────────────────────────────────────────────────
+
+    /**
+     * Copia de la ocupación de un rango (ver leer). No es thread-safe: la usa
+     * un solo hilo durante una operación masiva.
+     */
+    public static final class Instantanea {
+        private final Map<LocalDate, DiaOcupacion> dias;
+        // Claves propias para las reservas, distintas de IDs de clase y de plantilla
+        private long proximaClave = Long.MIN_VALUE;
+
+        private Instantanea(Map<LocalDate, DiaOcupacion> dias) {
+            this.dias = dias;
+        }
+
+        /**
+         * Reserva [hora, hora + duracion) si ni el alumno ni el caballo están
+         * ocupados en alguna de esas franjas.
+         *
+         * @return false si hay conflicto (y no se reserva nada)
+         */
+        public boolean reservar(LocalDate dia, LocalTime hora, Integer duracion, Long alumnoId, Long caballoId) {
+            DiaOcupacion ocupacion = dias.get(dia);
+            if (ocupacion == null) {
+                throw new IllegalArgumentException("El día " + dia + " no está en la instantánea");
+            }
+            long mascara = mascara(hora, duracion);
+            if ((alumnoId != null && ocupacion.seSuperpone(Recurso.ALUMNO, alumnoId, mascara, null))
+                    || (caballoId != null && ocupacion.seSuperpone(Recurso.CABALLO, caballoId, mascara, null))) {
+                return false;
+            }
+            ocupacion.agregar(new Ocupacion(proximaClave++, mascara, caballoId, alumnoId, null));
+            return true;
+        }
+    }
+
+    private enum Recurso {
+        CABALLO, ALUMNO, INSTRUCTOR
+    }
+
+    private record Ocupacion(Long claseId, long mascara, Long caballoId, Long alumnoId, Long instructorId) {
+
+        static Ocupacion de(Clase clase) {
+            if (clase.getId() == null || clase.getEstado() == Estado.CANCELADA
+                    || clase.getDia() == null || clase.getHora() == null) {
+                return null;
+            }
+            return new Ocupacion(
+                    clase.getId(),
+                    OcupacionHorariaIndex.mascara(clase.getHora(), clase.getDuracion()),
+                    clase.getCaballo() != null ? clase.getCaballo().getId() : null,
+                    clase.getAlumno() != null ? clase.getAlumno().getId() : null,
+                    clase.getInstructor() != null ? clase.getInstructor().getId() : null);
+        }
+
+        // Ocurrencia calculada de una plantilla: clave = -ID de la plantilla
+        static Ocupacion de(ClaseRecurrente plantilla) {
+            return new Ocupacion(
+                    -plantilla.getId(),
+                    OcupacionHorariaIndex.mascara(plantilla.getHora(), plantilla.getDuracion()),
+                    plantilla.getCaballo() != null ? plantilla.getCaballo().getId() : null,
+                    plantilla.getAlumno() != null ? plantilla.getAlumno().getId() : null,
+                    plantilla.getInstructor() != null ? plantilla.getInstructor().getId() : null);
+        }
+
+        Long recurso(Recurso recurso) {
+            return switch (recurso) {
+                case CABALLO -> caballoId;
+                case ALUMNO -> alumnoId;
+                case INSTRUCTOR -> instructorId;
+            };
+        }
+    }
+
+    /**
+     * Ocupación de un día. Las máscaras por recurso se mantienen como OR de
+     * las clases del día; al quitar una clase se recalculan solo los recursos
+     * que ocupaba.
+     */
+    private static class DiaOcupacion {
+        private final Map<Long, Ocupacion> clases = new HashMap<>();
+        private final Map<Recurso, Map<Long, Long>> mascaras = new HashMap<>();
+
+        DiaOcupacion() {
+            for (Recurso r : Recurso.values()) {
+                mascaras.put(r, new HashMap<>());
+            }
+        }
+
+        synchronized void agregar(Ocupacion ocupacion) {
+            clases.put(ocupacion.claseId(), ocupacion);
+            for (Recurso r : Recurso.values()) {
+                Long id = ocupacion.recurso(r);
+                if (id != null) {
+                    mascaras.get(r).merge(id, ocupacion.mascara(), (a, b) -> a | b);
+                }
+            }
+        }
+
+        synchronized void quitar(Long claseId) {
+            Ocupacion quitada = clases.remove(claseId);
+            if (quitada == null) {
+                return;
+            }
+            for (Recurso r : Recurso.values()) {
+                Long id = quitada.recurso(r);
+                if (id != null) {
+                    long recalculada = mascaraDe(r, id, null);
+                    if (recalculada == 0L) {
+                        mascaras.get(r).remove(id);
+                    } else {
+                        mascaras.get(r).put(id, recalculada);
+                    }
+                }
+            }
+        }
+
+        // IDs de las clases con fila propia (sin las ocurrencias calculadas)
+        synchronized List<Long> claseIds() {
+            return clases.keySet().stream().filter(id -> id > 0).toList();
+        }
+
+        synchronized Map<Long, Long> mascaras(Recurso recurso) {
+            return new HashMap<>(mascaras.get(recurso));
+        }
+
+        synchronized boolean seSuperpone(Recurso recurso, Long recursoId, long mascara, Long excluirClaseId) {
+            long ocupada = mascaras.get(recurso).getOrDefault(recursoId, 0L);
+            if ((ocupada & mascara) == 0L) {
+                return false;
+            }
+            if (excluirClaseId == null || !clases.containsKey(excluirClaseId)) {
+                return true;
+            }
+            // Camino lento: la superposición puede ser con la propia clase
+            return (mascaraDe(recurso, recursoId, excluirClaseId) & mascara) != 0L;
+        }
+
+        private long mascaraDe(Recurso recurso, Long recursoId, Long excluirClaseId) {
+            long resultado = 0L;
+            for (Ocupacion o : clases.values()) {
+                if (recursoId.equals(o.recurso(recurso)) && !o.claseId().equals(excluirClaseId)) {
+                    resultado |= o.mascara();
+                }
+            }
+            return resultado;
+        }
+    }
+}
@@ -0,0 +1,385 @@
+package com.escueladeequitacion.hrs.service;
+
+import com.escueladeequitacion.hrs.enums.Estado;
+import com.escueladeequitacion.hrs.model.Clase;
+import com.escueladeequitacion.hrs.model.ClaseRecurrente;
+import com.escueladeequitacion.hrs.repository.ClaseRecurrenteRepository;
+import com.escueladeequitacion.hrs.repository.ClaseRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Planificador de los cambios de estado automáticos de las clases del día.
+ *
+ * Mantiene una DelayQueue con el instante de inicio (PROGRAMADA → INICIADA) y
+ * de fin (INICIADA → COMPLETADA) de cada clase de hoy. Un único hilo toma cada
+ * transición cuando vence y actualiza solo la fila de esa clase, así el estado
+ * cambia a horario en lugar de esperar al próximo sondeo de la tabla.
+ *
+ * - Al arrancar y a medianoche se reconstruye con findByDiaAndEstado. Antes
+ * se materializan las ocurrencias de hoy de las clases recurrentes, porque
+ * se van a iniciar y completar (y descontar del abono) durante el día, y las
+ * de los días que la aplicación estuvo caída (desde la última ocurrencia
+ * materializada, como mucho app.clases.dias-recuperacion días atrás).
+ * uk_clase_recurrente_ocurrencia evita que dos nodos materialicen la misma
+ * ocurrencia: el que choca vuelve a leer lo materializado y reintenta.
+ * - También se completan las clases de días anteriores que quedaron
+ * PROGRAMADAS o INICIADAS (aplicación caída a la hora de fin), con un
+ * UPDATE en bloque sobre los últimos app.clases.dias-recuperacion días.
+ * - Las transiciones vencidas (por ej. tras un reinicio) se disparan enseguida.
+ * - La reconstrucción lee y escribe en transacciones propias (REQUIRES_NEW):
+ * invalidar la corre al confirmar, cuando la transacción del llamador ya
+ * terminó y no admite más escrituras.
+ * - crearClase, actualizarClase y cambiarEstado replanifican la clase al
+ * confirmar la transacción.
+ * - El UPDATE es condicional al estado esperado: si la clase fue cancelada o
+ * cambiada a mano, la transición no hace nada.
+ */
+@Component
+public class PlanificadorEstadosClase {
+
+    private static final Logger logger = LoggerFactory.getLogger(PlanificadorEstadosClase.class);
+
+    private static final ZoneId ZONA = ZoneId.of("America/Argentina/Buenos_Aires");
+
+    @Autowired
+    private ClaseRepository claseRepository;
+
+    @Autowired
+    private AbonoService abonoService;
+
+    @Autowired
+    private ResumenMensualService resumenMensualService;
+
+    @Autowired
+    private ClaseRecurrenteRepository claseRecurrenteRepository;
+
+    @Autowired
+    private OcupacionHorariaIndex ocupacionHorariaIndex;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Value("${app.clases.dias-recuperacion:7}")
+    private int diasRecuperacion;
+
+    private final DelayQueue<Transicion> cola = new DelayQueue<>();
+    private final Map<Long, List<Transicion>> transicionesPorClase = new HashMap<>();
+
+    private volatile Thread hilo;
+
+    private TransactionTemplate txNueva;
+
+    // ── Ciclo de vida ────────────────────────────────────────────────────────
+
+    @PostConstruct
+    void inicializar() {
+        txNueva = new TransactionTemplate(transactionManager);
+        txNueva.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void iniciar() {
+        reconstruir();
+        hilo = new Thread(this::procesar, "planificador-estados-clase");
+        hilo.setDaemon(true);
+        hilo.start();
+    }
+
+    @PreDestroy
+    public void detener() {
+        if (hilo != null) {
+            hilo.interrupt();
+        }
+    }
+
+    /**
+     * Vuelve a armar la cola con las clases PROGRAMADAS e INICIADAS de hoy.
+     */
+    @Scheduled(cron = "0 0 0 * * *", zone = "America/Argentina/Buenos_Aires")
+    public void reconstruir() {
+        LocalDate hoy = LocalDate.now(ZONA);
+        materializarOcurrencias(hoy);
+        txNueva.executeWithoutResult(status -> completarDiasAnteriores(hoy));
+        List<Clase> pendientes = txNueva.execute(status -> {
+            List<Clase> clases = new ArrayList<>(claseRepository.findByDiaAndEstado(hoy, Estado.PROGRAMADA));
+            clases.addAll(claseRepository.findByDiaAndEstado(hoy, Estado.INICIADA));
+            return clases;
+        });
+
+        synchronized (this) {
+            cola.clear();
+            transicionesPorClase.clear();
+            pendientes.forEach(this::planificarAhora);
+        }
+        logger.info("Planificador de estados reconstruido para {} ({} transiciones)", hoy, cola.size());
+    }
+
+    private void materializarOcurrencias(LocalDate hoy) {
+        LocalDate recuperacion = hoy.minusDays(diasRecuperacion);
+        LocalDate ultima = txNueva.execute(
+                status -> claseRepository.findUltimaOcurrenciaMaterializada(hoy).orElse(recuperacion));
+        LocalDate desde = ultima.isAfter(recuperacion) ? ultima : recuperacion;
+        for (int intento = 1; intento <= 2; intento++) {
+            try {
+                // Cada intento en su transacción: la que choca con otro nodo se descarta entera
+                int nuevas = txNueva.execute(status -> materializarEntre(desde, hoy));
+                if (nuevas > 0) {
+                    logger.info("Ocurrencias materializadas del {} al {}: {}", desde, hoy, nuevas);
+                }
+                return;
+            } catch (DataIntegrityViolationException e) {
+                logger.debug("Otro nodo materializó ocurrencias del {} al {} (intento {})", desde, hoy, intento);
+            }
+        }
+        logger.warn("No se pudieron materializar las ocurrencias del {} al {}", desde, hoy);
+    }
+
+    private int materializarEntre(LocalDate desde, LocalDate hasta) {
+        List<ClaseRecurrente> plantillas = claseRecurrenteRepository.findVigentesEnRangoSinDetalles(desde, hasta);
+        if (plantillas.isEmpty()) {
+            return 0;
+        }
+        Set<String> yaMaterializadas = claseRepository.findOcurrenciasMaterializadas(desde, hasta).stream()
+                .map(fila -> fila[0] + "@" + fila[1])
+                .collect(Collectors.toSet());
+
+        List<Clase> nuevas = new ArrayList<>();
+        for (LocalDate d = desde; !d.isAfter(hasta); d = d.plusDays(1)) {
+            for (ClaseRecurrente p : plantillas) {
+                if (p.ocurreEl(d) && !yaMaterializadas.contains(p.getId() + "@" + d)) {
+                    nuevas.add(p.crearOcurrencia(d));
+                }
+            }
+        }
+        claseRepository.saveAll(nuevas).forEach(ocupacionHorariaIndex::registrar);
+        return nuevas.size();
+    }
+
+    /**
+     * Completa las clases de los días anteriores a hoy que siguen PROGRAMADAS
+     * o INICIADAS y registra su consumo de abono (una sola vez por clase).
+     */
+    private void completarDiasAnteriores(LocalDate hoy) {
+        LocalDate desde = hoy.minusDays(diasRecuperacion);
+        List<Estado> pendientes = List.of(Estado.PROGRAMADA, Estado.INICIADA);
+
+        List<Long> conAlumno = claseRepository.findIdsConAlumnoEntre(desde, hoy, pendientes);
+        int completadas = claseRepository.actualizarEstadoEntre(desde, hoy, pendientes, Estado.COMPLETADA);
+        if (completadas == 0) {
+            return;
+        }
+        int descontadas = abonoService.registrarConsumos(conAlumno);
+
+        // Recontar los resúmenes abiertos de los meses afectados
+        Set<YearMonth> meses = new TreeSet<>();
+        for (LocalDate d = desde; d.isBefore(hoy); d = d.plusDays(1)) {
+            meses.add(YearMonth.from(d));
+        }
+        meses.forEach(resumenMensualService::recalcularMes);
+        logger.info("Clases de días anteriores completadas: {} ({} descontadas del abono)", completadas,
+                descontadas);
+    }
+
+    // ── Mantenimiento ────────────────────────────────────────────────────────
+
+    /**
+     * Replanifica las transiciones de una clase. Se aplica al confirmar la
+     * transacción en curso.
+     */
+    public void planificar(Clase clase) {
+        alConfirmar(() -> {
+            synchronized (this) {
+                planificarAhora(clase);
+            }
+        });
+    }
+
+    /**
+     * Quita las transiciones pendientes de una clase eliminada.
+     */
+    public void quitar(Long claseId) {
+        alConfirmar(() -> {
+            synchronized (this) {
+                quitarAhora(claseId);
+            }
+        });
+    }
+
+    /**
+     * Reconstruye la cola si el rango incluye el día de hoy. Se usa tras
+     * operaciones masivas (copiar o eliminar semanas).
+     */
+    public void invalidar(LocalDate inicio, LocalDate fin) {
+        LocalDate hoy = LocalDate.now(ZONA);
+        if (!hoy.isBefore(inicio) && !hoy.isAfter(fin)) {
+            alConfirmar(this::reconstruir);
+        }
+    }
+
+    private void planificarAhora(Clase clase) {
+        quitarAhora(clase.getId());
+        if (clase.getId() == null || clase.getDia() == null || clase.getHora() == null
+                || !clase.getDia().equals(LocalDate.now(ZONA))) {
+            return;
+        }
+
+        LocalDateTime inicio = LocalDateTime.of(clase.getDia(), clase.getHora());
+        LocalDateTime fin = inicio.plusMinutes(clase.getDuracion() != null ? clase.getDuracion() : 60);
+        Long alumnoId = clase.getAlumno() != null ? clase.getAlumno().getId() : null;
+
+        List<Transicion> transiciones = new ArrayList<>(2);
+        if (clase.getEstado() == Estado.PROGRAMADA) {
+            transiciones.add(new Transicion(clase.getId(), alumnoId, clase.getDia(), epochMillis(inicio),
+                    Estado.PROGRAMADA, Estado.INICIADA));
+        }
+        if (clase.getEstado() == Estado.PROGRAMADA || clase.getEstado() == Estado.INICIADA) {
+            transiciones.add(new Transicion(clase.getId(), alumnoId, clase.getDia(), epochMillis(fin),
+                    Estado.INICIADA, Estado.COMPLETADA));
+        }
+        if (!transiciones.isEmpty()) {
+            transicionesPorClase.put(clase.getId(), transiciones);
+            cola.addAll(transiciones);
+        }
+    }
+
+    private void quitarAhora(Long claseId) {
+        if (claseId == null) {
+            return;
+        }
+        List<Transicion> anteriores = transicionesPorClase.remove(claseId);
+        if (anteriores != null) {
+            cola.removeAll(anteriores);
+        }
+    }
+
+    // ── Ejecución ────────────────────────────────────────────────────────────
+
+    private void procesar() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        while (!Thread.currentThread().isInterrupted()) {
+            Transicion transicion;
+            try {
+                transicion = cola.take();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            synchronized (this) {
+                List<Transicion> pendientes = transicionesPorClase.get(transicion.claseId());
+                if (pendientes != null) {
+                    pendientes.remove(transicion);
+                    if (pendientes.isEmpty()) {
+                        transicionesPorClase.remove(transicion.claseId());
+                    }
+                }
+            }
+
+            // Mismo timer y tags que MetricasAspect (este hilo no pasa por @Medido)
+            Timer.Sample muestra = Timer.start(registry);
+            String resultado = "ok";
+            String excepcion = "none";
+            try {
+                tx.executeWithoutResult(status -> ejecutar(transicion));
+            } catch (RuntimeException e) {
+                resultado = "error";
+                excepcion = e.getClass().getSimpleName();
+                logger.error("No se pudo pasar la clase {} a {}", transicion.claseId(), transicion.nuevo(), e);
+            } finally {
+                muestra.stop(Timer.builder("hrs.operacion")
+                        .description("Duración de las operaciones de servicio")
+                        .tag("operacion", "clases.transicion-" + transicion.nuevo().name().toLowerCase())
+                        .tag("resultado", resultado)
+                        .tag("excepcion", excepcion)
+                        .publishPercentileHistogram()
+                        .register(registry));
+            }
+        }
+    }
+
+    private void ejecutar(Transicion transicion) {
+        int actualizadas = claseRepository.actualizarEstadoSiCorresponde(
+                transicion.claseId(), transicion.actual(), transicion.nuevo());
+
+        if (actualizadas == 1 && transicion.nuevo() == Estado.COMPLETADA) {
+            if (transicion.alumnoId() != null) {
+                abonoService.registrarConsumo(transicion.claseId());
+            }
+            resumenMensualService.recontarClases(transicion.dia());
+        }
+        logger.debug("Clase {}: {} → {} ({} filas)", transicion.claseId(), transicion.actual(),
+                transicion.nuevo(), actualizadas);
+    }
+
+    private void alConfirmar(Runnable accion) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    private static long epochMillis(LocalDateTime momento) {
+        return momento.atZone(ZONA).toInstant().toEpochMilli();
+    }
+
+    // ── Estructuras internas ─────────────────────────────────────────────────
+
+    private record Transicion(Long claseId, Long alumnoId, LocalDate dia, long vence, Estado actual,
+            Estado nuevo)
+            implements Delayed {
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(vence - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed otro) {
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), otro.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+}
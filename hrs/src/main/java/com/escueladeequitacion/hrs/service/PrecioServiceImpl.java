@@ -33,6 +33,9 @@ public class PrecioServiceImpl implements PrecioService {
     @Autowired
     private PlanPensionRepository planPensionRepository;
 
+    @Autowired
+    private TablaPreciosPlanes tablaPreciosPlanes;
+
     /**
      * Calcula el precio total de una inscripción según los parámetros.
      * Este es el método principal que usa todo el sistema.
@@ -140,19 +143,19 @@ public class PrecioServiceImpl implements PrecioService {
     }
 
     /**
-     * Busca el plan de clases vigente.
+     * Busca el plan de clases vigente, en memoria (TablaPreciosPlanes).
      */
     private PlanAbono buscarPlanClases(TipoClase tipo, ModalidadClase modalidad,
             Integer cantidad, LocalDate fecha) {
-        return planAbonoRepository.findPlanVigente(tipo, modalidad, cantidad, fecha)
+        return tablaPreciosPlanes.buscarPlanAbono(tipo, modalidad, cantidad, fecha)
                 .orElse(null);
     }
 
     /**
-     * Busca el plan de pensión vigente.
+     * Busca el plan de pensión vigente, en memoria (TablaPreciosPlanes).
      */
     private PlanPension buscarPlanPension(Integer cantidad, LocalDate fecha) {
-        return planPensionRepository.findPlanVigente(cantidad, fecha)
+        return tablaPreciosPlanes.buscarPlanPension(cantidad, fecha)
                 .orElse(null);
     }
 
@@ -0,0 +1,28 @@
+package com.escueladeequitacion.hrs.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Listener JPA de PlanAbono, PlanPension y PeriodoPrecio: cualquier alta,
+ * cambio o baja descarta TablaPreciosPlanes. Hibernate lo crea a través de
+ * Spring; la tabla se inyecta @Lazy porque los listeners se instancian al
+ * armar el EntityManagerFactory, antes que los repositorios.
+ */
+public class PreciosPlanesListener {
+
+    @Autowired
+    @Lazy
+    private TablaPreciosPlanes tablaPreciosPlanes;
+
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void alCambiar(Object entidad) {
+        tablaPreciosPlanes.invalidar();
+    }
+}
@@ -0,0 +1,31 @@
+package com.escueladeequitacion.hrs.service;
+
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Map;
+
+import com.escueladeequitacion.hrs.model.ResumenMensual;
+
+// Interfaz para el servicio de resúmenes financieros mensuales precalculados
+public interface ResumenMensualService {
+
+    // Resúmenes de los meses ya terminados de [desde, hasta], de la escuela
+    // (instructorId null) o de un instructor. No escribe: los meses que
+    // todavía no tienen filas se calculan en memoria (estimados).
+    public Map<YearMonth, ResumenMensual> obtenerMesesTerminados(YearMonth desde, YearMonth hasta,
+            Long instructorId);
+
+    // Vuelve a contar las clases completadas del mes de ese día. Se llama
+    // cada vez que una clase entra o sale de COMPLETADA.
+    public void recontarClases(LocalDate dia);
+
+    // Vuelve a calcular los resúmenes abiertos de un mes desde alumnos y clases
+    public void recalcularMes(YearMonth mes);
+
+    // Igual que recalcularMes para el mes en curso: se usa cuando cambia un
+    // alumno (plan, pensión, alta o baja) o la configuración de precios
+    public void recalcularMesActual();
+
+    // Cierra los meses terminados que falten y abre el mes en curso
+    public void cerrarMesesTerminados();
+}
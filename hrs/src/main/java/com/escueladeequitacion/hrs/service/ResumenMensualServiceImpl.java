@@ -0,0 +1,440 @@
+package com.escueladeequitacion.hrs.service;
+
+import com.escueladeequitacion.hrs.enums.Estado;
+import com.escueladeequitacion.hrs.model.Alumno;
+import com.escueladeequitacion.hrs.model.Instructor;
+import com.escueladeequitacion.hrs.model.ResumenMensual;
+import com.escueladeequitacion.hrs.repository.AlumnoRepository;
+import com.escueladeequitacion.hrs.repository.ClaseRepository;
+import com.escueladeequitacion.hrs.repository.InstructorRepository;
+import com.escueladeequitacion.hrs.repository.ResumenMensualRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import jakarta.annotation.PostConstruct;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Mantiene la tabla resumenes_mensuales que usa FinanzasServiceImpl para no
+ * recalcular cada mes desde alumnos y clases.
+ *
+ * - Mes en curso: filas abiertas. Cuando una clase entra o sale de
+ * COMPLETADA se recuentan las clases del mes desde la BD (no se suma ni se
+ * resta, así repetir el aviso no cuenta dos veces); un cambio de alumno o de
+ * precios recalcula el mes (una consulta por tabla, no por alumno).
+ * - Las escrituras corren después del commit de quien las pide, en una
+ * transacción propia que bloquea las filas abiertas del mes. Si dos nodos
+ * crean el mismo mes a la vez, uk_resumen_mes_instructor rechaza al segundo
+ * y se reintenta una vez sobre las filas del primero.
+ * - Meses terminados: los cierra cerrarMesesTerminados el día 1 y al
+ * arrancar (también los que quedaron sin cerrar por una caída) y ya no
+ * cambian. Al cerrar se recuentan las clases y se conservan los ingresos y
+ * los precios que tenían las filas abiertas. Un mes sin filas abiertas se
+ * cierra con el padrón y los precios del momento y queda estimado.
+ * - La lectura no escribe: los meses terminados que todavía no se cerraron
+ * se devuelven desde sus filas abiertas o calculados en memoria.
+ */
+@Service
+public class ResumenMensualServiceImpl implements ResumenMensualService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ResumenMensualServiceImpl.class);
+
+    private static final ZoneId ZONA = ZoneId.of("America/Argentina/Buenos_Aires");
+
+    @Autowired
+    private ResumenMensualRepository resumenRepo;
+    @Autowired
+    private AlumnoRepository alumnoRepository;
+    @Autowired
+    private InstructorRepository instructorRepository;
+    @Autowired
+    private ClaseRepository claseRepository;
+    @Autowired
+    private ConfiguracionPreciosCache preciosCache;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionTemplate txNueva;
+
+    @PostConstruct
+    void inicializar() {
+        txNueva = new TransactionTemplate(transactionManager);
+        txNueva.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    // ── Lectura ──────────────────────────────────────────────────────────────
+
+    @Override
+    @Transactional(readOnly = true)
+    public Map<YearMonth, ResumenMensual> obtenerMesesTerminados(YearMonth desde, YearMonth hasta,
+            Long instructorId) {
+        YearMonth ultimoTerminado = YearMonth.now(ZONA).minusMonths(1);
+        if (hasta.isAfter(ultimoTerminado)) {
+            hasta = ultimoTerminado;
+        }
+        if (desde.isAfter(hasta)) {
+            return Map.of();
+        }
+        long clave = instructorId != null ? instructorId : ResumenMensual.ESCUELA;
+
+        // Un mes tiene filas abiertas o cerradas, nunca las dos (mismo uk)
+        Map<YearMonth, ResumenMensual> guardados = new HashMap<>();
+        Set<YearMonth> conFilas = new HashSet<>();
+        for (ResumenMensual r : resumenRepo.findByMesBetween(desde.atDay(1), hasta.atDay(1))) {
+            YearMonth mes = YearMonth.from(r.getMes());
+            conFilas.add(mes);
+            if (r.getInstructorId() == clave) {
+                guardados.put(mes, r);
+            }
+        }
+
+        TreeSet<YearMonth> faltantes = new TreeSet<>();
+        for (YearMonth ym = desde; !ym.isAfter(hasta); ym = ym.plusMonths(1)) {
+            if (!conFilas.contains(ym)) {
+                faltantes.add(ym);
+            }
+        }
+        if (!faltantes.isEmpty()) {
+            Map<YearMonth, List<ResumenMensual>> calculados = calcular(faltantes.first(), faltantes.last());
+            for (YearMonth mes : faltantes) {
+                for (ResumenMensual r : calculados.getOrDefault(mes, List.of())) {
+                    if (r.getInstructorId() == clave) {
+                        r.setEstimado(true);
+                        guardados.put(mes, r);
+                    }
+                }
+            }
+        }
+
+        Map<YearMonth, ResumenMensual> resultado = new LinkedHashMap<>();
+        for (YearMonth ym = desde; !ym.isAfter(hasta); ym = ym.plusMonths(1)) {
+            ResumenMensual r = guardados.get(ym);
+            if (r != null) {
+                resultado.put(ym, r);
+            }
+        }
+        return resultado;
+    }
+
+    // ── Actualización del mes abierto ────────────────────────────────────────
+
+    @Override
+    public void recontarClases(LocalDate dia) {
+        YearMonth mes = YearMonth.from(dia);
+        despuesDelCommit("recuento de clases de " + mes, () -> recontarAhora(mes));
+    }
+
+    @Override
+    public void recalcularMes(YearMonth mes) {
+        despuesDelCommit("recálculo de " + mes, () -> recalcularAhora(mes));
+    }
+
+    @Override
+    public void recalcularMesActual() {
+        recalcularMes(YearMonth.now(ZONA));
+    }
+
+    private void recontarAhora(YearMonth mes) {
+        if (resumenRepo.existsByMesAndCerradoTrue(mes.atDay(1))) {
+            return; // Mes cerrado: no se modifica
+        }
+        List<ResumenMensual> abiertos = resumenRepo.findAbiertosParaActualizar(mes.atDay(1));
+        if (abiertos.stream().noneMatch(ResumenMensual::esEscuela)) {
+            recalcularAhora(mes); // El mes no se armó todavía
+            return;
+        }
+        recontar(mes, abiertos);
+    }
+
+    private void recalcularAhora(YearMonth mes) {
+        if (resumenRepo.existsByMesAndCerradoTrue(mes.atDay(1))) {
+            return; // Mes cerrado: no se modifica
+        }
+        List<ResumenMensual> abiertos = resumenRepo.findAbiertosParaActualizar(mes.atDay(1));
+        Map<Long, ResumenMensual> porInstructor = abiertos.stream()
+                .collect(Collectors.toMap(ResumenMensual::getInstructorId, Function.identity()));
+
+        for (ResumenMensual calculado : calcular(mes, mes).getOrDefault(mes, List.of())) {
+            ResumenMensual abierto = porInstructor.remove(calculado.getInstructorId());
+            if (abierto != null) {
+                copiar(calculado, abierto);
+            } else {
+                resumenRepo.save(calculado);
+            }
+        }
+        // Instructores que ya no tienen clases ni están activos
+        resumenRepo.deleteAll(porInstructor.values());
+    }
+
+    /**
+     * Recuenta las clases completadas de las filas abiertas del mes y
+     * recalcula sus honorarios con los precios guardados en cada fila. La
+     * escuela suma solo las clases de los instructores activos (instructores
+     * = 1 en su fila).
+     */
+    private void recontar(YearMonth mes, List<ResumenMensual> abiertos) {
+        Map<Long, Long> completadas = new HashMap<>();
+        for (Object[] fila : claseRepository.contarPorInstructorYMes(Estado.COMPLETADA, mes.atDay(1),
+                mes.atEndOfMonth())) {
+            completadas.put((Long) fila[0], ((Number) fila[3]).longValue());
+        }
+
+        Map<Long, ResumenMensual> porInstructor = abiertos.stream()
+                .collect(Collectors.toMap(ResumenMensual::getInstructorId, Function.identity()));
+        ResumenMensual escuela = porInstructor.get(ResumenMensual.ESCUELA);
+        LocalDateTime ahora = LocalDateTime.now(ZONA);
+
+        // Instructor inactivo que completó clases después del último recálculo
+        for (Long instructorId : completadas.keySet()) {
+            if (instructorId != null && !porInstructor.containsKey(instructorId)) {
+                ResumenMensual fila = new ResumenMensual(mes.atDay(1), instructorId);
+                fila.setHonorarioBase(escuela.getHonorarioBase());
+                fila.setHonorarioPorClase(escuela.getHonorarioPorClase());
+                porInstructor.put(instructorId, resumenRepo.save(fila));
+            }
+        }
+
+        long clasesEscuela = 0;
+        for (ResumenMensual fila : porInstructor.values()) {
+            if (fila.esEscuela()) {
+                continue;
+            }
+            fila.setClasesCompletadas(completadas.getOrDefault(fila.getInstructorId(), 0L));
+            fila.recalcularHonorarios();
+            fila.setActualizadoEn(ahora);
+            if (fila.getInstructores() > 0) {
+                clasesEscuela += fila.getClasesCompletadas();
+            }
+        }
+        escuela.setClasesCompletadas(clasesEscuela);
+        escuela.recalcularHonorarios();
+        escuela.setActualizadoEn(ahora);
+    }
+
+    /**
+     * Corre la escritura cuando confirma la transacción de quien la pide (o
+     * enseguida si no hay una), en una transacción propia. Un resumen que no
+     * se pudo actualizar no deshace la operación que lo pidió: se registra y
+     * lo corrige el próximo recálculo o el cierre del mes.
+     */
+    private void despuesDelCommit(String descripcion, Runnable escritura) {
+        Runnable accion = () -> {
+            try {
+                try {
+                    txNueva.executeWithoutResult(status -> escritura.run());
+                } catch (DataIntegrityViolationException e) {
+                    // Otro nodo creó las filas del mes: se reintenta sobre ellas
+                    txNueva.executeWithoutResult(status -> escritura.run());
+                }
+            } catch (RuntimeException e) {
+                logger.error("No se pudo actualizar el resumen mensual ({})", descripcion, e);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    accion.run();
+                }
+            });
+        } else {
+            accion.run();
+        }
+    }
+
+    // ── Cierre ───────────────────────────────────────────────────────────────
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        cerrarMesesTerminados();
+    }
+
+    /**
+     * Cierra, un mes por transacción, los meses terminados desde la primera
+     * clase que todavía no estén cerrados. Si otro nodo cierra el mismo mes a
+     * la vez, uk_resumen_mes_instructor rechaza a uno de los dos.
+     */
+    @Override
+    @Scheduled(cron = "0 10 0 1 * *", zone = "America/Argentina/Buenos_Aires")
+    public void cerrarMesesTerminados() {
+        YearMonth ultimoTerminado = YearMonth.now(ZONA).minusMonths(1);
+        LocalDate primerDia = claseRepository.findPrimerDia().orElse(null);
+        if (primerDia != null && !YearMonth.from(primerDia).isAfter(ultimoTerminado)) {
+            YearMonth primero = YearMonth.from(primerDia);
+            Set<LocalDate> cerrados = new HashSet<>(
+                    resumenRepo.findMesesCerrados(primero.atDay(1), ultimoTerminado.atDay(1)));
+            for (YearMonth mes = primero; !mes.isAfter(ultimoTerminado); mes = mes.plusMonths(1)) {
+                if (cerrados.contains(mes.atDay(1))) {
+                    continue;
+                }
+                YearMonth aCerrar = mes;
+                try {
+                    txNueva.executeWithoutResult(status -> cerrar(aCerrar));
+                } catch (DataIntegrityViolationException e) {
+                    logger.debug("Resumen mensual de {} cerrado por otro nodo", aCerrar);
+                } catch (RuntimeException e) {
+                    logger.error("No se pudo cerrar el resumen mensual de {}", aCerrar, e);
+                }
+            }
+        }
+        recalcularMesActual();
+    }
+
+    /**
+     * Cierra un mes. Si tenía filas abiertas se conservan sus ingresos
+     * (padrón de ese mes) y sus precios, y se recuentan las clases; si no,
+     * se calcula con el padrón y los precios actuales y queda estimado.
+     */
+    private void cerrar(YearMonth mes) {
+        if (resumenRepo.existsByMesAndCerradoTrue(mes.atDay(1))) {
+            return;
+        }
+        List<ResumenMensual> filas = resumenRepo.findAbiertosParaActualizar(mes.atDay(1));
+        boolean estimado = filas.stream().noneMatch(ResumenMensual::esEscuela);
+        if (estimado) {
+            resumenRepo.deleteAll(filas);
+            resumenRepo.flush();
+            filas = calcular(mes, mes).getOrDefault(mes, List.of());
+        } else {
+            recontar(mes, filas);
+            filas = resumenRepo.findAbiertosParaActualizar(mes.atDay(1));
+        }
+        LocalDateTime ahora = LocalDateTime.now(ZONA);
+        for (ResumenMensual r : filas) {
+            r.setCerrado(true);
+            r.setEstimado(estimado);
+            r.setActualizadoEn(ahora);
+        }
+        resumenRepo.saveAll(filas);
+        logger.info("Resumen mensual de {} cerrado ({} filas{})", mes, filas.size(),
+                estimado ? ", estimado" : "");
+    }
+
+    private static void copiar(ResumenMensual desde, ResumenMensual hacia) {
+        hacia.setIngresosCuotas(desde.getIngresosCuotas());
+        hacia.setIngresosPensiones(desde.getIngresosPensiones());
+        hacia.setClasesCompletadas(desde.getClasesCompletadas());
+        hacia.setInstructores(desde.getInstructores());
+        hacia.setHonorarioBase(desde.getHonorarioBase());
+        hacia.setHonorarioPorClase(desde.getHonorarioPorClase());
+        hacia.setEgresosHonorarios(desde.getEgresosHonorarios());
+        hacia.setActualizadoEn(desde.getActualizadoEn());
+    }
+
+    // ── Cálculo desde alumnos y clases ───────────────────────────────────────
+
+    /**
+     * Calcula los resúmenes (escuela + un instructor por fila) de cada mes de
+     * [desde, hasta] con una cantidad fija de consultas: alumnos activos,
+     * instructores activos, clases completadas agrupadas por instructor y
+     * mes, y alumnos por instructor y mes. Los precios salen de la copia en
+     * memoria (ConfiguracionPreciosCache).
+     */
+    private Map<YearMonth, List<ResumenMensual>> calcular(YearMonth desde, YearMonth hasta) {
+        ConfiguracionPreciosVigente cfg = preciosCache.obtener();
+        LocalDate inicio = desde.atDay(1);
+        LocalDate fin = hasta.atEndOfMonth();
+
+        Map<Long, Alumno> alumnos = alumnoRepository.findByActivoConCaballo(true).stream()
+                .collect(Collectors.toMap(Alumno::getId, Function.identity()));
+        Set<Long> instructoresActivos = instructorRepository.findByActivo(true).stream()
+                .map(Instructor::getId)
+                .collect(Collectors.toSet());
+
+        Map<YearMonth, Map<Long, Long>> completadas = new HashMap<>();
+        for (Object[] fila : claseRepository.contarPorInstructorYMes(Estado.COMPLETADA, inicio, fin)) {
+            completadas.computeIfAbsent(mesDe(fila[1], fila[2]), k -> new HashMap<>())
+                    .put((Long) fila[0], ((Number) fila[3]).longValue());
+        }
+        Map<YearMonth, Map<Long, Set<Long>>> alumnosPorInstructor = new HashMap<>();
+        for (Object[] fila : claseRepository.findAlumnoIdsPorInstructorYMes(inicio, fin)) {
+            alumnosPorInstructor.computeIfAbsent(mesDe(fila[1], fila[2]), k -> new HashMap<>())
+                    .computeIfAbsent((Long) fila[0], k -> new HashSet<>())
+                    .add((Long) fila[3]);
+        }
+
+        double cuotasEscuela = alumnos.values().stream().mapToDouble(a -> cfg.tarifaPlan(a.getCantidadClases())).sum();
+        double pensionesEscuela = alumnos.values().stream().mapToDouble(cfg::pensionDe).sum();
+        LocalDateTime ahora = LocalDateTime.now(ZONA);
+
+        Map<YearMonth, List<ResumenMensual>> resultado = new LinkedHashMap<>();
+        for (YearMonth mes = desde; !mes.isAfter(hasta); mes = mes.plusMonths(1)) {
+            Map<Long, Long> completadasMes = completadas.getOrDefault(mes, Map.of());
+            Map<Long, Set<Long>> alumnosMes = alumnosPorInstructor.getOrDefault(mes, Map.of());
+
+            Set<Long> instructoresMes = new TreeSet<>(instructoresActivos);
+            instructoresMes.addAll(completadasMes.keySet());
+
+            List<ResumenMensual> filas = new ArrayList<>();
+            ResumenMensual escuela = new ResumenMensual(mes.atDay(1), ResumenMensual.ESCUELA);
+            escuela.setIngresosCuotas(cuotasEscuela);
+            escuela.setIngresosPensiones(pensionesEscuela);
+            escuela.setActualizadoEn(ahora);
+            filas.add(escuela);
+
+            long clasesEscuela = 0;
+            for (Long instructorId : instructoresMes) {
+                long clases = completadasMes.getOrDefault(instructorId, 0L);
+                ResumenMensual fila = new ResumenMensual(mes.atDay(1), instructorId);
+                for (Long alumnoId : alumnosMes.getOrDefault(instructorId, Set.of())) {
+                    Alumno a = alumnos.get(alumnoId);
+                    if (a != null) {
+                        fila.setIngresosCuotas(fila.getIngresosCuotas() + cfg.tarifaPlan(a.getCantidadClases()));
+                        fila.setIngresosPensiones(fila.getIngresosPensiones() + cfg.pensionDe(a));
+                    }
+                }
+                // El básico y las clases en la escuela: solo instructores activos
+                boolean activo = instructoresActivos.contains(instructorId);
+                fila.setClasesCompletadas(clases);
+                fila.setInstructores(activo ? 1 : 0);
+                fila.setHonorarioBase(cfg.getHonorarioBaseMensual());
+                fila.setHonorarioPorClase(cfg.getHonorarioPorClase());
+                fila.recalcularHonorarios();
+                fila.setActualizadoEn(ahora);
+                filas.add(fila);
+
+                if (activo) {
+                    clasesEscuela += clases;
+                }
+            }
+            escuela.setClasesCompletadas(clasesEscuela);
+            escuela.setInstructores(instructoresActivos.size());
+            escuela.setHonorarioBase(cfg.getHonorarioBaseMensual());
+            escuela.setHonorarioPorClase(cfg.getHonorarioPorClase());
+            escuela.recalcularHonorarios();
+            resultado.put(mes, filas);
+        }
+        return resultado;
+    }
+
+    private static YearMonth mesDe(Object anio, Object mes) {
+        return YearMonth.of(((Number) anio).intValue(), ((Number) mes).intValue());
+    }
+}
@@ -0,0 +1,181 @@
+package com.escueladeequitacion.hrs.service;
+
+import com.escueladeequitacion.hrs.enums.ModalidadClase;
+import com.escueladeequitacion.hrs.enums.TipoClase;
+import com.escueladeequitacion.hrs.model.PlanAbono;
+import com.escueladeequitacion.hrs.model.PlanPension;
+import com.escueladeequitacion.hrs.repository.PlanAbonoRepository;
+import com.escueladeequitacion.hrs.repository.PlanPensionRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Tabla en memoria de los planes de abono y de pensión activos, indexada por
+ * clave y vigencia.
+ *
+ * - Abonos por (tipoClase, modalidad, cantidadClases); pensiones por
+ * cantidadClases. Cada clave guarda sus planes ordenados por fecha de inicio
+ * de vigencia, así el plan vigente en una fecha se busca con floorEntry.
+ * - Se arma con dos consultas la primera vez que se usa y queda en un
+ * AtomicReference.
+ * - PreciosPlanesListener la invalida cuando se guarda un plan o un
+ * PeriodoPrecio (al confirmar la transacción); además se recarga cada
+ * app.precios.planes-recarga-ms por si los precios se cargan directo en la BD.
+ * - Invalidar avanza una generación. Cada tabla guarda la generación en la
+ * que empezó a cargarse y solo se usa mientras siga siendo la vigente: una
+ * carga que empezó antes de confirmarse un cambio de precios no sirve
+ * precios viejos aunque termine después.
+ *
+ * Los planes devueltos se comparten entre hilos: no se deben modificar.
+ */
+@Component
+public class TablaPreciosPlanes {
+
+    private static final Logger logger = LoggerFactory.getLogger(TablaPreciosPlanes.class);
+
+    @Autowired
+    private PlanAbonoRepository planAbonoRepository;
+
+    @Autowired
+    private PlanPensionRepository planPensionRepository;
+
+    private final AtomicReference<Tabla> actual = new AtomicReference<>();
+    private final AtomicLong generacion = new AtomicLong();
+
+    // ── Consultas ────────────────────────────────────────────────────────────
+
+    public Optional<PlanAbono> buscarPlanAbono(TipoClase tipo, ModalidadClase modalidad, Integer cantidad,
+            LocalDate fecha) {
+        Vigencias<PlanAbono> vigencias = obtener().abonos().get(new ClaveAbono(tipo, modalidad, cantidad));
+        return vigencias != null ? vigencias.vigenteEn(fecha) : Optional.empty();
+    }
+
+    public Optional<PlanPension> buscarPlanPension(Integer cantidad, LocalDate fecha) {
+        Vigencias<PlanPension> vigencias = obtener().pensiones().get(cantidad);
+        return vigencias != null ? vigencias.vigenteEn(fecha) : Optional.empty();
+    }
+
+    // ── Mantenimiento ────────────────────────────────────────────────────────
+
+    /**
+     * Descarta la tabla (y cualquier carga en curso); la próxima consulta la
+     * vuelve a armar. Si hay una transacción en curso se aplica al confirmarla.
+     */
+    public void invalidar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    generacion.incrementAndGet();
+                }
+            });
+        } else {
+            generacion.incrementAndGet();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${app.precios.planes-recarga-ms:600000}")
+    public void recargarPeriodicamente() {
+        if (actual.get() != null) {
+            instalar(cargar(generacion.get()));
+        }
+    }
+
+    private Tabla obtener() {
+        // La generación se lee antes de cargar: si se invalida durante la carga, la tabla ya nace vieja
+        long vigente = generacion.get();
+        Tabla tabla = actual.get();
+        if (tabla == null || tabla.generacion() != vigente) {
+            tabla = cargar(vigente);
+            instalar(tabla);
+        }
+        return tabla;
+    }
+
+    // Nunca reemplaza una tabla por otra de una generación anterior
+    private void instalar(Tabla tabla) {
+        actual.accumulateAndGet(tabla, (anterior, nueva) ->
+                anterior == null || nueva.generacion() >= anterior.generacion() ? nueva : anterior);
+    }
+
+    private Tabla cargar(long generacion) {
+        List<PlanAbono> abonos = planAbonoRepository.findAllActivosConPeriodo();
+        List<PlanPension> pensiones = planPensionRepository.findAllActivosConPeriodo();
+
+        Map<ClaveAbono, Vigencias<PlanAbono>> porClaveAbono = new HashMap<>();
+        for (PlanAbono plan : abonos) {
+            if (plan.getFechaVigenciaDesde() != null && plan.getFechaVigenciaHasta() != null) {
+                porClaveAbono.computeIfAbsent(
+                        new ClaveAbono(plan.getTipoClase(), plan.getModalidad(), plan.getCantidadClases()),
+                        k -> new Vigencias<>(PlanAbono::getFechaVigenciaHasta))
+                        .agregar(plan.getFechaVigenciaDesde(), plan);
+            }
+        }
+        Map<Integer, Vigencias<PlanPension>> porCantidad = new HashMap<>();
+        for (PlanPension plan : pensiones) {
+            if (plan.getFechaVigenciaDesde() != null && plan.getFechaVigenciaHasta() != null) {
+                porCantidad.computeIfAbsent(plan.getCantidadClases(),
+                        k -> new Vigencias<>(PlanPension::getFechaVigenciaHasta))
+                        .agregar(plan.getFechaVigenciaDesde(), plan);
+            }
+        }
+        logger.debug("Tabla de precios cargada: {} planes de abono, {} de pensión", abonos.size(),
+                pensiones.size());
+        return new Tabla(generacion, porClaveAbono, porCantidad);
+    }
+
+    // ── Estructuras internas ─────────────────────────────────────────────────
+
+    private record ClaveAbono(TipoClase tipo, ModalidadClase modalidad, Integer cantidad) {
+    }
+
+    private record Tabla(long generacion, Map<ClaveAbono, Vigencias<PlanAbono>> abonos,
+            Map<Integer, Vigencias<PlanPension>> pensiones) {
+    }
+
+    /**
+     * Planes de una clave ordenados por inicio de vigencia. El vigente en una
+     * fecha es el de inicio más reciente (<= fecha) cuyo fin no pasó.
+     */
+    private static final class Vigencias<T> {
+        private final NavigableMap<LocalDate, List<T>> porInicio = new TreeMap<>();
+        private final Function<T, LocalDate> fin;
+
+        Vigencias(Function<T, LocalDate> fin) {
+            this.fin = fin;
+        }
+
+        void agregar(LocalDate inicio, T plan) {
+            porInicio.computeIfAbsent(inicio, k -> new ArrayList<>(1)).add(plan);
+        }
+
+        Optional<T> vigenteEn(LocalDate fecha) {
+            for (List<T> planes : porInicio.headMap(fecha, true).descendingMap().values()) {
+                for (T plan : planes) {
+                    if (!fin.apply(plan).isBefore(fecha)) {
+                        return Optional.of(plan);
+                    }
+                }
+            }
+            return Optional.empty();
+        }
+    }
+}
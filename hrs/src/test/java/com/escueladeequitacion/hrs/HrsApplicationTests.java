@@ -3,7 +3,10 @@ package com.escueladeequitacion.hrs;
 import org.junit.jupiter.api.Test;
 import org.springframework.boot.test.context.SpringBootTest;
 
-@SpringBootTest
+@SpringBootTest(properties = {
+        "app.whitelist.emails=test@hrs.local",
+        "app.token.secreto=clave-de-pruebas-no-usar-en-produccion"
+})
 class HrsApplicationTests {
 
 	@Test
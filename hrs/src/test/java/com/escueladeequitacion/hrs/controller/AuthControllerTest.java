@@ -0,0 +1,94 @@
+package com.escueladeequitacion.hrs.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.escueladeequitacion.hrs.security.RolSeguridad;
+import com.escueladeequitacion.hrs.security.TokenService;
+import com.escueladeequitacion.hrs.security.User;
+import com.escueladeequitacion.hrs.security.UserRepository;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * POST /api/v1/auth/refresh: canjea solo tokens de refresco vigentes de
+ * usuarios activos.
+ */
+@SpringBootTest(properties = {
+        "app.whitelist.emails=test@hrs.local",
+        "app.token.secreto=clave-de-pruebas-no-usar-en-produccion"
+})
+@AutoConfigureMockMvc
+class AuthControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TokenService tokenService;
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private User usuario;
+
+    @BeforeEach
+    void crearUsuario() {
+        userRepository.findByUsername("refresco").ifPresent(userRepository::delete);
+        usuario = userRepository.save(new User("refresco", "refresco@hrs.local", "-", RolSeguridad.ADMIN));
+    }
+
+    @Test
+    void canjeaUnTokenDeRefrescoPorTokensNuevos() throws Exception {
+        MockHttpServletResponse respuesta = refrescar(tokenService.emitirRefresco(usuario));
+
+        assertEquals(200, respuesta.getStatus());
+        JsonNode tokens = objectMapper.readTree(respuesta.getContentAsString());
+        TokenService.TokenValido acceso = tokenService.validar(tokens.get("tokenAcceso").asText(),
+                TokenService.TIPO_ACCESO);
+        assertNotNull(acceso);
+        assertEquals(usuario.getId(), acceso.userId());
+        assertNotNull(tokenService.validar(tokens.get("tokenRefresco").asText(), TokenService.TIPO_REFRESCO));
+    }
+
+    @Test
+    void rechazaUnTokenDeAcceso() throws Exception {
+        assertEquals(401, refrescar(tokenService.emitirAcceso(usuario)).getStatus());
+    }
+
+    @Test
+    void rechazaUnTokenInvalido() throws Exception {
+        String token = tokenService.emitirRefresco(usuario);
+
+        assertEquals(401, refrescar(token.substring(0, token.length() - 2)).getStatus());
+    }
+
+    @Test
+    void rechazaAUnUsuarioDesactivado() throws Exception {
+        String token = tokenService.emitirRefresco(usuario);
+        usuario.setActivo(false);
+        userRepository.save(usuario);
+
+        assertEquals(401, refrescar(token).getStatus());
+    }
+
+    private MockHttpServletResponse refrescar(String tokenRefresco) throws Exception {
+        String cuerpo = objectMapper.writeValueAsString(Map.of("tokenRefresco", tokenRefresco));
+        return mockMvc.perform(post("/api/v1/auth/refresh")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(cuerpo))
+                .andReturn().getResponse();
+    }
+}
@@ -0,0 +1,152 @@
+package com.escueladeequitacion.hrs.rendimiento;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+
+import java.time.LocalDate;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+
+import com.escueladeequitacion.hrs.config.GeneradorDatosCarga;
+import com.escueladeequitacion.hrs.security.RolSeguridad;
+import com.escueladeequitacion.hrs.security.TokenService;
+import com.escueladeequitacion.hrs.security.User;
+import com.escueladeequitacion.hrs.security.UserRepository;
+import com.escueladeequitacion.hrs.service.ResumenMensualService;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Presupuesto de consultas por endpoint. Carga un padrón sintético
+ * (GeneradorDatosCarga), llama a cada GET con un ADMIN y compara las
+ * estadísticas de Hibernate contra el máximo de la tabla:
+ *
+ * - sentencias: PreparedStatements ejecutados (detecta N+1).
+ * - entidades: entidades materializadas (detecta cargas de más, por ej. una
+ * relación EAGER o una lista que se trae entera para filtrar en memoria).
+ *
+ * Cada endpoint se llama dos veces y se mide la segunda, con las cachés en
+ * memoria (precios, ocupación, identidades) ya cargadas. Si un cambio baja
+ * los números, actualizar la tabla; si los sube, el test falla.
+ */
+@SpringBootTest(properties = {
+        "app.whitelist.emails=test@hrs.local",
+        "app.token.secreto=clave-de-pruebas-no-usar-en-produccion",
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "app.precios.verificacion-ms=3600000",
+        "app.precios.planes-recarga-ms=3600000"
+})
+@AutoConfigureMockMvc
+@Import(GeneradorDatosCarga.class)
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+class ConsultasPorEndpointTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private GeneradorDatosCarga generador;
+    @Autowired
+    private UserRepository userRepository;
+    @Autowired
+    private TokenService tokenService;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private ResumenMensualService resumenMensualService;
+
+    private GeneradorDatosCarga.Resultado datos;
+    private String token;
+
+    @BeforeAll
+    void cargarDatos() {
+        datos = generador.generar(6, 20, 120, 120, 21, 14);
+        // Como el cierre del día 1: los meses terminados ya tienen sus filas
+        resumenMensualService.cerrarMesesTerminados();
+        User admin = userRepository.save(new User("admin", "admin@hrs.local", "-", RolSeguridad.ADMIN));
+        token = tokenService.emitirAcceso(admin);
+    }
+
+    @ParameterizedTest(name = "{0} → máx. {1} sentencias, {2} entidades")
+    @CsvSource(delimiter = '|', textBlock = """
+            /api/v1/alumnos                                                    |  2 |  20
+            /api/v1/alumnos/{alumnoId}                                         |  1 |   1
+            /api/v1/alumnos/{alumnoId}/clases/completadas/count                |  1 |   0
+            /api/v1/instructores                                               |  1 |   6
+            /api/v1/instructores/{instructorId}                                |  1 |   1
+            /api/v1/caballos                                                   | 22 |  20
+            /api/v1/caballos/{caballoId}                                       |  1 |   1
+            /api/v1/clases                                                     | 40 |  58
+            /api/v1/clases/cursor                                              | 39 |  59
+            /api/v1/clases/{claseId}                                           |  2 |   2
+            /api/v1/clases/{claseId}/detalles                                  |  1 |   0
+            /api/v1/clases/dia/{dia}                                           |  2 |  23
+            /api/v1/clases/dia/{dia}/detalles                                  |  1 |   0
+            /api/v1/clases/detalles                                            |  1 |   0
+            /api/v1/clases/instructor/{instructorId}/detalles                  |  1 |   0
+            /api/v1/clases/alumno/{alumnoId}/detalles                          |  1 |   0
+            /api/v1/clases/caballo/{caballoId}/detalles                        |  1 |   0
+            /api/v1/clases/estado/PROGRAMADA/detalles                          |  2 |   0
+            /api/v1/clases/instructor/{instructorId}/completadas/count         |  1 |   0
+            /api/v1/calendario?desde={semana}&hasta={finSemana}                |  3 |   0
+            /api/v1/calendario/disponibilidad?desde={manana}&hasta={finSemana} |  2 |  66
+            /api/v1/clases-recurrentes                                         |  1 |   0
+            /api/v1/finanzas/resumen?inicio={inicioTrimestre}&fin={finMes}     |  4 | 135
+            /api/v1/finanzas/alumnos?inicio={inicioMes}&fin={finMes}           |  2 | 108
+            /api/v1/finanzas/pensiones                                         |  1 | 120
+            /api/v1/finanzas/honorarios?inicio={inicioTrimestre}&fin={finMes}  |  2 |   6
+            /api/v1/finanzas/configuracion                                     |  0 |   0
+            /api/v1/finanzas/abonos/alumno/{alumnoId}                          |  1 |   0
+            /api/v1/finanzas/facturas/alumno/{alumnoId}                        |  1 |   0
+            /api/v1/finanzas/pagos/alumno/{alumnoId}                           |  1 |   0
+            /api/v1/auth/users                                                 |  1 |   1
+            """)
+    void respetaElPresupuestoDeConsultas(String ruta, long maxSentencias, long maxEntidades) throws Exception {
+        String url = resolver(ruta);
+        llamar(url);
+
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+        llamar(url);
+        long sentencias = estadisticas.getPrepareStatementCount();
+        long entidades = estadisticas.getEntityLoadCount();
+
+        assertTrue(sentencias <= maxSentencias,
+                url + ": " + sentencias + " sentencias (máximo " + maxSentencias + ")");
+        assertTrue(entidades <= maxEntidades,
+                url + ": " + entidades + " entidades cargadas (máximo " + maxEntidades + ")");
+    }
+
+    private void llamar(String url) throws Exception {
+        MockHttpServletResponse respuesta = mockMvc.perform(get(url).header("Authorization", "Bearer " + token))
+                .andReturn().getResponse();
+        assertTrue(respuesta.getStatus() < 300, url + " respondió " + respuesta.getStatus());
+    }
+
+    private String resolver(String ruta) {
+        LocalDate hoy = LocalDate.now();
+        LocalDate semana = hoy.plusDays(1);
+        return ruta
+                .replace("{alumnoId}", datos.alumnoId().toString())
+                .replace("{instructorId}", datos.instructorId().toString())
+                .replace("{caballoId}", datos.caballoId().toString())
+                .replace("{claseId}", datos.claseId().toString())
+                .replace("{dia}", datos.dia().toString())
+                .replace("{manana}", semana.toString())
+                .replace("{semana}", semana.toString())
+                .replace("{finSemana}", semana.plusDays(6).toString())
+                .replace("{inicioMes}", hoy.withDayOfMonth(1).minusMonths(1).toString())
+                .replace("{inicioTrimestre}", hoy.withDayOfMonth(1).minusMonths(3).toString())
+                .replace("{finMes}", hoy.withDayOfMonth(1).minusDays(1).toString());
+    }
+}
@@ -0,0 +1,99 @@
+package com.escueladeequitacion.hrs.security;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.env.MockEnvironment;
+
+/**
+ * Firma, tipo y vencimiento de los tokens, y la clave obligatoria fuera de
+ * los perfiles local, dev y loadtest.
+ */
+class TokenServiceTest {
+
+    private static final String SECRETO = "clave-de-pruebas-no-usar-en-produccion";
+
+    private final TokenService tokenService = new TokenService(SECRETO, 15, 7, new MockEnvironment());
+    private final User usuario = usuario();
+
+    @Test
+    void aceptaElTokenDeAccesoEmitido() {
+        TokenService.TokenValido token = tokenService.validar(tokenService.emitirAcceso(usuario),
+                TokenService.TIPO_ACCESO);
+
+        assertNotNull(token);
+        assertEquals("admin", token.username());
+        assertEquals(7L, token.userId());
+        assertEquals(RolSeguridad.ADMIN, token.rol());
+    }
+
+    @Test
+    void rechazaUnTokenDeOtroTipo() {
+        assertNull(tokenService.validar(tokenService.emitirAcceso(usuario), TokenService.TIPO_REFRESCO));
+        assertNull(tokenService.validar(tokenService.emitirRefresco(usuario), TokenService.TIPO_ACCESO));
+    }
+
+    @Test
+    void rechazaUnTokenConLaFirmaAlterada() {
+        String token = tokenService.emitirAcceso(usuario);
+        int ultimoPunto = token.lastIndexOf('.');
+        char ultimo = token.charAt(token.length() - 1);
+        String firmaAlterada = token.substring(0, token.length() - 1) + (ultimo == 'A' ? 'B' : 'A');
+        // Cuerpo de otro token (otro rol) con la firma original
+        String otro = tokenService.emitirAcceso(usuarioConRol(RolSeguridad.ALUMNO));
+        String cuerpoAlterado = otro.substring(0, otro.lastIndexOf('.')) + token.substring(ultimoPunto);
+
+        assertNull(tokenService.validar(firmaAlterada, TokenService.TIPO_ACCESO));
+        assertNull(tokenService.validar(cuerpoAlterado, TokenService.TIPO_ACCESO));
+        assertNull(tokenService.validar("no.es-un.token", TokenService.TIPO_ACCESO));
+        assertNull(tokenService.validar(null, TokenService.TIPO_ACCESO));
+    }
+
+    @Test
+    void rechazaUnTokenFirmadoConOtraClave() {
+        TokenService otro = new TokenService("otra-clave-de-pruebas-de-32-bytes-o-mas", 15, 7, new MockEnvironment());
+
+        assertNull(tokenService.validar(otro.emitirAcceso(usuario), TokenService.TIPO_ACCESO));
+    }
+
+    @Test
+    void rechazaUnTokenVencido() {
+        // Duración 0: vence en el mismo segundo en que se emite
+        TokenService sinDuracion = new TokenService(SECRETO, 0, 0, new MockEnvironment());
+
+        assertNull(sinDuracion.validar(sinDuracion.emitirAcceso(usuario), TokenService.TIPO_ACCESO));
+        assertNull(sinDuracion.validar(sinDuracion.emitirRefresco(usuario), TokenService.TIPO_REFRESCO));
+    }
+
+    @Test
+    void exigeLaClaveFueraDeLocalDevYLoadtest() {
+        assertThrows(IllegalStateException.class, () -> new TokenService("", 15, 7, new MockEnvironment()));
+        assertThrows(IllegalStateException.class,
+                () -> new TokenService("", 15, 7, entornoConPerfil("prod")));
+        assertThrows(IllegalStateException.class, () -> new TokenService("corta", 15, 7, entornoConPerfil("dev")));
+
+        TokenService dev = new TokenService("", 15, 7, entornoConPerfil("dev"));
+        assertNotNull(dev.validar(dev.emitirAcceso(usuario), TokenService.TIPO_ACCESO));
+        TokenService local = new TokenService("", 15, 7, entornoConPerfil("local"));
+        assertNotNull(local.validar(local.emitirAcceso(usuario), TokenService.TIPO_ACCESO));
+    }
+
+    private static MockEnvironment entornoConPerfil(String perfil) {
+        MockEnvironment entorno = new MockEnvironment();
+        entorno.setActiveProfiles(perfil);
+        return entorno;
+    }
+
+    private static User usuario() {
+        return usuarioConRol(RolSeguridad.ADMIN);
+    }
+
+    private static User usuarioConRol(RolSeguridad rol) {
+        User user = new User("admin", "admin@hrs.local", "-", rol);
+        user.setId(7L);
+        return user;
+    }
+}
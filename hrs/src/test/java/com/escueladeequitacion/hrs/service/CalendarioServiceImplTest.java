@@ -0,0 +1,116 @@
+package com.escueladeequitacion.hrs.service;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.escueladeequitacion.hrs.dto.ClaseResponseDto;
+import com.escueladeequitacion.hrs.enums.Especialidad;
+import com.escueladeequitacion.hrs.enums.Estado;
+import com.escueladeequitacion.hrs.enums.Tipo;
+import com.escueladeequitacion.hrs.model.Caballo;
+import com.escueladeequitacion.hrs.model.Clase;
+import com.escueladeequitacion.hrs.model.ClaseRecurrente;
+import com.escueladeequitacion.hrs.model.Instructor;
+import com.escueladeequitacion.hrs.repository.CaballoRepository;
+import com.escueladeequitacion.hrs.repository.ClaseRecurrenteRepository;
+import com.escueladeequitacion.hrs.repository.ClaseRepository;
+import com.escueladeequitacion.hrs.repository.InstructorRepository;
+
+/**
+ * Sin @Transactional: las operaciones masivas reconstruyen el planificador al
+ * confirmar, y eso es lo que se prueba.
+ */
+@SpringBootTest(properties = {
+        "app.whitelist.emails=test@hrs.local",
+        "app.token.secreto=clave-de-pruebas-no-usar-en-produccion"
+})
+class CalendarioServiceImplTest {
+
+    private static final ZoneId ZONA = ZoneId.of("America/Argentina/Buenos_Aires");
+
+    private static int secuencia;
+
+    @Autowired
+    private CalendarioService calendarioService;
+    @Autowired
+    private CaballoRepository caballoRepository;
+    @Autowired
+    private InstructorRepository instructorRepository;
+    @Autowired
+    private ClaseRepository claseRepository;
+    @Autowired
+    private ClaseRecurrenteRepository claseRecurrenteRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private Instructor instructor;
+    private Caballo caballo;
+    private LocalDate hoy;
+
+    @BeforeEach
+    void preparar() {
+        hoy = LocalDate.now(ZONA);
+        secuencia++;
+        instructor = instructorRepository.save(new Instructor(String.valueOf(91000000 + secuencia), "Beto",
+                "Instructor", LocalDate.of(1990, 1, 1), "11", "12345678", null, true, "#000000"));
+        caballo = caballoRepository.save(new Caballo("Calendario " + secuencia, true, Tipo.ESCUELA));
+    }
+
+    @Test
+    void eliminarClasesDeHoyDentroDeUnaTransaccionReconstruyeElPlanificador() {
+        Clase deHoy = claseRepository.save(clase(hoy, Estado.PROGRAMADA));
+        Clase deAyer = claseRepository.save(clase(hoy.minusDays(1), Estado.PROGRAMADA));
+
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        assertDoesNotThrow(() -> tx.executeWithoutResult(
+                status -> calendarioService.eliminarClases(hoy, hoy, null, null)));
+
+        assertFalse(claseRepository.existsById(deHoy.getId()));
+        // La reconstrucción al confirmar completa lo que quedó pendiente de días anteriores
+        assertEquals(Estado.COMPLETADA, claseRepository.findById(deAyer.getId()).orElseThrow().getEstado());
+    }
+
+    @Test
+    void eliminarClasesCancelaLasOcurrenciasDeClasesRecurrentes() {
+        ClaseRecurrente plantilla = new ClaseRecurrente();
+        plantilla.setDiaSemana(hoy.getDayOfWeek());
+        plantilla.setHora(LocalTime.of(23, 0));
+        plantilla.setDuracion(30);
+        plantilla.setEspecialidad(Especialidad.EQUITACION);
+        plantilla.setInstructor(instructor);
+        plantilla.setCaballo(caballo);
+        plantilla.setVigenteDesde(hoy);
+        plantilla = claseRecurrenteRepository.save(plantilla);
+        // La de hoy ya materializada (como al arrancar); la de la semana que viene solo calculada
+        Clase deHoy = claseRepository.save(plantilla.crearOcurrencia(hoy));
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(
+                status -> calendarioService.eliminarClases(hoy, hoy.plusDays(7), null, null));
+
+        assertEquals(Estado.CANCELADA, claseRepository.findById(deHoy.getId()).orElseThrow().getEstado());
+        Long plantillaId = plantilla.getId();
+        List<ClaseResponseDto> ocurrencias = calendarioService.obtenerCalendario(hoy, hoy.plusDays(7)).stream()
+                .filter(c -> plantillaId.equals(c.getClaseRecurrenteId()))
+                .toList();
+        assertEquals(2, ocurrencias.size());
+        ocurrencias.forEach(c -> assertEquals(Estado.CANCELADA, c.getEstado()));
+    }
+
+    private Clase clase(LocalDate dia, Estado estado) {
+        return new Clase(instructor, null, caballo, Especialidad.EQUITACION, dia, LocalTime.of(23, 30), 30,
+                estado, false);
+    }
+}
@@ -0,0 +1,116 @@
+package com.escueladeequitacion.hrs.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.escueladeequitacion.hrs.dto.CuotasAlumnosDto;
+import com.escueladeequitacion.hrs.enums.CuotaPension;
+import com.escueladeequitacion.hrs.enums.Especialidad;
+import com.escueladeequitacion.hrs.enums.Estado;
+import com.escueladeequitacion.hrs.enums.Tipo;
+import com.escueladeequitacion.hrs.enums.TipoPension;
+import com.escueladeequitacion.hrs.model.Alumno;
+import com.escueladeequitacion.hrs.model.Caballo;
+import com.escueladeequitacion.hrs.model.Clase;
+import com.escueladeequitacion.hrs.model.Instructor;
+import com.escueladeequitacion.hrs.repository.AlumnoRepository;
+import com.escueladeequitacion.hrs.repository.CaballoRepository;
+import com.escueladeequitacion.hrs.repository.ClaseRepository;
+import com.escueladeequitacion.hrs.repository.InstructorRepository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+@SpringBootTest(properties = {
+        "app.whitelist.emails=test@hrs.local",
+        "app.token.secreto=clave-de-pruebas-no-usar-en-produccion",
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Transactional
+class FinanzasServiceImplTest {
+
+    private static final LocalDate INICIO = LocalDate.of(2026, 3, 1);
+    private static final LocalDate FIN = LocalDate.of(2026, 3, 31);
+
+    @Autowired
+    private FinanzasService finanzasService;
+    @Autowired
+    private AlumnoRepository alumnoRepository;
+    @Autowired
+    private CaballoRepository caballoRepository;
+    @Autowired
+    private InstructorRepository instructorRepository;
+    @Autowired
+    private ClaseRepository claseRepository;
+    @Autowired
+    private EntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Instructor instructor;
+    private Caballo caballoEscuela;
+    private int secuencia;
+
+    @BeforeEach
+    void preparar() {
+        instructor = instructorRepository.save(new Instructor("90000000", "Ana", "Instructora",
+                LocalDate.of(1990, 1, 1), "11", "12345678", null, true, "#000000"));
+        caballoEscuela = caballoRepository.save(new Caballo("Escuela", true, Tipo.ESCUELA));
+        // Pensiones y cuotas se leen de ConfiguracionPrecios: que exista antes de medir
+        finanzasService.getConfiguracion();
+    }
+
+    @Test
+    void cuotasAlumnosNoHaceUnaConsultaPorAlumno() {
+        crearAlumnos(3);
+        long consultasConPocos = contarConsultas(3);
+
+        crearAlumnos(30);
+        long consultasConMuchos = contarConsultas(33);
+
+        assertEquals(consultasConPocos, consultasConMuchos,
+                "La cantidad de consultas de calcularCuotasAlumnos no debe crecer con los alumnos");
+    }
+
+    private long contarConsultas(int alumnosEsperados) {
+        entityManager.flush();
+        entityManager.clear();
+        Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        estadisticas.clear();
+
+        CuotasAlumnosDto cuotas = finanzasService.calcularCuotasAlumnos(INICIO, FIN, null);
+
+        assertEquals(alumnosEsperados, cuotas.getAlumnosActivos());
+        cuotas.getFilas().forEach(fila -> assertEquals(2L, fila.getClasesCompletadas()));
+        return estadisticas.getPrepareStatementCount();
+    }
+
+    private void crearAlumnos(int cantidad) {
+        for (int i = 0; i < cantidad; i++) {
+            secuencia++;
+            // Cada alumno con su caballo propio: es la relación EAGER que generaba N+1
+            Caballo propio = caballoRepository.save(new Caballo("Propio " + secuencia, true, Tipo.PRIVADO));
+            Alumno alumno = alumnoRepository.save(new Alumno(String.valueOf(10000000 + secuencia),
+                    "Alumno", "Apellido " + secuencia, LocalDate.of(2000, 1, 1), "11", "12345678", null,
+                    LocalDate.of(2025, 1, 1), 8, true, true, propio, TipoPension.CABALLO_PROPIO,
+                    CuotaPension.ENTERA));
+            for (int dia = 1; dia <= 2; dia++) {
+                claseRepository.save(new Clase(instructor, alumno, caballoEscuela, Especialidad.EQUITACION,
+                        INICIO.plusDays(dia), LocalTime.of(9, 0), 60, Estado.COMPLETADA, false));
+            }
+            // Fuera del período: no debe contarse
+            claseRepository.save(new Clase(instructor, alumno, caballoEscuela, Especialidad.EQUITACION,
+                    FIN.plusDays(5), LocalTime.of(9, 0), 60, Estado.COMPLETADA, false));
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.escueladeequitacion.hrs.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.escueladeequitacion.hrs.enums.TipoPension;
+import com.escueladeequitacion.hrs.model.Alumno;
+import com.escueladeequitacion.hrs.model.Factura;
+import com.escueladeequitacion.hrs.repository.AlumnoRepository;
+import com.escueladeequitacion.hrs.repository.ContadorFacturaRepository;
+import com.escueladeequitacion.hrs.repository.FacturaRepository;
+
+/**
+ * Numeración de facturas con varios nodos: cada NumeradorFacturas creado
+ * aparte hace de un nodo que comparte la base. Cada test usa su propio año,
+ * porque los contadores quedan en la base entre tests.
+ */
+@SpringBootTest(properties = {
+        "app.whitelist.emails=test@hrs.local",
+        "app.token.secreto=clave-de-pruebas-no-usar-en-produccion",
+        "app.facturas.bloque-numeros=5"
+})
+class NumeradorFacturasTest {
+
+    @Autowired
+    private NumeradorFacturas numerador;
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+    @MockitoSpyBean
+    private ContadorFacturaRepository contadorRepository;
+    @Autowired
+    private FacturaRepository facturaRepository;
+    @Autowired
+    private AlumnoRepository alumnoRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void dosNodosNoRepitenNumerosEntreBloques() throws Exception {
+        int anio = 2090;
+        NumeradorFacturas otroNodo = beanFactory.createBean(NumeradorFacturas.class);
+        List<NumeradorFacturas> nodos = List.of(numerador, otroNodo, numerador, otroNodo);
+
+        Set<Long> numeros = ConcurrentHashMap.newKeySet();
+        ExecutorService hilos = Executors.newFixedThreadPool(nodos.size());
+        try {
+            List<Future<?>> tareas = new ArrayList<>();
+            for (NumeradorFacturas nodo : nodos) {
+                tareas.add(hilos.submit(() -> {
+                    for (int i = 0; i < 50; i++) {
+                        numeros.add(nodo.siguiente(anio));
+                    }
+                }));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+        } finally {
+            hilos.shutdown();
+        }
+
+        // 200 números de bloques de 5: cruzan 40 reservas repartidas entre los dos nodos
+        assertEquals(200, numeros.size());
+    }
+
+    @Test
+    void elContadorArrancaDespuesDeLaUltimaFacturaDelAnio() {
+        int anio = 2091;
+        Alumno alumno = alumnoRepository.save(new Alumno("92000000", "Alumno", "Facturas",
+                LocalDate.of(2000, 1, 1), "11", "12345678", null, LocalDate.of(2025, 1, 1), 8, true, false, null,
+                TipoPension.SIN_CABALLO, null));
+        Factura factura = new Factura();
+        factura.setNumeroFactura("FC-" + anio + "-00123");
+        factura.setAlumno(alumno);
+        factura.setFechaEmision(LocalDate.of(anio, 1, 5));
+        factura.setFechaVencimiento(LocalDate.of(anio, 1, 15));
+        factura.setSubtotal(BigDecimal.TEN);
+        factura.setTotal(BigDecimal.TEN);
+        factura.setSaldoPendiente(BigDecimal.TEN);
+        facturaRepository.save(factura);
+
+        assertEquals(124, numerador.siguiente(anio));
+        assertEquals(125, numerador.siguiente(anio));
+    }
+
+    @Test
+    void siOtroNodoCreaElContadorPrimeroUsaElSuyo() {
+        int anio = 2092;
+        TransactionTemplate otraTransaccion = new TransactionTemplate(transactionManager);
+        otraTransaccion.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        AtomicBoolean primerIntento = new AtomicBoolean(true);
+        // Justo antes del INSERT de este nodo, otro nodo confirma el suyo desde 500. El espía de un
+        // repositorio no llama al método real de la interfaz: el INSERT es el mismo de crear
+        String insert = "INSERT INTO contadores_factura (anio, siguiente) VALUES (?, ?)";
+        doAnswer(invocacion -> {
+            if (primerIntento.getAndSet(false)) {
+                otraTransaccion.executeWithoutResult(status -> jdbcTemplate.update(insert, anio, 500L));
+            }
+            return jdbcTemplate.update(insert, invocacion.getArguments());
+        }).when(contadorRepository).crear(anyInt(), anyLong());
+
+        assertEquals(500, numerador.siguiente(anio));
+        assertEquals(501, numerador.siguiente(anio));
+    }
+}